@@ -1,6 +1,7 @@
 plugins {
     id("java")
     id("com.github.johnrengelman.shadow") version "8.1.1" // Shadow plugin
+    id("me.champeau.jmh") version "0.7.2" // JMH benchmarks in src/jmh
 }
 
 group = "nub.wi1helm"
@@ -43,6 +44,15 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter")
 }
 
+// Load-test harness in src/perf; not part of the shipped jar
+val perf by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[perf.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[perf.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
 java {
     withSourcesJar()
     withJavadocJar()
@@ -76,3 +86,76 @@ tasks {
 tasks.test {
     useJUnitPlatform()
 }
+
+// ./gradlew loadTest -PloadTestArgs="steps=10,100,500 holdSeconds=30 threads=1,2,4,8"
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the bot swarm load test against a local lobby with stand-in backends."
+    classpath = perf.runtimeClasspath
+    mainClass.set("nub.wi1helm.perf.LoadTest")
+    args = (findProperty("loadTestArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+// Fails the build when a tick hook allocates more than its budget in src/perf/resources/allocation-budgets.properties.
+// ./gradlew allocationBudget -PallocationBudgetArgs="report=true" prints the measurements without failing, and
+// -PallocationBudgetArgs="calibrate=src/perf/resources/allocation-budgets.properties" rewrites the budgets from them.
+val allocationBudget by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Checks the bytes allocated per tick by the player, billboard and sidebar tick hooks against their budgets."
+    classpath = perf.runtimeClasspath
+    mainClass.set("nub.wi1helm.server.AllocationBudget")
+    args = (findProperty("allocationBudgetArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+tasks.check {
+    dependsOn(allocationBudget)
+}
+
+// ./gradlew replayWorkload -PreplayArgs="log=recordings/lobby.wkl label=my-branch"
+tasks.register<JavaExec>("replayWorkload") {
+    group = "verification"
+    description = "Replays a recorded workload log against a headless lobby and reports tick durations."
+    classpath = perf.runtimeClasspath
+    mainClass.set("nub.wi1helm.server.WorkloadReplay")
+    // The lobby loads its world from resources/world relative to the working directory
+    workingDir = file("src/main")
+    val userArgs = (findProperty("replayArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+    args = listOf("output=" + layout.buildDirectory.file("results/replay/results.json").get().asFile.path) +
+            userArgs.map { if (it.startsWith("log=")) "log=" + file(it.removePrefix("log=")).path else it }
+}
+
+// Bakes the lobby's lighting into src/main/resources/world; commit the changed region files and lighting.baked.
+// ./gradlew bakeLighting (WORLD_CHUNK_RADIUS_X / _Z select a larger radius)
+tasks.register<JavaExec>("bakeLighting") {
+    group = "build"
+    description = "Computes the lighting of the lobby world and writes it into the region files under src/main/resources/world."
+    classpath = perf.runtimeClasspath
+    mainClass.set("nub.wi1helm.server.LightingBake")
+    // The lobby loads its world from resources/world relative to the working directory
+    workingDir = file("src/main")
+}
+
+// ./gradlew profileStorm -PprofileStormArgs="players=2000 seed=7"
+tasks.register<JavaExec>("profileStorm") {
+    group = "verification"
+    description = "Loads player profiles in a join storm and a brownout against an in-process player-service with injected faults."
+    classpath = perf.runtimeClasspath
+    mainClass.set("nub.wi1helm.perf.ProfileStorm")
+    args = (findProperty("profileStormArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+// ./gradlew redisThroughput -PredisThroughputArgs="seconds=10 threads=8 nodes=10.0.0.1:6379"
+tasks.register<JavaExec>("redisThroughput") {
+    group = "verification"
+    description = "Measures Redis commands per second for blocking calls with validating pools versus the pipelined access layer."
+    classpath = perf.runtimeClasspath
+    mainClass.set("nub.wi1helm.perf.RedisThroughput")
+    args = (findProperty("redisThroughputArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    // Machine-readable results, to compare runs between releases
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
@@ -0,0 +1,38 @@
+package nub.wi1helm.game;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.TextDecoration;
+import nub.wi1helm.server.PlaytimeFormat;
+import nub.wi1helm.server.ServerTeam;
+import nub.wi1helm.server.TickingPlaytime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rebuilding a team billboard's text when its playtime changes, as {@link CustomPlaytimeTextDisplay} does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BillboardTextBenchmark {
+
+    private final ServerTeam team = ServerTeam.AQUA_CREEPERS;
+    private final Component teamName = Component.text(team.displayName(), team.color(), TextDecoration.BOLD);
+
+    @Benchmark
+    public Component billboardText(TickingPlaytime playtime) {
+        return CustomPlaytimeTextDisplay.billboardText(team, teamName, PlaytimeFormat.format(playtime.next()));
+    }
+}
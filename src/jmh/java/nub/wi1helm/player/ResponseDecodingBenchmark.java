@@ -0,0 +1,57 @@
+package nub.wi1helm.player;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding backend responses with the services' own Gson instances: the player-service profile that every
+ * login parses, and the game-service playtime responses that are polled for every player.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseDecodingBenchmark {
+
+    // Shaped like player-service's GET /profiles/{uuid} response
+    private static final String PROFILE_JSON = "{\"UUID\":\"0f8fad5b-d9cb-469f-a165-70867728950e\",\"Username\":\"Wi1helm\","
+            + "\"Team\":\"AQUA_CREEPERS\",\"TotalPlaytimeTicks\":1234567.5,\"DeltaPlaytimeTicks\":1.0,\"Banned\":false,"
+            + "\"BanExpiresAt\":null,\"LastLoginAt\":\"2025-06-01T12:34:56.789Z\",\"CreatedAt\":\"2024-11-20T08:00:00Z\"}";
+    private static final String PLAYTIME_JSON = "{\"playtime\":1234567.5}";
+    private static final String DELTA_JSON = "{\"deltatime\":1.0}";
+    private static final String TEAM_JSON = "{\"teamId\":\"AQUA_CREEPERS\",\"totalPlaytime\":987654321.25}";
+
+    private final PlayerService playerService = PlayerService.getInstance();
+    private final GameService gameService = GameService.getInstance();
+
+    @Benchmark
+    public PlayerApiResponse playerProfile() {
+        return playerService.parseApiResponse(PROFILE_JSON, "bench");
+    }
+
+    @Benchmark
+    public double playerPlaytime() {
+        return gameService.decodePlaytime(PLAYTIME_JSON);
+    }
+
+    @Benchmark
+    public double playerDeltaPlaytime() {
+        return gameService.decodeDeltaPlaytime(DELTA_JSON);
+    }
+
+    @Benchmark
+    public double teamPlaytime() {
+        return gameService.decodeTeamPlaytime(TEAM_JSON);
+    }
+}
@@ -0,0 +1,159 @@
+package nub.wi1helm.server;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.TextDecoration;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.entity.Entity;
+import net.minestom.server.entity.EntityType;
+import net.minestom.server.entity.metadata.display.TextDisplayMeta;
+import net.minestom.server.instance.Chunk;
+import net.minestom.server.network.ConnectionState;
+import net.minestom.server.network.NetworkBuffer;
+import net.minestom.server.network.packet.server.SendablePacket;
+import net.minestom.server.network.packet.server.play.ChunkDataPacket;
+import net.minestom.server.network.packet.server.play.EntityMetaDataPacket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * CPU and bytes per player for the traffic this lobby sends, at different compression thresholds.
+ *
+ * - {@code joinChunks}: the chunk data a joining player receives. The payloads are the chunk data packets (blocks,
+ *   biomes and light) of every chunk a {@link ServerInstance} loads from the lobby world, serialized as they go on
+ *   the wire.
+ * - {@code billboardSecond}: the billboard metadata a player receives per second (both team billboards change their
+ *   text once a second).
+ *
+ * Compression is done the way Minestom does it: payloads of at least {@code threshold} bytes are deflated with the
+ * default level, smaller ones are sent as they are; a threshold of 0 disables compression. The benchmarks measure the
+ * CPU time. The bytes per player that end up on the wire don't vary between calls, so they are computed once per
+ * threshold in the setup and printed with the fork's output ({@code CompressionBenchmark: threshold=...}).
+ *
+ * Run with {@code ./gradlew jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    // JMH runs in the project directory, not in the one holding resources/world
+    private static final Path WORLD_FOLDER = Path.of("src/main/resources/world");
+
+    @Param({"0", "64", "256", "1024"})
+    public int threshold;
+
+    private List<byte[]> chunkPayloads;
+    private List<byte[]> billboardPayloads;
+    private Deflater deflater;
+    private byte[] output;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MinecraftServer.init();
+        chunkPayloads = chunkData(new ServerInstance(WORLD_FOLDER, true, false));
+        billboardPayloads = new ArrayList<>();
+        for (ServerTeam team : ServerTeam.values()) {
+            billboardPayloads.add(billboardMetadata(team, 123_456_789.0));
+        }
+        deflater = new Deflater();
+        output = new byte[1 << 20];
+        System.out.printf("CompressionBenchmark: threshold=%d: join chunks %d bytes on the wire (%d uncompressed), billboards %d bytes per second (%d uncompressed).%n",
+                threshold, wireSize(chunkPayloads), rawSize(chunkPayloads), wireSize(billboardPayloads), rawSize(billboardPayloads));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deflater.end();
+    }
+
+    @Benchmark
+    public long joinChunks() {
+        return wireSize(chunkPayloads);
+    }
+
+    @Benchmark
+    public long billboardSecond() {
+        return wireSize(billboardPayloads);
+    }
+
+    private long wireSize(List<byte[]> payloads) {
+        long total = 0;
+        for (byte[] payload : payloads) {
+            total += wireSize(payload);
+        }
+        return total;
+    }
+
+    private static long rawSize(List<byte[]> payloads) {
+        long total = 0;
+        for (byte[] payload : payloads) {
+            total += payload.length;
+        }
+        return total;
+    }
+
+    private int wireSize(byte[] payload) {
+        if (threshold == 0 || payload.length < threshold) {
+            return payload.length;
+        }
+        deflater.reset();
+        deflater.setInput(payload);
+        deflater.finish();
+        int size = 0;
+        while (!deflater.finished()) {
+            size += deflater.deflate(output);
+        }
+        return size;
+    }
+
+    /**
+     * The metadata packet a billboard sends when its text changes, serialized as it goes on the wire.
+     */
+    private static byte[] billboardMetadata(ServerTeam team, double playtime) {
+        Entity display = new Entity(EntityType.TEXT_DISPLAY);
+        TextDisplayMeta meta = (TextDisplayMeta) display.getEntityMeta();
+        meta.setText(Component.text()
+                .color(team.color())
+                .append(Component.text(team.displayName(), team.color(), TextDecoration.BOLD))
+                .append(Component.newline())
+                .append(Component.text(PlaytimeFormat.format(playtime) + "/10.000.000"))
+                .build());
+        EntityMetaDataPacket packet = display.getMetadataPacket();
+        return NetworkBuffer.makeArray(EntityMetaDataPacket.SERIALIZER, packet);
+    }
+
+    /**
+     * The chunk data packets a joining player receives for the instance's chunks, serialized as they go on the wire.
+     */
+    private static List<byte[]> chunkData(ServerInstance instance) {
+        List<byte[]> payloads = new ArrayList<>();
+        for (Chunk chunk : instance.getChunks()) {
+            ChunkDataPacket packet = (ChunkDataPacket) SendablePacket.extractServerPacket(ConnectionState.PLAY, chunk.getFullDataPacket());
+            payloads.add(NetworkBuffer.makeArray(ChunkDataPacket.SERIALIZER, packet));
+        }
+        if (payloads.isEmpty()) {
+            throw new IllegalStateException("No chunks loaded from " + WORLD_FOLDER.toAbsolutePath());
+        }
+        return payloads;
+    }
+}
@@ -0,0 +1,70 @@
+package nub.wi1helm.server;
+
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.Component;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.instance.Chunk;
+import net.minestom.server.instance.DynamicChunk;
+import net.minestom.server.instance.InstanceContainer;
+import net.minestom.server.world.DimensionType;
+import net.minestom.server.world.biome.Biome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the server package's hot paths: the action bar every player gets every tick, the playtime formatting
+ * shared by sidebar and billboards, team lookups, and the biome fill done for every chunk at startup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServerHotPathBenchmark {
+
+    private Chunk chunk;
+    // Not final, so the JIT can't fold the lookup into a constant
+    private String teamName = "PURPLE_SWORDERS";
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MinecraftServer.init();
+        MinecraftServer.getBiomeRegistry().register(Key.key("main"), Biome.builder().build());
+        chunk = new DynamicChunk(new InstanceContainer(UUID.randomUUID(), DimensionType.OVERWORLD), 0, 0);
+    }
+
+    @Benchmark
+    public Component actionBarText(TickingPlaytime playtime) {
+        return ServerPlayer.actionBarText(playtime.next(), 1.0);
+    }
+
+    @Benchmark
+    public String playtimeFormat(TickingPlaytime playtime) {
+        return PlaytimeFormat.format(playtime.next());
+    }
+
+    @Benchmark
+    public ServerTeam teamFromString() {
+        return ServerTeam.fromString(teamName);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Chunk paintBiome() {
+        ServerInstance.paintBiome(chunk);
+        return chunk;
+    }
+}
@@ -0,0 +1,22 @@
+package nub.wi1helm.server;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A playtime that grows on every call, as a ticking player's does, so a benchmark never formats the same value twice
+ * and can't be served from a cache or constant-folded.
+ */
+@State(Scope.Thread)
+public class TickingPlaytime {
+
+    // Ticks added per call; not a whole number of seconds, so the low digits change as well
+    private static final double PER_CALL = 20.5;
+
+    private double playtime;
+
+    public double next() {
+        playtime += PER_CALL;
+        return playtime;
+    }
+}
@@ -1,5 +1,6 @@
 package nub.wi1helm;
 
+import net.kyori.adventure.text.Component;
 import net.minestom.server.MinecraftServer;
 import net.minestom.server.entity.GameMode;
 import net.minestom.server.event.GlobalEventHandler;
@@ -8,9 +9,21 @@ import net.minestom.server.event.player.PlayerDisconnectEvent;
 import net.minestom.server.event.player.PlayerSpawnEvent;
 import net.minestom.server.extras.velocity.VelocityProxy;
 import net.minestom.server.instance.Instance;
+import nub.wi1helm.config.AdminServer;
+import nub.wi1helm.config.LobbyConfig;
 import nub.wi1helm.game.GameHandler;
+import nub.wi1helm.metrics.JfrStats;
+import nub.wi1helm.metrics.MetricsServer;
+import nub.wi1helm.metrics.TickMetrics;
+import nub.wi1helm.metrics.TickWatchdog;
+import nub.wi1helm.metrics.WorkloadRecorder;
+import nub.wi1helm.player.PlaytimeAccrual;
 import nub.wi1helm.register.Registrar;
 import nub.wi1helm.register.RegistrarConfig; // Import RegistrarConfig
+import nub.wi1helm.server.CompressionPolicy;
+import nub.wi1helm.server.CosmeticBroadcast;
+import nub.wi1helm.server.LoginAdmission;
+import nub.wi1helm.server.RegionDispatch;
 import nub.wi1helm.server.ServerInstance;
 import nub.wi1helm.server.ServerPlayer;
 import nub.wi1helm.server.ServerSidebar;
@@ -22,29 +35,55 @@ public class Main {
     public static Logger logger = LoggerFactory.getLogger(Main.class);
     public static Instance instance;
     private static Registrar registrar;
+    private static MetricsServer metricsServer;
+    private static AdminServer adminServer;
 
     public static void main(String[] args) {
         logger.info("Starting Minestom application...");
+        LobbyConfig.load();
 
+        // The dispatcher thread count has to be set before the server process is created
+        RegionDispatch.configure();
         MinecraftServer server = MinecraftServer.init();
         MinecraftServer.getConnectionManager().setPlayerProvider(ServerPlayer::new);
-        MinecraftServer.setCompressionThreshold(0);
+        CompressionPolicy.configure();
         VelocityProxy.enable(System.getenv().getOrDefault("VELOCITY_SECRET", "balle123"));
 
         instance = new ServerInstance();
+        TickMetrics.start();
+        TickWatchdog.startFromEnv();
+        CosmeticBroadcast.start();
+        LoginAdmission.start();
         ServerSidebar.create();
         GameHandler.create();
+        PlaytimeAccrual.getInstance().start();
+        // Before the listeners below, so a join is recorded ahead of the backend calls it causes
+        WorkloadRecorder.startFromEnv();
 
         GlobalEventHandler globalEventHandler = MinecraftServer.getGlobalEventHandler();
         globalEventHandler.addListener(AsyncPlayerConfigurationEvent.class, event -> {
             final ServerPlayer player = (ServerPlayer) event.getPlayer();
             event.setSpawningInstance(instance);
             player.setGameMode(GameMode.SPECTATOR);
+
+            // Runs on the player's own configuration thread, so waiting here only holds up this player
+            if (!LoginAdmission.admit(player)) {
+                player.kick(Component.text("The lobby is busy right now. Please try again in a moment."));
+                return;
+            }
+            if (!LoginAdmission.holdUntil(player, player.loadPlayerData(), profileLoadTimeoutMillis())) {
+                player.kick(Component.text("Loading your player data took too long. Please try again."));
+                return;
+            }
+            if (player.isOnline() && player.getServerProfile() == null) {
+                // loadPlayerData kicks on a failed load already; this keeps a profile-less player from spawning
+                player.kick(Component.text("Failed to load your player data. Please try again."));
+            }
         });
 
         globalEventHandler.addListener(PlayerSpawnEvent.class, event -> {
             final ServerPlayer player = (ServerPlayer) event.getPlayer();
-            if (player.getServerProfile().isFirstJoin()) {
+            if (player.getServerProfile().firstJoin()) {
                 GameHandler.playTeamSelectAnimation(player, player.getServerTeam());
             }
             player.sendMessage(player.getServerTeam().name());
@@ -52,6 +91,7 @@ public class Main {
 
         globalEventHandler.addListener(PlayerDisconnectEvent.class, event -> {
             final ServerPlayer player = (ServerPlayer) event.getPlayer();
+            PlaytimeAccrual.getInstance().close(player.getUuid().toString());
         });
 
         try {
@@ -68,6 +108,7 @@ public class Main {
             // I will update Registrar.java accordingly below to reflect this.
             registrar = Registrar.createAndConfigure(config); // This line will change slightly
             registrar.start();
+            GameHandler.attachRedis(registrar.getRedis(), registrar.getMinestomServiceId());
             logger.info("Registrar started successfully for Minestom server: {}:{} (Label: {})",
                     registrar.getMinestomPodIp(), registrar.getMinestomPort(), registrar.getMinestomServerLabel());
         } catch (IllegalStateException e) {
@@ -82,12 +123,35 @@ public class Main {
         server.start("0.0.0.0", minestomListeningPort);
         logger.info("Minestom server listening on {}:{}", registrar.getMinestomPodIp(), minestomListeningPort);
 
+        metricsServer = MetricsServer.startFromEnv();
+        adminServer = AdminServer.startFromEnv();
+        JfrStats.startFromEnv();
+
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             logger.info("Shutdown hook triggered. Stopping Minestom server and Registrar...");
+            // Before the Registrar closes the Redis connections, so the team poller lease can be released
+            GameHandler.shutdown();
+            PlaytimeAccrual.getInstance().shutdown();
+            WorkloadRecorder.stop();
             if (registrar != null) {
                 registrar.stop();
             }
+            if (metricsServer != null) {
+                metricsServer.stop();
+            }
+            if (adminServer != null) {
+                adminServer.stop();
+            }
+            JfrStats.stop();
             logger.info("Application shutdown complete.");
         }));
     }
+
+    /**
+     * How long a joining player may wait for their profile (a profile GET, a possible POST and the two playtime
+     * requests): three request timeouts plus a second of slack, i.e. 25 s with the default 8 s request timeout.
+     */
+    private static long profileLoadTimeoutMillis() {
+        return 3 * LobbyConfig.HTTP_REQUEST_TIMEOUT_MILLIS.get() + 1000;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package nub.wi1helm.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * A local admin endpoint for inspecting and tuning {@link LobbyConfig} at runtime.
+ *
+ * - GET /config: Every setting with its current value, default and whether it is reloadable.
+ * - POST /config: Sets reloadable settings; the body is in properties format ({@code key=value} per line).
+ *   Either all values are applied or, if one is rejected, none.
+ * - POST /config/reload: Re-reads the config file and the environment.
+ *
+ * The endpoint has no authentication, so it only listens on the loopback interface by default
+ * (reach it with kubectl exec or port-forward).
+ *
+ * Environment variables:
+ * - ADMIN_PORT: Port to listen on (defaults to 9101, 0 disables the endpoint).
+ * - ADMIN_HOST: Address to bind to (defaults to 127.0.0.1).
+ */
+public final class AdminServer {
+
+    private static final String CONTENT_TYPE = "text/plain; charset=utf-8";
+
+    private final HttpServer httpServer;
+
+    private AdminServer(HttpServer httpServer) {
+        this.httpServer = httpServer;
+    }
+
+    /**
+     * Starts the admin endpoint as configured through the environment.
+     *
+     * @return The running server, or null if the endpoint is disabled or could not be bound.
+     */
+    public static AdminServer startFromEnv() {
+        int port;
+        try {
+            port = Integer.parseInt(System.getenv().getOrDefault("ADMIN_PORT", "9101").trim());
+        } catch (NumberFormatException e) {
+            logger.warn("AdminServer: Invalid ADMIN_PORT '{}'. Admin endpoint disabled.", System.getenv("ADMIN_PORT"));
+            return null;
+        }
+        if (port <= 0) {
+            logger.info("AdminServer: ADMIN_PORT is 0, admin endpoint disabled.");
+            return null;
+        }
+        String host = System.getenv().getOrDefault("ADMIN_HOST", "127.0.0.1");
+        try {
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+            httpServer.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "Admin-Http");
+                t.setDaemon(true);
+                return t;
+            }));
+            AdminServer server = new AdminServer(httpServer);
+            httpServer.createContext("/config", server::handle);
+            httpServer.start();
+            logger.info("AdminServer: Serving runtime configuration on {}:{}/config", host, port);
+            return server;
+        } catch (IOException e) {
+            logger.error("AdminServer: Failed to bind admin endpoint on {}:{}: {}", host, port, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    public void stop() {
+        httpServer.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if ("/config".equals(path) && "GET".equals(method)) {
+                respond(exchange, 200, renderSettings());
+            } else if ("/config".equals(path) && "POST".equals(method)) {
+                Properties body = new Properties();
+                body.load(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+                Map<String, String> values = new LinkedHashMap<>();
+                body.stringPropertyNames().forEach(key -> values.put(key, body.getProperty(key)));
+                try {
+                    respond(exchange, 200, renderLines(LobbyConfig.setAll(values)));
+                } catch (IllegalArgumentException e) {
+                    respond(exchange, 400, e.getMessage() + "\n");
+                }
+            } else if ("/config/reload".equals(path) && "POST".equals(method)) {
+                respond(exchange, 200, renderReload(LobbyConfig.reload()));
+            } else if ("/config".equals(path) || "/config/reload".equals(path)) {
+                exchange.sendResponseHeaders(405, -1);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        }
+    }
+
+    private static String renderSettings() {
+        StringBuilder out = new StringBuilder();
+        for (Setting setting : LobbyConfig.settings()) {
+            out.append("# ").append(setting.description())
+                    .append(" (default ").append(setting.defaultValue())
+                    .append(setting.isReloadable() ? ", reloadable)" : ", restart required)").append('\n');
+            out.append(setting.key()).append('=').append(setting.get()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String renderLines(List<String> lines) {
+        StringBuilder out = new StringBuilder();
+        for (String line : lines) {
+            out.append(line).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String renderReload(LobbyConfig.ReloadResult result) {
+        StringBuilder out = new StringBuilder();
+        appendSection(out, "applied", result.applied());
+        appendSection(out, "restart required", result.restartRequired());
+        appendSection(out, "rejected", result.rejected());
+        return out.toString();
+    }
+
+    private static void appendSection(StringBuilder out, String title, List<String> lines) {
+        out.append(title).append(": ").append(lines.size()).append('\n');
+        for (String line : lines) {
+            out.append("  ").append(line).append('\n');
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package nub.wi1helm.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * The lobby's tunable timings and sizes, loaded from a properties file and the environment.
+ *
+ * Every setting is looked up as an environment variable first, then in the file, then falls back to its default.
+ * Settings marked reloadable can be changed while the server runs, either by editing the file and calling
+ * {@link #reload()} or by setting values through {@link #setAll(Map)} (see {@link AdminServer}).
+ * A reload re-reads the file and the environment, so it replaces values that were set at runtime. The others (pool
+ * sizes, the loaded world, the HTTP client) are only read once at startup; a reload reports them as needing a restart.
+ *
+ * Environment variables:
+ * - LOBBY_CONFIG_PATH: Properties file to read (defaults to resources/lobby.properties, a missing file is fine).
+ */
+public final class LobbyConfig {
+
+    private static final Map<String, Setting> SETTINGS = new LinkedHashMap<>();
+
+    // Reloadable
+    public static final Setting COUNTER_MERGE_INTERVAL_MILLIS = reloadable("game.counter-merge-interval-millis", 1000, 100, 60_000,
+            "How often local playtime is flushed into the shared team counter and all pods' shards are merged");
+    public static final Setting RECONCILE_INTERVAL_MILLIS = reloadable("game.reconcile-interval-millis", 30_000, 1000, 3_600_000,
+            "How often the merged team totals are re-anchored on game-service");
+    public static final Setting PROXY_DISCOVERY_INTERVAL_SECONDS = reloadable("registrar.proxy-discovery-interval-seconds", 10, 1, 600,
+            "How often Gate proxies are discovered in Redis");
+    public static final Setting REGISTRATION_CHECK_INTERVAL_SECONDS = reloadable("registrar.registration-check-interval-seconds", 5, 1, 600,
+            "How often the registration with each Gate proxy is checked");
+    public static final Setting GRPC_DEADLINE_SECONDS = reloadable("registrar.grpc-deadline-seconds", 3, 1, 60,
+            "Upper bound for a single gRPC call to a Gate proxy");
+    public static final Setting HTTP_REQUEST_TIMEOUT_MILLIS = reloadable("http.request-timeout-millis", 8000, 100, 120_000,
+            "Timeout of a single request to player-data-service or game-service");
+    public static final Setting LOGIN_ADMISSION_RATE = reloadable("login-admission.rate", 10, 1, 10_000,
+            "Logins admitted per second");
+    public static final Setting LOGIN_ADMISSION_BURST = reloadable("login-admission.burst", 20, 1, 100_000,
+            "Logins that may be admitted at once after a quiet period");
+    public static final Setting LOGIN_ADMISSION_MAX_WAIT_SECONDS = reloadable("login-admission.max-wait-seconds", 300, 1, 3600,
+            "How long a player may wait for login admission before being turned away");
+    public static final Setting PLAYTIME_FLUSH_INTERVAL_MILLIS = reloadable("playtime.flush-interval-millis", 5000, 100, 600_000,
+            "How often locally accrued playtime is written to game-service");
+    public static final Setting SIDEBAR_UPDATE_TICKS = reloadable("sidebar.update-ticks", 10, 1, 1200,
+            "Ticks between two updates of the shared sidebar lines");
+    public static final Setting TICK_METRICS_LOG_SECONDS = reloadable("tick-metrics.log-seconds", 60, 1, 3600,
+            "Length of a tick metrics window, after which its summary is logged and published");
+
+    // Startup only
+    public static final Setting HTTP_CONNECT_TIMEOUT_MILLIS = startupOnly("http.connect-timeout-millis", 5000, 100, 60_000,
+            "Connect timeout of the backend HTTP clients");
+    public static final Setting REDIS_POOL_MAX_TOTAL = startupOnly("redis.pool-max-total", 128, 1, 4096,
+            "Maximum number of connections per Redis node");
+    public static final Setting REDIS_POOL_MAX_IDLE = startupOnly("redis.pool-max-idle", 128, 0, 4096,
+            "Maximum number of idle connections per Redis node");
+    public static final Setting REDIS_POOL_MIN_IDLE = startupOnly("redis.pool-min-idle", 16, 0, 4096,
+            "Number of idle connections kept open per Redis node");
+    public static final Setting REDIS_TIMEOUT_MILLIS = startupOnly("redis.timeout-millis", 2000, 100, 60_000,
+            "Connect and socket timeout of the Redis connections");
+    public static final Setting REDIS_MAX_ATTEMPTS = startupOnly("redis.max-attempts", 5, 1, 20,
+            "Attempts per Redis command across redirects and reconnects");
+    public static final Setting CHUNK_RADIUS_X = startupOnly("world.chunk-radius-x", 4, 0, 32,
+            "Chunks loaded on each side of the origin along x");
+    public static final Setting CHUNK_RADIUS_Z = startupOnly("world.chunk-radius-z", 2, 0, 32,
+            "Chunks loaded on each side of the origin along z");
+    public static final Setting DISPATCHER_THREADS = startupOnly("dispatcher.threads", Runtime.getRuntime().availableProcessors(), 1, 256,
+            "Number of tick threads (defaults to the number of available processors)");
+    public static final Setting DISPATCHER_REGION_SIZE = startupOnly("dispatcher.region-size", 2, 1, 32,
+            "Edge length in chunks of the regions the chunks are grouped into per tick thread");
+    public static final Setting TEAM_POLLER_LEASE_MILLIS = startupOnly("team-poller.lease-millis", 6000, 1000, 600_000,
+            "Lease period of the pod elected to poll the team totals");
+    public static final Setting TICK_WATCHDOG_THRESHOLD_MS = startupOnly("tick-watchdog.threshold-ms", 75, 0, 60_000,
+            "Tick duration that counts as an overrun (0 disables the watchdog)");
+    public static final Setting TICK_WATCHDOG_REPORT_INTERVAL_SECONDS = startupOnly("tick-watchdog.report-interval-seconds", 30, 1, 3600,
+            "Minimum time between two tick watchdog reports");
+
+    public record ReloadResult(List<String> applied, List<String> restartRequired, List<String> rejected) {}
+
+    private static final Path PATH = Path.of(System.getenv().getOrDefault("LOBBY_CONFIG_PATH", "resources/lobby.properties"));
+
+    private LobbyConfig() {}
+
+    private static Setting reloadable(String key, long defaultValue, long min, long max, String description) {
+        return register(new Setting(key, defaultValue, min, max, true, description));
+    }
+
+    private static Setting startupOnly(String key, long defaultValue, long min, long max, String description) {
+        return register(new Setting(key, defaultValue, min, max, false, description));
+    }
+
+    private static Setting register(Setting setting) {
+        SETTINGS.put(setting.key(), setting);
+        return setting;
+    }
+
+    /**
+     * Loads all settings. Must be called before anything reads them, i.e. first thing in main.
+     * Invalid values are logged and replaced by the default, so a typo never keeps the server from starting.
+     */
+    public static synchronized void load() {
+        Properties file;
+        try {
+            file = readFile();
+        } catch (IOException e) {
+            logger.error("LobbyConfig: Failed to read {}: {}. Using environment and defaults only.", PATH, e.getMessage());
+            file = new Properties();
+        }
+        for (Setting setting : SETTINGS.values()) {
+            String raw = resolve(setting, file);
+            if (raw == null) continue;
+            try {
+                setting.apply(setting.parse(raw));
+            } catch (IllegalArgumentException e) {
+                logger.warn("LobbyConfig: Invalid value for {}: {}. Using default: {}.", setting.key(), e.getMessage(), setting.defaultValue());
+            }
+        }
+        logger.info("LobbyConfig: Loaded {} settings from {} and the environment.", SETTINGS.size(), PATH);
+    }
+
+    /**
+     * Re-reads the file and the environment and applies the changed reloadable settings.
+     * If a value is invalid, it is rejected and the setting keeps its current value.
+     *
+     * @return What was applied, what only takes effect after a restart and what was rejected.
+     */
+    public static synchronized ReloadResult reload() {
+        List<String> applied = new ArrayList<>();
+        List<String> restartRequired = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        Properties file;
+        try {
+            file = readFile();
+        } catch (IOException e) {
+            rejected.add(PATH + ": " + e.getMessage());
+            logger.error("LobbyConfig: Reload failed, could not read {}: {}", PATH, e.getMessage());
+            return new ReloadResult(applied, restartRequired, rejected);
+        }
+
+        for (Setting setting : SETTINGS.values()) {
+            String raw = resolve(setting, file);
+            long newValue;
+            try {
+                newValue = raw == null ? setting.defaultValue() : setting.parse(raw);
+            } catch (IllegalArgumentException e) {
+                rejected.add(setting.key() + ": " + e.getMessage());
+                continue;
+            }
+            long oldValue = setting.get();
+            if (newValue == oldValue) continue;
+            if (setting.isReloadable()) {
+                setting.apply(newValue);
+                applied.add(setting.key() + ": " + oldValue + " -> " + newValue);
+            } else {
+                restartRequired.add(setting.key() + ": " + oldValue + " -> " + newValue);
+            }
+        }
+        logger.info("LobbyConfig: Reloaded {}. Applied: {}. Restart required: {}. Rejected: {}.",
+                PATH, applied, restartRequired, rejected);
+        return new ReloadResult(applied, restartRequired, rejected);
+    }
+
+    /**
+     * Changes reloadable settings at runtime. The changes last until the next reload or restart.
+     * All values are validated first; if one is rejected, none are applied.
+     *
+     * @param values The new values by property key.
+     * @return One line per setting, with its previous and new value.
+     * @throws IllegalArgumentException If a key is unknown, a setting is not reloadable or a value is invalid.
+     */
+    public static synchronized List<String> setAll(Map<String, String> values) {
+        Map<Setting, Long> parsed = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            Setting setting = SETTINGS.get(entry.getKey());
+            if (setting == null) {
+                throw new IllegalArgumentException("Unknown setting " + entry.getKey());
+            }
+            if (!setting.isReloadable()) {
+                throw new IllegalArgumentException(entry.getKey() + " is only read at startup");
+            }
+            try {
+                parsed.put(setting, setting.parse(entry.getValue()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(entry.getKey() + ": " + e.getMessage());
+            }
+        }
+
+        List<String> changes = new ArrayList<>();
+        parsed.forEach((setting, newValue) -> {
+            long oldValue = setting.get();
+            setting.apply(newValue);
+            changes.add(setting.key() + ": " + oldValue + " -> " + newValue);
+        });
+        logger.info("LobbyConfig: Set at runtime: {}.", changes);
+        return changes;
+    }
+
+    public static Collection<Setting> settings() {
+        return Collections.unmodifiableCollection(SETTINGS.values());
+    }
+
+    private static String resolve(Setting setting, Properties file) {
+        String env = System.getenv(setting.envName());
+        if (env != null && !env.isEmpty()) return env;
+        return file.getProperty(setting.key());
+    }
+
+    private static Properties readFile() throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(PATH, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            logger.debug("LobbyConfig: No config file at {}.", PATH);
+        }
+        return properties;
+    }
+}
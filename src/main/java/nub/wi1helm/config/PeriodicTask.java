@@ -0,0 +1,62 @@
+package nub.wi1helm.config;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed-rate task whose period is a reloadable {@link Setting}. When the setting changes, the task is rescheduled
+ * right away: the next run happens at the earlier of its old due time and one new period from now.
+ */
+public final class PeriodicTask {
+
+    private final ScheduledExecutorService scheduler;
+    private final Runnable task;
+    private ScheduledFuture<?> future;
+
+    private PeriodicTask(ScheduledExecutorService scheduler, Runnable task) {
+        this.scheduler = scheduler;
+        this.task = task;
+    }
+
+    /**
+     * Schedules the task at the rate given by the setting.
+     *
+     * @param scheduler      The executor to run the task on.
+     * @param task           The task.
+     * @param initialDelay   Delay before the first run, in the setting's unit.
+     * @param period         The setting holding the period (a {@code -millis} or {@code -seconds} setting).
+     * @return The scheduled task.
+     */
+    public static PeriodicTask schedule(ScheduledExecutorService scheduler, Runnable task, long initialDelay, Setting period) {
+        PeriodicTask periodicTask = new PeriodicTask(scheduler, task);
+        long initialDelayMillis = period.key().endsWith("-seconds") ? TimeUnit.SECONDS.toMillis(initialDelay) : initialDelay;
+        synchronized (periodicTask) {
+            periodicTask.future = scheduler.scheduleAtFixedRate(task, initialDelayMillis, period.duration().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        period.onChange(value -> periodicTask.reschedule(period.duration().toMillis()));
+        return periodicTask;
+    }
+
+    private synchronized void reschedule(long periodMillis) {
+        if (future == null || future.isCancelled()) return;
+        long remaining = Math.max(0, future.getDelay(TimeUnit.MILLISECONDS));
+        future.cancel(false);
+        try {
+            future = scheduler.scheduleAtFixedRate(task, Math.min(remaining, periodMillis), periodMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The scheduler is shutting down; nothing left to reschedule
+            future = null;
+        }
+    }
+
+    /**
+     * Stops the task without interrupting a run in progress.
+     */
+    public synchronized void cancel() {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package nub.wi1helm.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+/**
+ * A single numeric configuration value, read from {@link LobbyConfig}'s sources under a property key and the
+ * environment variable derived from it ({@code http.request-timeout-millis} becomes {@code HTTP_REQUEST_TIMEOUT_MILLIS}).
+ *
+ * Reloadable settings may change while the server runs; code that caches one (such as a schedule period) registers a
+ * listener through {@link #onChange(LongConsumer)}. All other settings keep the value they had at startup.
+ */
+public final class Setting {
+
+    private final String key;
+    private final String envName;
+    private final long defaultValue;
+    private final long min;
+    private final long max;
+    private final boolean reloadable;
+    private final String description;
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile long value;
+
+    Setting(String key, long defaultValue, long min, long max, boolean reloadable, String description) {
+        this.key = key;
+        this.envName = key.toUpperCase().replace('.', '_').replace('-', '_');
+        this.defaultValue = defaultValue;
+        this.min = min;
+        this.max = max;
+        this.reloadable = reloadable;
+        this.description = description;
+        this.value = defaultValue;
+    }
+
+    public long get() {
+        return value;
+    }
+
+    public int getInt() {
+        return (int) value;
+    }
+
+    /**
+     * @return The value as a duration, for settings whose key ends in {@code -millis} or {@code -seconds}.
+     */
+    public Duration duration() {
+        return key.endsWith("-seconds") ? Duration.ofSeconds(value) : Duration.ofMillis(value);
+    }
+
+    /**
+     * Registers a listener that is called with the new value whenever this setting changes at runtime.
+     * Listeners run on the thread applying the change, so they should only hand the value off.
+     */
+    public void onChange(LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public String envName() {
+        return envName;
+    }
+
+    public long defaultValue() {
+        return defaultValue;
+    }
+
+    public boolean isReloadable() {
+        return reloadable;
+    }
+
+    public String description() {
+        return description;
+    }
+
+    /**
+     * Parses and range-checks a raw value for this setting.
+     *
+     * @param raw The value as written in the file, environment or admin request.
+     * @return The parsed value.
+     * @throws IllegalArgumentException If the value is not a number or outside the allowed range.
+     */
+    long parse(String raw) {
+        long parsed;
+        try {
+            parsed = Long.parseLong(raw.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + raw + "' is not a number");
+        }
+        if (parsed < min || parsed > max) {
+            throw new IllegalArgumentException(parsed + " is outside [" + min + ", " + max + "]");
+        }
+        return parsed;
+    }
+
+    /**
+     * Sets the value and notifies the listeners if it changed.
+     *
+     * @return True if the value changed.
+     */
+    boolean apply(long newValue) {
+        if (newValue == value) return false;
+        value = newValue;
+        for (LongConsumer listener : listeners) {
+            listener.accept(newValue);
+        }
+        return true;
+    }
+}
@@ -1,14 +1,18 @@
 package nub.wi1helm.game;
 
-import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.TextDecoration;
 import net.minestom.server.coordinate.Vec;
 import net.minestom.server.entity.Entity;
 import net.minestom.server.entity.EntityType;
 import net.minestom.server.entity.metadata.display.TextDisplayMeta;
+import nub.wi1helm.metrics.TickMetrics;
+import nub.wi1helm.metrics.TickPhase;
+import nub.wi1helm.server.CosmeticBroadcast;
+import nub.wi1helm.server.PlaytimeFormat;
 import nub.wi1helm.server.ServerTeam;
 
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 // This class will need access to the latestTeamPlaytimes map from GameHandler.
 // We'll make latestTeamPlaytimes public static in GameHandler for this specific cross-class access.
@@ -18,6 +22,9 @@ import java.util.concurrent.ConcurrentHashMap;
 public class CustomPlaytimeTextDisplay extends Entity {
 
     private final ServerTeam team;
+    private final Component teamName;
+    // The playtime text currently shown; the metadata is only touched when this changes
+    private String displayedTime;
 
     // We'll assume GameHandler exposes this map for access
     // This isn't ideal for strict encapsulation, but practical for static GameHandler.
@@ -27,6 +34,7 @@ public class CustomPlaytimeTextDisplay extends Entity {
     public CustomPlaytimeTextDisplay(ServerTeam team) {
         super(EntityType.TEXT_DISPLAY);
         this.team = team;
+        this.teamName = Component.text(team.displayName(), team.color(), TextDecoration.BOLD);
         // Apply static metadata common to all these displays
         this.editEntityMeta(TextDisplayMeta.class, textDisplayMeta -> {
             textDisplayMeta.setHasNoGravity(true);
@@ -34,26 +42,35 @@ public class CustomPlaytimeTextDisplay extends Entity {
             textDisplayMeta.setViewRange(200);
             textDisplayMeta.setBackgroundColor(16711680); // Red color for background, adjust as needed
         });
+        // Text updates are sent through CosmeticBroadcast rather than the per-change metadata packets.
+        // New viewers still get the full, current metadata with the spawn packets.
+        getEntityMeta().setNotifyAboutChanges(false);
     }
 
     @Override
     public void tick(long time) {
+        final long tickStart = TickMetrics.begin();
         super.tick(time); // Call super tick to maintain default entity behavior
 
         // Read from the local cache, which is updated periodically by GameHandler's scheduler
         double totalPlaytime = latestTeamPlaytimes.getOrDefault(team, 0.0);
 
-        this.editEntityMeta(TextDisplayMeta.class, textDisplayMeta -> {
-            // Convert ticks to seconds, then format
-            long playtimeSeconds = (long) (totalPlaytime / 20.0);
-            String formattedTime = String.format("%08d", playtimeSeconds);
-            String displayTime = formattedTime.replaceAll("(?<=\\d)(?=(\\d{3})+$)", ".");
-
-            textDisplayMeta.setText(MiniMessage.miniMessage().deserialize(
-                    "<" + team.color() + "><bold>" +
-                            team.displayName() + "</bold><br>" + // Display team name bold
-                            displayTime + "/10.000.000</" + team.color() + ">" // Display playtime, end color
-            ));
-        });
+        String displayTime = PlaytimeFormat.format(totalPlaytime);
+        if (!displayTime.equals(displayedTime)) {
+            displayedTime = displayTime;
+
+            ((TextDisplayMeta) getEntityMeta()).setText(billboardText(team, teamName, displayTime));
+            CosmeticBroadcast.submit(this, getViewers(), getMetadataPacket());
+        }
+        TickMetrics.end(TickPhase.BILLBOARD, tickStart);
+    }
+
+    static Component billboardText(ServerTeam team, Component teamName, String displayTime) {
+        return Component.text()
+                .color(team.color())
+                .append(teamName) // Display team name bold
+                .append(Component.newline())
+                .append(Component.text(displayTime + "/10.000.000")) // Display playtime
+                .build();
     }
-}
\ No newline at end of file
+}
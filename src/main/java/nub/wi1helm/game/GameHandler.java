@@ -1,26 +1,19 @@
 package nub.wi1helm.game;
 
-import net.kyori.adventure.key.Key;
-import net.kyori.adventure.sound.Sound;
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.title.Title;
 import net.minestom.server.coordinate.Pos;
 import net.minestom.server.entity.Entity;
-import net.minestom.server.MinecraftServer;
-import net.minestom.server.timer.TaskSchedule;
 import nub.wi1helm.Main;
+import nub.wi1helm.config.LobbyConfig;
+import nub.wi1helm.config.PeriodicTask;
 import nub.wi1helm.player.GameService;
+import nub.wi1helm.redis.RedisClient;
 import nub.wi1helm.server.ServerPlayer;
 import nub.wi1helm.server.ServerTeam;
 
-import java.time.Duration;
-import java.util.ArrayDeque;
 import java.util.EnumMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -36,12 +29,43 @@ public class GameHandler {
     private static final GameService gameServiceClient = GameService.getInstance();
 
     private static final ScheduledExecutorService dataFetchScheduler = Executors.newSingleThreadScheduledExecutor();
-    private static final long DATA_FETCH_INTERVAL_SECONDS = 100;
+    // Where game-service's team totals are applied; the thread completing them when not scheduled (see createUnscheduled)
+    private static volatile Executor teamTotalExecutor = dataFetchScheduler;
+
+    private static final TeamPlaytimeCounter teamPlaytimeCounter = new TeamPlaytimeCounter();
+    // Decides which pod polls game-service; null until Redis is attached, in which case this pod polls for itself
+    private static volatile TeamPlaytimeElection election;
 
     /**
      * Initializes game-related cosmetic elements, such as the team playtime billboards.
      */
     public static void create() {
+        createDisplays();
+
+        // Team totals are aggregated locally and merged across pods; game-service is only asked periodically
+        // Both periods are reloadable; PeriodicTask reschedules when they change
+        PeriodicTask.schedule(dataFetchScheduler, GameHandler::mergeTeamPlaytimes,
+                LobbyConfig.COUNTER_MERGE_INTERVAL_MILLIS.get(), LobbyConfig.COUNTER_MERGE_INTERVAL_MILLIS);
+        PeriodicTask.schedule(dataFetchScheduler, GameHandler::reconcileTeamPlaytimes,
+                0, LobbyConfig.RECONCILE_INTERVAL_MILLIS);
+
+        logger.info("GameHandler: Initialized team playtime billboards. Merging team counters every {} ms, reconciling with game-service every {} ms.",
+                LobbyConfig.COUNTER_MERGE_INTERVAL_MILLIS.get(), LobbyConfig.RECONCILE_INTERVAL_MILLIS.get());
+    }
+
+    /**
+     * Initializes the billboards like {@link #create()}, but leaves merging and reconciling to the caller, who runs
+     * {@link #mergeTeamPlaytimes()} and {@link #reconcileTeamPlaytimes()} at the configured intervals. Team totals
+     * from game-service are applied on the thread that completes them. Used by the workload replay, which runs both
+     * on its virtual clock.
+     */
+    public static void createUnscheduled() {
+        teamTotalExecutor = Runnable::run;
+        createDisplays();
+        logger.info("GameHandler: Initialized team playtime billboards. Merging and reconciling are left to the caller.");
+    }
+
+    private static void createDisplays() {
         for (ServerTeam team : ServerTeam.values()) {
             latestTeamPlaytimes.put(team, 0.0); // Initialize to 0.0
         }
@@ -56,11 +80,29 @@ public class GameHandler {
         swordersDisplay.setInstance(Main.instance, new Pos(40.0, -32, 8.0, 90, 0));
         teamPlaytimeDisplays.put(ServerTeam.PURPLE_SWORDERS, swordersDisplay);
 
-        // Schedule periodic updates for the local data cache
-        dataFetchScheduler.scheduleAtFixedRate(GameHandler::fetchAndUpdateLocalPlaytimeCache,
-                0, DATA_FETCH_INTERVAL_SECONDS, TimeUnit.MILLISECONDS);
+        TeamSelectAnimation.start();
+    }
+
+    /**
+     * Lets the team counter merge its shards with the other pods through Redis.
+     *
+     * @param redis The Redis client (shared with the Registrar).
+     * @param podId This pod's unique service id.
+     */
+    public static void attachRedis(RedisClient redis, String podId) {
+        teamPlaytimeCounter.attachRedis(redis, podId);
+        TeamPlaytimeElection newElection = new TeamPlaytimeElection(redis.cluster(), podId,
+                total -> dataFetchScheduler.execute(() -> applyTeamTotal(total)));
+        dataFetchScheduler.scheduleAtFixedRate(newElection::heartbeat, 0, newElection.heartbeatMillis(), TimeUnit.MILLISECONDS);
+        election = newElection;
+        logger.info("GameHandler: Team playtime counter merging through Redis as shard {}.", podId);
+    }
 
-        logger.info("GameHandler: Initialized team playtime billboards and scheduled data fetch every {} seconds.", DATA_FETCH_INTERVAL_SECONDS);
+    /**
+     * Records playtime earned by a player on this pod towards their team's total.
+     */
+    public static void recordTeamPlaytime(ServerTeam team, double ticks) {
+        teamPlaytimeCounter.record(team, ticks);
     }
 
     /**
@@ -72,16 +114,51 @@ public class GameHandler {
     }
 
     /**
-     * Fetches the latest team playtime data from the Game Service and updates the local cache.
+     * Flushes this pod's playtime into the shared counter, merges all shards and refreshes the local cache.
      * This method runs periodically.
      */
-    private static void fetchAndUpdateLocalPlaytimeCache() {
+    public static void mergeTeamPlaytimes() {
+        try {
+            boolean wasMerged = allTeamsMerged();
+            teamPlaytimeCounter.flushAndMerge();
+            updateLocalPlaytimeCache();
+            if (!wasMerged && allTeamsMerged()) {
+                // Reconciling was held back until now (see reconcileTeamPlaytimes), so don't wait a full interval
+                reconcileTeamPlaytimes();
+            }
+        } catch (Exception e) {
+            logger.error("GameHandler: Failed to merge team playtime counters: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fetches the authoritative team totals from the Game Service and re-anchors the counter on them.
+     * This method runs periodically, but only the elected pod actually polls; it fans the totals out to the others.
+     */
+    public static void reconcileTeamPlaytimes() {
+        TeamPlaytimeElection currentElection = election;
+        if (currentElection != null && !currentElection.isLeader()) return;
+        // Until the first merge through Redis, mergedTotal misses every other pod's shards; an anchor read from it
+        // would count all of them as growth, here and on every pod we publish to
+        if (!allTeamsMerged()) return;
+        if (currentElection != null) {
+            teamPlaytimeCounter.compactShards();
+        }
+
         for (ServerTeam team : ServerTeam.values()) {
+            double mergedAtRead = teamPlaytimeCounter.mergedTotal(team);
             gameServiceClient.getTeamPlaytime(team.name())
-                    .thenAccept(totalPlaytime -> {
-                        latestTeamPlaytimes.put(team, totalPlaytime);
-                        // logger.info("GameHandler: Updated local cache for team {} to {} ticks.", team.name(), totalPlaytime); // Uncomment for debugging
-                    })
+                    .thenAcceptAsync(totalPlaytime -> {
+                        // GameService reports failures as 0.0; don't let them wipe a known total
+                        if (totalPlaytime <= 0.0 && teamPlaytimeCounter.estimate(team) > 0.0) return;
+                        if (currentElection != null) {
+                            // Applied here as well once our own message comes back through the channel
+                            currentElection.publish(team, totalPlaytime, mergedAtRead);
+                        } else {
+                            teamPlaytimeCounter.reconcile(team, totalPlaytime, mergedAtRead);
+                            updateLocalPlaytimeCache();
+                        }
+                    }, teamTotalExecutor)
                     .exceptionally(ex -> {
                         logger.error("GameHandler: Failed to fetch playtime for team {} for local cache: {}", team.name(), ex.getMessage(), ex);
                         // Keep the old value in cache if fetch fails
@@ -90,6 +167,31 @@ public class GameHandler {
         }
     }
 
+    private static boolean allTeamsMerged() {
+        for (ServerTeam team : ServerTeam.values()) {
+            if (!teamPlaytimeCounter.isMerged(team)) return false;
+        }
+        return true;
+    }
+
+    private static void applyTeamTotal(TeamPlaytimeElection.TeamTotal total) {
+        ServerTeam team;
+        try {
+            team = ServerTeam.valueOf(total.team());
+        } catch (IllegalArgumentException e) {
+            logger.warn("GameHandler: Received total for unknown team {}.", total.team());
+            return;
+        }
+        teamPlaytimeCounter.reconcile(team, total.serviceTotal(), total.mergedTotal());
+        updateLocalPlaytimeCache();
+    }
+
+    private static void updateLocalPlaytimeCache() {
+        for (ServerTeam team : ServerTeam.values()) {
+            latestTeamPlaytimes.put(team, teamPlaytimeCounter.estimate(team));
+        }
+    }
+
     /**
      * Plays the team selection animation for a player.
      *
@@ -97,93 +199,25 @@ public class GameHandler {
      * @param selectedTeam The team that the player will be assigned to after the animation.
      */
     public static void playTeamSelectAnimation(ServerPlayer player, ServerTeam selectedTeam) {
-        final Queue<ServerTeam> choices = new ArrayDeque<>(List.of(ServerTeam.AQUA_CREEPERS, ServerTeam.PURPLE_SWORDERS));
-
-        double currentDelaySeconds = 1.0;
-        final double decrementSeconds = 0.05;
-        final double minimumDelaySeconds = 0.05;
-        final int minimumIterationsAtFastSpeed = 8;
-        int totalTicks = 0;
-
-        ServerTeam firstTeam = choices.poll();
-        player.showTitle(Title.title(
-                Component.text("Your Team Is.."),
-                Component.empty()
-        ));
-        player.playSound(Sound.sound().source(Sound.Source.MASTER).type(Key.key("block.note_block.bell")).build());
-        choices.offer(firstTeam);
-
-        int fastIterationsCount = 0;
-        while (currentDelaySeconds >= minimumDelaySeconds || fastIterationsCount < minimumIterationsAtFastSpeed) {
-            int delayTicks = (int)(Math.max(currentDelaySeconds, minimumDelaySeconds) * 20);
-            totalTicks += delayTicks;
-
-            if (currentDelaySeconds <= minimumDelaySeconds) {
-                fastIterationsCount++;
-            }
-
-            ServerTeam displayTeam = choices.poll();
-            final ServerTeam teamToShow = displayTeam;
-
-            MinecraftServer.getSchedulerManager().scheduleTask(() -> {
-                player.showTitle(Title.title(
-                        Component.text(teamToShow.displayName()).color(teamToShow.color()),
-                        Component.empty()
-                ));
-                player.playSound(Sound.sound().source(Sound.Source.MASTER).type(Key.key("block.note_block.bell")).build());
-                return null;
-            }, TaskSchedule.tick(totalTicks));
-
-            choices.offer(displayTeam);
-
-            if (currentDelaySeconds > minimumDelaySeconds) {
-                currentDelaySeconds -= decrementSeconds;
-            }
-        }
-
-        final int finalDelay = totalTicks + 10;
-        MinecraftServer.getSchedulerManager().scheduleTask(() -> {
-            player.showTitle(Title.title(
-                    Component.text(selectedTeam.displayName()).color(selectedTeam.color()),
-                    Component.empty()
-            ));
-            return null;
-        }, TaskSchedule.tick(finalDelay));
+        TeamSelectAnimation.play(player, selectedTeam);
     }
 
     /**
-     * Calculates the estimated total duration of the team selection animation in milliseconds.
-     * This is an approximation used by ServerTeamHandler to schedule the actual team assignment.
+     * Returns the total duration of the team selection animation in milliseconds.
+     * Used by ServerTeamHandler to schedule the actual team assignment.
      */
     public static long getAnimationDurationMillis() {
-        double currentDelaySeconds = 1.0;
-        final double decrementSeconds = 0.05;
-        final double minimumDelaySeconds = 0.05;
-        final int minimumIterationsAtFastSpeed = 8;
-        double totalDurationSeconds = 0;
-
-        int fastIterationsCount = 0;
-        while (currentDelaySeconds >= minimumDelaySeconds || fastIterationsCount < minimumIterationsAtFastSpeed) {
-            double delay = Math.max(currentDelaySeconds, minimumDelaySeconds);
-            totalDurationSeconds += delay;
-
-            if (currentDelaySeconds <= minimumDelaySeconds) {
-                fastIterationsCount++;
-            }
-
-            if (currentDelaySeconds > minimumDelaySeconds) {
-                currentDelaySeconds -= decrementSeconds;
-            }
-        }
-        totalDurationSeconds += (10.0 / 20.0); // 10 ticks buffer
-
-        return (long) (totalDurationSeconds * 1000);
+        return TeamSelectAnimation.durationMillis();
     }
 
     /**
      * Shuts down the internal scheduler used for periodic tasks.
      */
     public static void shutdown() {
+        TeamPlaytimeElection currentElection = election;
+        if (currentElection != null) {
+            currentElection.shutdown();
+        }
         dataFetchScheduler.shutdown();
         try {
             if (!dataFetchScheduler.awaitTermination(5, TimeUnit.SECONDS)) {
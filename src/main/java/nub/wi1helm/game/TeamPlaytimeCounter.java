@@ -0,0 +1,252 @@
+package nub.wi1helm.game;
+
+import nub.wi1helm.metrics.Metrics;
+import nub.wi1helm.redis.RedisClient;
+import nub.wi1helm.server.ServerTeam;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Team playtime totals kept as a grow-only counter (G-Counter) CRDT shared by all lobby pods.
+ *
+ * Every pod accumulates the playtime its own players earn and adds it to its own shard: one field per pod in a Redis
+ * hash per team ({@code lobby:team-playtime:<TEAM>}). Shards only ever grow, so the merged value is the sum of all
+ * shards, where the own shard is the maximum of what Redis returned and what this pod knows it has written.
+ *
+ * The displayed total is the last authoritative value from game-service plus whatever the counter grew since then.
+ * Without Redis (e.g. before the Registrar is up) only the local shard contributes; it is written to Redis with the
+ * first flush. Until a team has been merged through Redis once, its anchor is only local, so the first merge re-anchors
+ * it instead of counting all historical shards as growth.
+ *
+ * Shard ids are per process, so every pod start adds a field. Every merge also records when each shard was last
+ * flushed ({@code lobby:team-playtime:seen}); the elected poller folds shards that haven't been flushed for
+ * {@link #SHARD_EXPIRY_MILLIS} into a {@code _base} field. The hashes therefore hold one field per pod that ran in the
+ * last {@link #SHARD_EXPIRY_MILLIS}, plus the base.
+ */
+public class TeamPlaytimeCounter {
+
+    private static final String KEY_PREFIX = "lobby:team-playtime:";
+    private static final String SEEN_KEY = "lobby:team-playtime:seen";
+    private static final String BASE_FIELD = "_base";
+    static final long SHARD_EXPIRY_MILLIS = 10 * 60 * 1000;
+    // Moves a shard's value into the base field and removes the shard, atomically per team hash
+    private static final String FOLD_SCRIPT =
+            "local v = redis.call('HGET', KEYS[1], ARGV[1]) " +
+            "if v then redis.call('HINCRBYFLOAT', KEYS[1], ARGV[2], v) redis.call('HDEL', KEYS[1], ARGV[1]) return 1 end " +
+            "return 0";
+    private static final ServerTeam[] TEAMS = ServerTeam.values();
+
+    private final DoubleAdder[] unflushed = new DoubleAdder[TEAMS.length];
+    // Only touched by the flush thread
+    private final double[] ownShard = new double[TEAMS.length];
+    private final double[] mergedTotal = new double[TEAMS.length];
+    private final double[] serviceTotal = new double[TEAMS.length];
+    private final double[] mergedAtReconcile = new double[TEAMS.length];
+    private final boolean[] mergedThroughRedis = new boolean[TEAMS.length];
+
+    private volatile RedisClient redis;
+    private volatile String shardId;
+
+    public TeamPlaytimeCounter() {
+        for (int i = 0; i < TEAMS.length; i++) {
+            unflushed[i] = new DoubleAdder();
+        }
+    }
+
+    /**
+     * Enables merging through Redis. Until this is called the counter only tracks this pod's own shard.
+     *
+     * @param redis   The cluster to store shards in.
+     * @param shardId A unique, stable-for-the-process id of this pod (used as the shard field).
+     */
+    public void attachRedis(RedisClient redis, String shardId) {
+        this.shardId = shardId;
+        this.redis = redis;
+    }
+
+    /**
+     * Adds playtime earned by one of this pod's players. Cheap enough to call from every player tick.
+     */
+    public void record(ServerTeam team, double ticks) {
+        if (team == null || ticks <= 0) return;
+        unflushed[team.ordinal()].add(ticks);
+    }
+
+    /**
+     * Pushes unflushed local playtime into this pod's shards and merges all shards.
+     * The increments and reads of all teams go out as one pipelined batch.
+     * Runs on a single background thread.
+     */
+    public void flushAndMerge() {
+        RedisClient client = redis;
+        double[] deltas = new double[TEAMS.length];
+        for (int i = 0; i < TEAMS.length; i++) {
+            deltas[i] = unflushed[i].sumThenReset();
+        }
+        if (client == null) {
+            for (int i = 0; i < TEAMS.length; i++) {
+                ownShard[i] += deltas[i];
+                mergedTotal[i] = ownShard[i];
+            }
+            return;
+        }
+        for (int i = 0; i < TEAMS.length; i++) {
+            if (!mergedThroughRedis[i]) {
+                // Playtime counted before Redis was attached has never been written; flush it now
+                deltas[i] += ownShard[i];
+                ownShard[i] = 0;
+            }
+        }
+
+        List<Response<Double>> written = new ArrayList<>(TEAMS.length);
+        List<Response<Map<String, String>>> shards;
+        try {
+            shards = client.pipelined("team_counter_merge", pipeline -> {
+                List<Response<Map<String, String>>> reads = new ArrayList<>(TEAMS.length);
+                for (int i = 0; i < TEAMS.length; i++) {
+                    String key = KEY_PREFIX + TEAMS[i].name();
+                    written.add(deltas[i] > 0 ? pipeline.hincrByFloat(key, shardId, deltas[i]) : null);
+                    reads.add(pipeline.hgetAll(key));
+                }
+                pipeline.hset(SEEN_KEY, shardId, String.valueOf(System.currentTimeMillis()));
+                return reads;
+            });
+        } catch (Exception e) {
+            for (int i = 0; i < TEAMS.length; i++) {
+                unflushed[i].add(deltas[i]); // retried with the next flush
+            }
+            logger.warn("TeamPlaytimeCounter: Failed to flush and merge team counters: {}", e.getMessage());
+            return;
+        }
+
+        for (int i = 0; i < TEAMS.length; i++) {
+            if (written.get(i) != null) {
+                try {
+                    // Less than expected means our shard was folded into the base while we weren't flushing
+                    ownShard[i] = written.get(i).get();
+                } catch (Exception e) {
+                    unflushed[i].add(deltas[i]); // retried with the next flush
+                    logger.warn("TeamPlaytimeCounter: Failed to flush {} ticks for team {}: {}", deltas[i], TEAMS[i].name(), e.getMessage());
+                }
+            }
+            try {
+                double merged = merge(i, shards.get(i).get());
+                if (!mergedThroughRedis[i]) {
+                    // The anchor so far was only local: keep the growth counted since the last reconcile, but measure
+                    // it from the first cluster-wide value rather than from a total that misses every other shard
+                    double growth = Math.max(0, mergedTotal[i] - mergedAtReconcile[i]);
+                    mergedTotal[i] = merged;
+                    mergedAtReconcile[i] = merged - growth;
+                    mergedThroughRedis[i] = true;
+                } else {
+                    mergedTotal[i] = Math.max(mergedTotal[i], merged);
+                }
+            } catch (Exception e) {
+                logger.warn("TeamPlaytimeCounter: Failed to merge shards for team {}: {}", TEAMS[i].name(), e.getMessage());
+            }
+        }
+    }
+
+    private double merge(int team, Map<String, String> shards) {
+        double total = 0;
+        boolean sawOwn = false;
+        for (Map.Entry<String, String> shard : shards.entrySet()) {
+            double value;
+            try {
+                value = Double.parseDouble(shard.getValue());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (shard.getKey().equals(shardId)) {
+                value = Math.max(value, ownShard[team]);
+                sawOwn = true;
+            }
+            total += value;
+        }
+        if (!sawOwn) {
+            // Our shard was folded into the base; what we wrote is counted there now
+            ownShard[team] = 0;
+        }
+        return total;
+    }
+
+    /**
+     * @return True once the team's shards have been merged through Redis, or if Redis isn't attached (then the local
+     *         shard is the whole counter).
+     */
+    public boolean isMerged(ServerTeam team) {
+        return redis == null || mergedThroughRedis[team.ordinal()];
+    }
+
+    /**
+     * Folds the shards of pods that haven't flushed for {@link #SHARD_EXPIRY_MILLIS} into the base field, so the team
+     * hashes don't grow with every pod start. Folding keeps the sum of a hash unchanged. Only the elected poller runs
+     * this, on the flush thread.
+     */
+    public void compactShards() {
+        RedisClient client = redis;
+        if (client == null) return;
+        long now = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        try {
+            Map<String, String> seen = client.cluster().hgetAll(SEEN_KEY);
+            int folded = 0;
+            for (Map.Entry<String, String> entry : seen.entrySet()) {
+                long lastSeen;
+                try {
+                    lastSeen = Long.parseLong(entry.getValue());
+                } catch (NumberFormatException e) {
+                    lastSeen = 0;
+                }
+                if (entry.getKey().equals(shardId) || now - lastSeen < SHARD_EXPIRY_MILLIS) continue;
+                for (ServerTeam team : TEAMS) {
+                    client.cluster().eval(FOLD_SCRIPT, List.of(KEY_PREFIX + team.name()), List.of(entry.getKey(), BASE_FIELD));
+                }
+                client.cluster().hdel(SEEN_KEY, entry.getKey());
+                folded++;
+            }
+            Metrics.recordRedis("team_counter_compact", true, System.nanoTime() - start);
+            if (folded > 0) {
+                logger.info("TeamPlaytimeCounter: Folded {} expired shards into the base.", folded);
+            }
+        } catch (Exception e) {
+            Metrics.recordRedis("team_counter_compact", false, System.nanoTime() - start);
+            logger.warn("TeamPlaytimeCounter: Failed to compact shards: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-anchors a team's total on the authoritative value from game-service.
+     *
+     * @param authoritativeTotal The total reported by game-service.
+     * @param mergedAtRead       The merged counter value at the time the total was read (shards converge, so the
+     *                           value read on another pod is valid here as well).
+     */
+    public void reconcile(ServerTeam team, double authoritativeTotal, double mergedAtRead) {
+        // Before the first merge through Redis, mergedTotal is local; the first merge re-anchors from it
+        int i = team.ordinal();
+        serviceTotal[i] = authoritativeTotal;
+        mergedAtReconcile[i] = Math.min(mergedAtRead, mergedTotal[i]);
+    }
+
+    /**
+     * @return The merged counter value of all pods' shards, as of the last merge.
+     */
+    public double mergedTotal(ServerTeam team) {
+        return mergedTotal[team.ordinal()];
+    }
+
+    /**
+     * @return The last authoritative total plus the cluster-wide growth since then, including unflushed local playtime.
+     */
+    public double estimate(ServerTeam team) {
+        int i = team.ordinal();
+        return serviceTotal[i] + (mergedTotal[i] - mergedAtReconcile[i]) + unflushed[i].sum();
+    }
+}
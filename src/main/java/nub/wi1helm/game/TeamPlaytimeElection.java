@@ -0,0 +1,212 @@
+package nub.wi1helm.game;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import nub.wi1helm.config.LobbyConfig;
+import nub.wi1helm.metrics.Metrics;
+import nub.wi1helm.server.ServerTeam;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.params.SetParams;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Elects a single lobby pod to poll game-service for team totals and fans the results out to all pods.
+ *
+ * The leader holds a lease key ({@code SET NX PX}) that it renews every third of the lease period. Each acquisition
+ * takes a new fencing token from a counter; published totals carry the token and subscribers drop anything older than
+ * the newest token they have seen, so a paused ex-leader can't overwrite its successor's values. If the leader dies,
+ * its lease expires and another pod takes over on its next attempt, i.e. within one lease period
+ * ({@link LobbyConfig#TEAM_POLLER_LEASE_MILLIS}).
+ */
+public class TeamPlaytimeElection {
+
+    // Hash tag keeps both keys in one cluster slot so the scripts may touch them together
+    private static final String LEASE_KEY = "lobby:{team-poller}:lease";
+    private static final String FENCE_KEY = "lobby:{team-poller}:fence";
+    private static final String CHANNEL = "lobby:team-playtime";
+
+    // Extends the lease only if we still own it
+    private static final String RENEW_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) else return 0 end";
+    // Gives the lease up only if we still own it
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end";
+
+    private static final long SUBSCRIBE_RETRY_MILLIS = 2000;
+    private static final Gson gson = new Gson();
+
+    /**
+     * A team total as published by the leader.
+     *
+     * @param fence        The leader's fencing token.
+     * @param team         The team name.
+     * @param serviceTotal The total reported by game-service.
+     * @param mergedTotal  The leader's merged counter value when it read the total.
+     */
+    public record TeamTotal(long fence, String team, double serviceTotal, double mergedTotal) {}
+
+    private final JedisCluster jedisCluster;
+    private final String podId;
+    private final long leaseMillis;
+    private final Consumer<TeamTotal> listener;
+
+    private volatile long fence = 0;       // our token while leader, 0 otherwise
+    private volatile String leaseValue;    // podId:fence while leader
+    private volatile long highestSeenFence = 0;
+    private volatile boolean running = true;
+    private volatile JedisPubSub subscription;
+
+    /**
+     * @param listener Receives every accepted team total, including the ones this pod published itself.
+     */
+    public TeamPlaytimeElection(JedisCluster jedisCluster, String podId, Consumer<TeamTotal> listener) {
+        this.jedisCluster = jedisCluster;
+        this.podId = podId;
+        this.listener = listener;
+        this.leaseMillis = LobbyConfig.TEAM_POLLER_LEASE_MILLIS.get();
+
+        Thread subscriber = new Thread(this::subscribeLoop, "Team-Playtime-Subscriber");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    /**
+     * @return How often {@link #heartbeat()} has to run to renew the lease in time.
+     */
+    public long heartbeatMillis() {
+        return Math.max(1, leaseMillis / 3);
+    }
+
+    public boolean isLeader() {
+        return fence != 0;
+    }
+
+    /**
+     * Renews the lease while leader, or tries to acquire it otherwise.
+     */
+    public void heartbeat() {
+        if (isLeader()) {
+            final long start = System.nanoTime();
+            try {
+                Object renewed = jedisCluster.eval(RENEW_SCRIPT, List.of(LEASE_KEY), List.of(leaseValue, String.valueOf(leaseMillis)));
+                Metrics.recordRedis("eval", true, System.nanoTime() - start);
+                if (!Long.valueOf(1L).equals(renewed)) {
+                    logger.warn("TeamPlaytimeElection: Lost team poller lease (fence {}).", fence);
+                    stepDown();
+                }
+            } catch (Exception e) {
+                Metrics.recordRedis("eval", false, System.nanoTime() - start);
+                // We can't tell whether the renewal went through; assume the worst so two pods never both poll
+                logger.warn("TeamPlaytimeElection: Failed to renew lease, stepping down: {}", e.getMessage());
+                stepDown();
+            }
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            // Probe first so followers don't burn a fencing token on every heartbeat
+            if (jedisCluster.exists(LEASE_KEY)) {
+                Metrics.recordRedis("exists", true, System.nanoTime() - start);
+                return;
+            }
+            long token = jedisCluster.incr(FENCE_KEY);
+            String value = podId + ":" + token;
+            String result = jedisCluster.set(LEASE_KEY, value, SetParams.setParams().nx().px(leaseMillis));
+            Metrics.recordRedis("set", true, System.nanoTime() - start);
+            if ("OK".equals(result)) {
+                leaseValue = value;
+                fence = token;
+                logger.info("TeamPlaytimeElection: Pod {} is now the team poller (fence {}).", podId, token);
+            }
+        } catch (Exception e) {
+            Metrics.recordRedis("set", false, System.nanoTime() - start);
+            logger.warn("TeamPlaytimeElection: Failed to acquire lease: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes a team total to all pods. Ignored if this pod isn't the leader.
+     */
+    public void publish(ServerTeam team, double serviceTotal, double mergedTotal) {
+        long token = fence;
+        if (token == 0) return;
+        final long start = System.nanoTime();
+        try {
+            jedisCluster.publish(CHANNEL, gson.toJson(new TeamTotal(token, team.name(), serviceTotal, mergedTotal)));
+            Metrics.recordRedis("publish", true, System.nanoTime() - start);
+        } catch (Exception e) {
+            Metrics.recordRedis("publish", false, System.nanoTime() - start);
+            logger.warn("TeamPlaytimeElection: Failed to publish total for team {}: {}", team.name(), e.getMessage());
+        }
+    }
+
+    private void stepDown() {
+        fence = 0;
+        leaseValue = null;
+    }
+
+    private void subscribeLoop() {
+        while (running) {
+            JedisPubSub pubSub = new JedisPubSub() {
+                @Override
+                public void onMessage(String channel, String message) {
+                    handleMessage(message);
+                }
+            };
+            subscription = pubSub;
+            try {
+                jedisCluster.subscribe(pubSub, CHANNEL); // blocks until unsubscribed or the connection drops
+            } catch (Exception e) {
+                if (!running) break;
+                logger.warn("TeamPlaytimeElection: Subscription to {} dropped, retrying in {} ms: {}", CHANNEL, SUBSCRIBE_RETRY_MILLIS, e.getMessage());
+            }
+            try {
+                Thread.sleep(SUBSCRIBE_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void handleMessage(String message) {
+        TeamTotal total;
+        try {
+            total = gson.fromJson(message, TeamTotal.class);
+        } catch (JsonSyntaxException e) {
+            logger.warn("TeamPlaytimeElection: Ignoring malformed team total: {}", message);
+            return;
+        }
+        if (total == null || total.team() == null) return;
+        // Fencing: never go back to an older leader once a newer one has spoken
+        if (total.fence() < highestSeenFence) return;
+        highestSeenFence = total.fence();
+        listener.accept(total);
+    }
+
+    /**
+     * Releases the lease (so a successor doesn't have to wait for it to expire) and stops the subscriber.
+     */
+    public void shutdown() {
+        running = false;
+        String value = leaseValue;
+        stepDown();
+        if (value != null) {
+            try {
+                jedisCluster.eval(RELEASE_SCRIPT, List.of(LEASE_KEY), List.of(value));
+            } catch (Exception e) {
+                logger.warn("TeamPlaytimeElection: Failed to release lease: {}", e.getMessage());
+            }
+        }
+        JedisPubSub pubSub = subscription;
+        if (pubSub != null && pubSub.isSubscribed()) {
+            pubSub.unsubscribe();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package nub.wi1helm.game;
+
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.sound.Sound;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.title.Title;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.timer.TaskSchedule;
+import nub.wi1helm.metrics.TickMetrics;
+import nub.wi1helm.metrics.TickPhase;
+import nub.wi1helm.server.ServerPlayer;
+import nub.wi1helm.server.ServerTeam;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The "Your Team Is.." slot machine shown on a player's first join.
+ *
+ * The frame timeline is computed once; a single task advances every running animation each tick,
+ * reusing cached titles and the bell sound, so the cost per animating player is constant.
+ */
+public final class TeamSelectAnimation {
+
+    // Frame kinds in the timeline
+    private static final int FRAME_INTRO = -1;
+    private static final int FRAME_REVEAL = -2;
+    private static final int FRAME_TEAM = 0;
+
+    private static final Sound BELL = Sound.sound().source(Sound.Source.MASTER).type(Key.key("block.note_block.bell")).build();
+    private static final Title INTRO_TITLE = Title.title(Component.text("Your Team Is.."), Component.empty());
+    private static final Map<ServerTeam, Title> TEAM_TITLES = new EnumMap<>(ServerTeam.class);
+
+    // frameTicks[i] is the tick (relative to the start) at which frameKinds[i] is shown.
+    // For a FRAME_TEAM frame, frameTeams[i] is the team cycled to; null for the other kinds.
+    private static final int[] frameTicks;
+    private static final int[] frameKinds;
+    private static final ServerTeam[] frameTeams;
+
+    private static final Map<UUID, Running> running = new ConcurrentHashMap<>();
+    private static volatile boolean started = false;
+
+    static {
+        for (ServerTeam team : ServerTeam.values()) {
+            TEAM_TITLES.put(team, Title.title(Component.text(team.displayName()).color(team.color()), Component.empty()));
+        }
+
+        List<int[]> frames = new ArrayList<>();
+        List<ServerTeam> teams = new ArrayList<>();
+        frames.add(new int[]{0, FRAME_INTRO});
+        teams.add(null);
+
+        ServerTeam[] choices = ServerTeam.values();
+        double currentDelaySeconds = 1.0;
+        final double decrementSeconds = 0.05;
+        final double minimumDelaySeconds = 0.05;
+        final int minimumIterationsAtFastSpeed = 8;
+        int totalTicks = 0;
+        int fastIterationsCount = 0;
+        int shown = 1; // the first choice is "used up" by the intro, so cycling starts at the second team
+        while (currentDelaySeconds >= minimumDelaySeconds || fastIterationsCount < minimumIterationsAtFastSpeed) {
+            totalTicks += (int) (Math.max(currentDelaySeconds, minimumDelaySeconds) * 20);
+
+            if (currentDelaySeconds <= minimumDelaySeconds) {
+                fastIterationsCount++;
+            }
+
+            frames.add(new int[]{totalTicks, FRAME_TEAM});
+            teams.add(choices[shown++ % choices.length]);
+
+            if (currentDelaySeconds > minimumDelaySeconds) {
+                currentDelaySeconds -= decrementSeconds;
+            }
+        }
+        frames.add(new int[]{totalTicks + 10, FRAME_REVEAL}); // 10 ticks buffer before the reveal
+        teams.add(null);
+
+        frameTicks = new int[frames.size()];
+        frameKinds = new int[frames.size()];
+        for (int i = 0; i < frames.size(); i++) {
+            frameTicks[i] = frames.get(i)[0];
+            frameKinds[i] = frames.get(i)[1];
+        }
+        frameTeams = teams.toArray(new ServerTeam[0]);
+    }
+
+    private TeamSelectAnimation() {}
+
+    private static final class Running {
+        private final ServerPlayer player;
+        private final ServerTeam selectedTeam;
+        private int elapsedTicks = 0;
+        private int nextFrame = 0;
+
+        private Running(ServerPlayer player, ServerTeam selectedTeam) {
+            this.player = player;
+            this.selectedTeam = selectedTeam;
+        }
+
+        /**
+         * @return true once the last frame has been shown.
+         */
+        private boolean advance() {
+            while (nextFrame < frameTicks.length && frameTicks[nextFrame] <= elapsedTicks) {
+                showFrame(nextFrame++);
+            }
+            elapsedTicks++;
+            return nextFrame >= frameTicks.length;
+        }
+
+        private void showFrame(int frame) {
+            switch (frameKinds[frame]) {
+                case FRAME_INTRO -> {
+                    player.showTitle(INTRO_TITLE);
+                    player.playSound(BELL);
+                }
+                case FRAME_REVEAL -> player.showTitle(TEAM_TITLES.get(selectedTeam));
+                default -> {
+                    player.showTitle(TEAM_TITLES.get(frameTeams[frame]));
+                    player.playSound(BELL);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts the shared ticker. Safe to call more than once.
+     */
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+        MinecraftServer.getSchedulerManager().submitTask(() -> {
+            final long start = TickMetrics.begin();
+            tick();
+            TickMetrics.end(TickPhase.SCHEDULER, start);
+            return TaskSchedule.nextTick();
+        });
+    }
+
+    /**
+     * Starts (or restarts) the animation for a player. The intro frame is shown immediately.
+     *
+     * @param player The ServerPlayer instance.
+     * @param selectedTeam The team revealed at the end of the animation.
+     */
+    public static void play(ServerPlayer player, ServerTeam selectedTeam) {
+        start();
+        Running animation = new Running(player, selectedTeam);
+        animation.advance();
+        running.put(player.getUuid(), animation);
+    }
+
+    private static void tick() {
+        if (running.isEmpty()) return;
+        Iterator<Running> iterator = running.values().iterator();
+        while (iterator.hasNext()) {
+            Running animation = iterator.next();
+            if (!animation.player.isOnline() || animation.advance()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return The exact duration of the animation, from the intro to the reveal, in milliseconds.
+     */
+    public static long durationMillis() {
+        return frameTicks[frameTicks.length - 1] * (long) MinecraftServer.TICK_MS;
+    }
+
+    public static int runningCount() {
+        return running.size();
+    }
+}
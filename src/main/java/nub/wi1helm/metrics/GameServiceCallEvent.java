@@ -0,0 +1,51 @@
+package nub.wi1helm.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a single {@code GameService} HTTP call.
+ */
+@Name(GameServiceCallEvent.NAME)
+@Label("Game Service Call")
+@Category({"Lobby", "Backend"})
+@Description("An HTTP call to game-service")
+@StackTrace(false)
+public final class GameServiceCallEvent extends Event {
+
+    public static final String NAME = "nub.wi1helm.GameServiceCall";
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Subject")
+    @Description("The player UUID or team the call is about")
+    String subject;
+
+    @Label("Status Code")
+    @Description("HTTP status code, 0 if the request failed without a response")
+    int statusCode;
+
+    /**
+     * Creates and begins an event. Cheap when no recording has the event enabled.
+     */
+    public static GameServiceCallEvent start(String endpoint, String subject) {
+        GameServiceCallEvent event = new GameServiceCallEvent();
+        if (event.isEnabled()) {
+            event.endpoint = endpoint;
+            event.subject = subject;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void complete(int statusCode) {
+        if (!isEnabled()) return;
+        this.statusCode = statusCode;
+        commit();
+    }
+}
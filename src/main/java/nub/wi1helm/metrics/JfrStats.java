@@ -0,0 +1,100 @@
+package nub.wi1helm.metrics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * In-process JFR streaming consumer for the lobby's own events ({@link ProfileLoadEvent},
+ * {@link GameServiceCallEvent}, {@link RegistrarCycleEvent}). It keeps rolling duration histograms per event kind
+ * and logs a summary at an interval.
+ *
+ * Environment variables:
+ * - JFR_STATS_LOG_SECONDS: Summary interval in seconds (defaults to 60, 0 disables the consumer).
+ *
+ * The consumer only enables the three lobby events. For a full production recording next to GC and safepoint data,
+ * start the JVM with -XX:StartFlightRecording; the lobby events are picked up by that recording as well.
+ */
+public final class JfrStats {
+
+    private static final Map<String, Histogram> durations = new ConcurrentHashMap<>();
+    private static RecordingStream stream;
+    private static long lastLog = System.nanoTime();
+
+    private JfrStats() {}
+
+    public static synchronized void startFromEnv() {
+        if (stream != null) return;
+        long intervalSeconds;
+        try {
+            intervalSeconds = Long.parseLong(System.getenv().getOrDefault("JFR_STATS_LOG_SECONDS", "60").trim());
+        } catch (NumberFormatException e) {
+            logger.warn("JfrStats: Invalid JFR_STATS_LOG_SECONDS '{}'. Using default: 60.", System.getenv("JFR_STATS_LOG_SECONDS"));
+            intervalSeconds = 60;
+        }
+        if (intervalSeconds <= 0) {
+            logger.info("JfrStats: Disabled.");
+            return;
+        }
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+
+        try {
+            RecordingStream recordingStream = new RecordingStream();
+            recordingStream.enable(ProfileLoadEvent.NAME);
+            recordingStream.enable(GameServiceCallEvent.NAME);
+            recordingStream.enable(RegistrarCycleEvent.NAME);
+            recordingStream.onEvent(ProfileLoadEvent.NAME, event -> record("profile." + event.getString("stage"), event));
+            recordingStream.onEvent(GameServiceCallEvent.NAME, event -> record("game." + event.getString("endpoint"), event));
+            recordingStream.onEvent(RegistrarCycleEvent.NAME, event -> record("registrar." + event.getString("cycle"), event));
+            recordingStream.onFlush(() -> {
+                long now = System.nanoTime();
+                if (now - lastLog >= intervalNanos) {
+                    lastLog = now;
+                    logAndReset();
+                }
+            });
+            recordingStream.startAsync();
+            stream = recordingStream;
+            logger.info("JfrStats: Streaming lobby JFR events, logging every {}s.", intervalSeconds);
+        } catch (Exception e) {
+            logger.warn("JfrStats: Could not start JFR event stream: {}", e.getMessage());
+        }
+    }
+
+    public static synchronized void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    private static void record(String key, RecordedEvent event) {
+        durations.computeIfAbsent(key, k -> new Histogram()).record(event.getDuration().toNanos() / 1000);
+    }
+
+    private static void logAndReset() {
+        if (durations.isEmpty()) return;
+        StringBuilder builder = new StringBuilder("JfrStats (ms, count p50/p99/max):");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(durations).entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (histogram.count() == 0) continue;
+            builder.append(' ').append(entry.getKey()).append('=')
+                    .append(histogram.count()).append(' ')
+                    .append(formatMillis(histogram.percentile(50))).append('/')
+                    .append(formatMillis(histogram.percentile(99))).append('/')
+                    .append(formatMillis(histogram.max()));
+            histogram.reset();
+        }
+        logger.info(builder.toString());
+    }
+
+    private static String formatMillis(long micros) {
+        return String.format("%.1f", micros / 1000.0);
+    }
+}
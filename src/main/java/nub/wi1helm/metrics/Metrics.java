@@ -0,0 +1,82 @@
+package nub.wi1helm.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process registry for backend call metrics: HTTP calls to player-service/game-service,
+ * Redis commands and Gate gRPC calls. Rendered in Prometheus format by {@link MetricsServer}.
+ *
+ * Latencies are kept in {@link Histogram}s in microseconds.
+ */
+public final class Metrics {
+
+    /** Status label used when an HTTP call failed without a response. */
+    public static final int STATUS_ERROR = 0;
+
+    public record HttpKey(String service, String endpoint) {}
+    public record HttpStatusKey(String service, String endpoint, int status) {}
+    public record RedisKey(String command, boolean success) {}
+    public record GrpcKey(String method, String outcome) {}
+
+    private static final Map<HttpStatusKey, LongAdder> httpRequests = new ConcurrentHashMap<>();
+    private static final Map<HttpKey, Histogram> httpLatencies = new ConcurrentHashMap<>();
+    private static final Map<RedisKey, LongAdder> redisCommands = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> redisLatencies = new ConcurrentHashMap<>();
+    private static final Map<GrpcKey, LongAdder> grpcCalls = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> grpcLatencies = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    /**
+     * Records one HTTP call to a backend service.
+     *
+     * @param service  The backend, e.g. "player-service".
+     * @param endpoint A stable endpoint name (not the URL, which contains UUIDs).
+     * @param status   The HTTP status code, or {@link #STATUS_ERROR} if the request failed.
+     * @param nanos    The time from sending the request to receiving the response.
+     */
+    public static void recordHttp(String service, String endpoint, int status, long nanos) {
+        httpRequests.computeIfAbsent(new HttpStatusKey(service, endpoint, status), k -> new LongAdder()).increment();
+        httpLatencies.computeIfAbsent(new HttpKey(service, endpoint), k -> new Histogram()).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public static void recordRedis(String command, boolean success, long nanos) {
+        redisCommands.computeIfAbsent(new RedisKey(command, success), k -> new LongAdder()).increment();
+        redisLatencies.computeIfAbsent(command, k -> new Histogram()).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * @param outcome The gRPC status code name, e.g. "OK" or "UNAVAILABLE".
+     */
+    public static void recordGrpc(String method, String outcome, long nanos) {
+        grpcCalls.computeIfAbsent(new GrpcKey(method, outcome), k -> new LongAdder()).increment();
+        grpcLatencies.computeIfAbsent(method, k -> new Histogram()).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    static Map<HttpStatusKey, LongAdder> httpRequests() {
+        return httpRequests;
+    }
+
+    static Map<HttpKey, Histogram> httpLatencies() {
+        return httpLatencies;
+    }
+
+    static Map<RedisKey, LongAdder> redisCommands() {
+        return redisCommands;
+    }
+
+    static Map<String, Histogram> redisLatencies() {
+        return redisLatencies;
+    }
+
+    static Map<GrpcKey, LongAdder> grpcCalls() {
+        return grpcCalls;
+    }
+
+    static Map<String, Histogram> grpcLatencies() {
+        return grpcLatencies;
+    }
+}
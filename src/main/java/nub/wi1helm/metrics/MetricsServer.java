@@ -0,0 +1,227 @@
+package nub.wi1helm.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.minestom.server.MinecraftServer;
+import nub.wi1helm.server.CosmeticBroadcast;
+import nub.wi1helm.server.LoginAdmission;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Serves all metrics in the Prometheus text exposition format on {@code /metrics}.
+ *
+ * Environment variables:
+ * - METRICS_PORT: Port to listen on (defaults to 9100, 0 disables the endpoint).
+ * - METRICS_HOST: Address to bind to (defaults to 0.0.0.0 so the pod can be scraped).
+ */
+public final class MetricsServer {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    // Bucket bounds in seconds for latency histograms
+    private static final double[] LATENCY_BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final double[] LOGIN_WAIT_BUCKETS = {0.1, 0.5, 1, 5, 10, 30, 60, 120, 300};
+    private static final double[] TICK_QUANTILES = {0.5, 0.99};
+
+    private final HttpServer httpServer;
+
+    private MetricsServer(HttpServer httpServer) {
+        this.httpServer = httpServer;
+    }
+
+    /**
+     * Starts the metrics endpoint as configured through the environment.
+     *
+     * @return The running server, or null if the endpoint is disabled or could not be bound.
+     */
+    public static MetricsServer startFromEnv() {
+        int port;
+        try {
+            port = Integer.parseInt(System.getenv().getOrDefault("METRICS_PORT", "9100").trim());
+        } catch (NumberFormatException e) {
+            logger.warn("MetricsServer: Invalid METRICS_PORT '{}'. Metrics endpoint disabled.", System.getenv("METRICS_PORT"));
+            return null;
+        }
+        if (port <= 0) {
+            logger.info("MetricsServer: METRICS_PORT is 0, metrics endpoint disabled.");
+            return null;
+        }
+        String host = System.getenv().getOrDefault("METRICS_HOST", "0.0.0.0");
+        try {
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+            httpServer.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "Metrics-Http");
+                t.setDaemon(true);
+                return t;
+            }));
+            MetricsServer server = new MetricsServer(httpServer);
+            httpServer.createContext("/metrics", server::handle);
+            httpServer.start();
+            logger.info("MetricsServer: Serving Prometheus metrics on {}:{}/metrics", host, port);
+            return server;
+        } catch (IOException e) {
+            logger.error("MetricsServer: Failed to bind metrics endpoint on {}:{}: {}", host, port, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    public void stop() {
+        httpServer.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    static String render() {
+        StringBuilder out = new StringBuilder(8192);
+
+        // --- Backend HTTP calls ---
+        header(out, "lobby_backend_requests_total", "counter", "HTTP requests to backend services by endpoint and status code (0 = no response).");
+        for (Map.Entry<Metrics.HttpStatusKey, LongAdder> entry : Metrics.httpRequests().entrySet()) {
+            Metrics.HttpStatusKey key = entry.getKey();
+            sample(out, "lobby_backend_requests_total", labels("service", key.service(), "endpoint", key.endpoint(), "status", String.valueOf(key.status())), entry.getValue().sum());
+        }
+        header(out, "lobby_backend_request_duration_seconds", "histogram", "Latency of HTTP requests to backend services.");
+        for (Map.Entry<Metrics.HttpKey, Histogram> entry : Metrics.httpLatencies().entrySet()) {
+            histogram(out, "lobby_backend_request_duration_seconds", labels("service", entry.getKey().service(), "endpoint", entry.getKey().endpoint()), entry.getValue());
+        }
+
+        // --- Redis ---
+        header(out, "lobby_redis_commands_total", "counter", "Redis commands by result.");
+        for (Map.Entry<Metrics.RedisKey, LongAdder> entry : Metrics.redisCommands().entrySet()) {
+            sample(out, "lobby_redis_commands_total", labels("command", entry.getKey().command(), "result", entry.getKey().success() ? "ok" : "error"), entry.getValue().sum());
+        }
+        header(out, "lobby_redis_command_duration_seconds", "histogram", "Latency of Redis commands.");
+        for (Map.Entry<String, Histogram> entry : Metrics.redisLatencies().entrySet()) {
+            histogram(out, "lobby_redis_command_duration_seconds", labels("command", entry.getKey()), entry.getValue());
+        }
+
+        // --- Gate gRPC ---
+        header(out, "lobby_gate_grpc_calls_total", "counter", "Gate gRPC calls by outcome (gRPC status code).");
+        for (Map.Entry<Metrics.GrpcKey, LongAdder> entry : Metrics.grpcCalls().entrySet()) {
+            sample(out, "lobby_gate_grpc_calls_total", labels("method", entry.getKey().method(), "outcome", entry.getKey().outcome()), entry.getValue().sum());
+        }
+        header(out, "lobby_gate_grpc_call_duration_seconds", "histogram", "Latency of Gate gRPC calls.");
+        for (Map.Entry<String, Histogram> entry : Metrics.grpcLatencies().entrySet()) {
+            histogram(out, "lobby_gate_grpc_call_duration_seconds", labels("method", entry.getKey()), entry.getValue());
+        }
+
+        // --- Server ---
+        header(out, "lobby_online_players", "gauge", "Players currently online.");
+        sample(out, "lobby_online_players", "", MinecraftServer.getConnectionManager().getOnlinePlayerCount());
+
+        header(out, "lobby_login_queue_depth", "gauge", "Players waiting in the configuration phase for login admission.");
+        sample(out, "lobby_login_queue_depth", "", LoginAdmission.getQueueDepth());
+        header(out, "lobby_login_admissions_total", "counter", "Login admission decisions by result.");
+        sample(out, "lobby_login_admissions_total", labels("result", "admitted"), LoginAdmission.getAdmitted());
+        sample(out, "lobby_login_admissions_total", labels("result", "turned_away"), LoginAdmission.getTurnedAway());
+        header(out, "lobby_login_queue_wait_seconds", "histogram", "Time admitted players waited for login admission.");
+        histogram(out, "lobby_login_queue_wait_seconds", "", LoginAdmission.getWaitTimes(), LOGIN_WAIT_BUCKETS);
+
+        // Quantiles over the last complete window; _sum and _count are cumulative since startup, as rate() expects
+        header(out, "lobby_tick_duration_seconds", "summary", "Per-tick duration by phase (quantiles over the last complete TickMetrics window).");
+        for (TickPhase phase : TickPhase.values()) {
+            Histogram histogram = TickMetrics.completedWindow(phase);
+            for (double quantile : TICK_QUANTILES) {
+                sample(out, "lobby_tick_duration_seconds", labels("phase", phase.metricName(), "quantile", String.valueOf(quantile)), histogram.percentile(quantile * 100) / 1e6);
+            }
+            sample(out, "lobby_tick_duration_seconds_sum", labels("phase", phase.metricName()), TickMetrics.totalSeconds(phase));
+            sample(out, "lobby_tick_duration_seconds_count", labels("phase", phase.metricName()), TickMetrics.totalTicks());
+        }
+        header(out, "lobby_tick_duration_max_seconds", "gauge", "Longest tick phase duration over the last complete TickMetrics window.");
+        for (TickPhase phase : TickPhase.values()) {
+            sample(out, "lobby_tick_duration_max_seconds", labels("phase", phase.metricName()), TickMetrics.maxMillis(phase) / 1000.0);
+        }
+
+        header(out, "lobby_cosmetic_packets_encoded_total", "counter", "Cosmetic broadcast packets encoded.");
+        sample(out, "lobby_cosmetic_packets_encoded_total", "", CosmeticBroadcast.getPacketsEncoded());
+        header(out, "lobby_cosmetic_packets_delivered_total", "counter", "Cosmetic broadcast packets delivered to viewers.");
+        sample(out, "lobby_cosmetic_packets_delivered_total", "", CosmeticBroadcast.getPacketsDelivered());
+
+        // --- JVM ---
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        header(out, "jvm_memory_heap_used_bytes", "gauge", "Used heap memory.");
+        sample(out, "jvm_memory_heap_used_bytes", "", heap.getUsed());
+        header(out, "jvm_memory_heap_committed_bytes", "gauge", "Committed heap memory.");
+        sample(out, "jvm_memory_heap_committed_bytes", "", heap.getCommitted());
+        header(out, "jvm_memory_heap_max_bytes", "gauge", "Maximum heap memory (-1 if undefined).");
+        sample(out, "jvm_memory_heap_max_bytes", "", heap.getMax());
+        header(out, "jvm_gc_collections_total", "counter", "Garbage collections by collector.");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collections_total", labels("gc", gc.getName()), Math.max(0, gc.getCollectionCount()));
+        }
+        header(out, "jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collection by collector.");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collection_seconds_total", labels("gc", gc.getName()), Math.max(0, gc.getCollectionTime()) / 1000.0);
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Writes a histogram recorded in microseconds as cumulative Prometheus buckets in seconds.
+     */
+    private static void histogram(StringBuilder out, String name, String labels, Histogram histogram) {
+        histogram(out, name, labels, histogram, LATENCY_BUCKETS);
+    }
+
+    private static void histogram(StringBuilder out, String name, String labels, Histogram histogram, double[] buckets) {
+        String prefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+        for (double bound : buckets) {
+            sample(out, name + "_bucket", prefix + "le=\"" + bound + "\"}", histogram.countAtOrBelow((long) (bound * 1e6)));
+        }
+        sample(out, name + "_bucket", prefix + "le=\"+Inf\"}", histogram.count());
+        sample(out, name + "_sum", labels, histogram.sum() / 1e6);
+        sample(out, name + "_count", labels, histogram.count());
+    }
+
+    private static String labels(String... pairs) {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (i > 0) builder.append(',');
+            builder.append(pairs[i]).append("=\"").append(escape(pairs[i + 1])).append('"');
+        }
+        return builder.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,60 @@
+package nub.wi1helm.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for {@code PlayerService.loadPlayerProfile}, emitted once for the whole load (stage TOTAL)
+ * and once per backend round trip (GET, POST, CONFLICT_RETRY).
+ */
+@Name(ProfileLoadEvent.NAME)
+@Label("Profile Load")
+@Category({"Lobby", "Backend"})
+@Description("Loading or creating a player profile through player-service")
+@StackTrace(false)
+public final class ProfileLoadEvent extends Event {
+
+    public static final String NAME = "nub.wi1helm.ProfileLoad";
+
+    public static final String STAGE_TOTAL = "TOTAL";
+    public static final String STAGE_GET = "GET";
+    public static final String STAGE_POST = "POST";
+    public static final String STAGE_CONFLICT_RETRY = "CONFLICT_RETRY";
+
+    @Label("Player UUID")
+    String uuid;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Status Code")
+    @Description("HTTP status code of the stage, 0 if there was no response or the stage spans several requests")
+    int statusCode;
+
+    @Label("Success")
+    boolean success;
+
+    /**
+     * Creates and begins an event. Cheap when no recording has the event enabled.
+     */
+    public static ProfileLoadEvent start(String uuid, String stage) {
+        ProfileLoadEvent event = new ProfileLoadEvent();
+        if (event.isEnabled()) {
+            event.uuid = uuid;
+            event.stage = stage;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void complete(int statusCode, boolean success) {
+        if (!isEnabled()) return;
+        this.statusCode = statusCode;
+        this.success = success;
+        commit();
+    }
+}
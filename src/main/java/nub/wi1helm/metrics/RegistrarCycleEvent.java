@@ -0,0 +1,55 @@
+package nub.wi1helm.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one Registrar work cycle: proxy discovery, a registration check, or a single registration.
+ */
+@Name(RegistrarCycleEvent.NAME)
+@Label("Registrar Cycle")
+@Category({"Lobby", "Registrar"})
+@Description("A Gate proxy discovery, registration check or registration performed by the Registrar")
+@StackTrace(false)
+public final class RegistrarCycleEvent extends Event {
+
+    public static final String NAME = "nub.wi1helm.RegistrarCycle";
+
+    public static final String CYCLE_DISCOVERY = "discovery";
+    public static final String CYCLE_REGISTRATION_CHECK = "registration-check";
+    public static final String CYCLE_REGISTER = "register";
+
+    @Label("Cycle")
+    String cycle;
+
+    @Label("Proxies")
+    @Description("Number of proxies handled in the cycle")
+    int proxies;
+
+    @Label("Failures")
+    @Description("Number of failed Redis or gRPC calls in the cycle")
+    int failures;
+
+    /**
+     * Creates and begins an event. Cheap when no recording has the event enabled.
+     */
+    public static RegistrarCycleEvent start(String cycle) {
+        RegistrarCycleEvent event = new RegistrarCycleEvent();
+        if (event.isEnabled()) {
+            event.cycle = cycle;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void complete(int proxies, int failures) {
+        if (!isEnabled()) return;
+        this.proxies = proxies;
+        this.failures = failures;
+        commit();
+    }
+}
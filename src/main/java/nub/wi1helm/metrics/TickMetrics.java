@@ -0,0 +1,144 @@
+package nub.wi1helm.metrics;
+
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.event.server.ServerTickMonitorEvent;
+import nub.wi1helm.config.LobbyConfig;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Per-tick duration histograms for each {@link TickPhase}.
+ *
+ * Phases add the time they spend to a per-phase accumulator (they may run on several dispatcher threads at once).
+ * When Minestom reports the end of a tick, every accumulator is drained into its phase's histogram, so each histogram
+ * holds one sample per tick, in microseconds. Histograms are kept for the current and the last complete window;
+ * queries read the last complete window, and a summary of it is logged whenever a window closes. A closed window is
+ * never written again (the next one gets new histograms), so readers on other threads always see a whole window.
+ * Next to the windows, a running total of every phase's time and of the ticks is kept that is never reset.
+ * The window length is {@link LobbyConfig#TICK_METRICS_LOG_SECONDS}; a change applies to the window in progress.
+ */
+public final class TickMetrics {
+
+    private static final TickPhase[] PHASES = TickPhase.values();
+
+    private static final LongAdder[] accumulators = new LongAdder[PHASES.length];
+    private static volatile Histogram[] current = newWindow();
+    private static volatile Histogram[] completed = newWindow();
+    // Since startup, for counters that must not go backwards
+    private static final AtomicLongArray totalMicros = new AtomicLongArray(PHASES.length);
+    private static final AtomicLong totalTicks = new AtomicLong();
+    private static long windowStart = System.nanoTime();
+    private static volatile boolean started = false;
+
+    static {
+        for (int i = 0; i < PHASES.length; i++) {
+            accumulators[i] = new LongAdder();
+        }
+    }
+
+    private TickMetrics() {}
+
+    /**
+     * Hooks into Minestom's tick monitor. Safe to call more than once.
+     */
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+        MinecraftServer.getGlobalEventHandler().addListener(ServerTickMonitorEvent.class, event ->
+                endTick((long) (event.getTickMonitor().getTickTime() * 1000)));
+        logger.info("TickMetrics: Recording per-phase tick histograms, logging every {}s.", LobbyConfig.TICK_METRICS_LOG_SECONDS.get());
+    }
+
+    /**
+     * @return A start timestamp to pass to {@link #end(TickPhase, long)}.
+     */
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    public static void end(TickPhase phase, long begin) {
+        accumulators[phase.ordinal()].add(System.nanoTime() - begin);
+    }
+
+    private static void endTick(long tickMicros) {
+        Histogram[] window = current;
+        for (int i = 0; i < PHASES.length; i++) {
+            long nanos = accumulators[i].sumThenReset();
+            long micros = PHASES[i] == TickPhase.TICK ? tickMicros : nanos / 1000;
+            window[i].record(micros);
+            totalMicros.addAndGet(i, micros);
+        }
+        totalTicks.incrementAndGet();
+
+        long now = System.nanoTime();
+        if (now - windowStart >= TimeUnit.SECONDS.toNanos(LobbyConfig.TICK_METRICS_LOG_SECONDS.get())) {
+            windowStart = now;
+            // Not recycled: a scrape may still be reading the window this one replaces
+            current = newWindow();
+            completed = window;
+            logWindow(window);
+        }
+    }
+
+    private static void logWindow(Histogram[] window) {
+        StringBuilder builder = new StringBuilder("TickMetrics (ms, p50/p99/max):");
+        for (TickPhase phase : PHASES) {
+            Histogram histogram = window[phase.ordinal()];
+            builder.append(' ').append(phase.metricName()).append('=')
+                    .append(formatMillis(histogram.percentile(50))).append('/')
+                    .append(formatMillis(histogram.percentile(99))).append('/')
+                    .append(formatMillis(histogram.max()));
+        }
+        builder.append(" over ").append(window[TickPhase.TICK.ordinal()].count()).append(" ticks");
+        logger.info(builder.toString());
+    }
+
+    /**
+     * @return The given percentile of the per-tick duration of a phase over the last complete window, in milliseconds.
+     */
+    public static double percentileMillis(TickPhase phase, double percentile) {
+        return completed[phase.ordinal()].percentile(percentile) / 1000.0;
+    }
+
+    public static double maxMillis(TickPhase phase) {
+        return completed[phase.ordinal()].max() / 1000.0;
+    }
+
+    /**
+     * @return The histogram of the last complete window (microseconds per tick). Must not be modified.
+     */
+    public static Histogram completedWindow(TickPhase phase) {
+        return completed[phase.ordinal()];
+    }
+
+    /**
+     * @return The time spent in a phase since startup, in seconds.
+     */
+    public static double totalSeconds(TickPhase phase) {
+        return totalMicros.get(phase.ordinal()) / 1e6;
+    }
+
+    /**
+     * @return The number of ticks recorded since startup.
+     */
+    public static long totalTicks() {
+        return totalTicks.get();
+    }
+
+    private static String formatMillis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+    private static Histogram[] newWindow() {
+        Histogram[] window = new Histogram[PHASES.length];
+        for (int i = 0; i < window.length; i++) {
+            window[i] = new Histogram();
+        }
+        return window;
+    }
+}
@@ -0,0 +1,27 @@
+package nub.wi1helm.metrics;
+
+/**
+ * The parts of a server tick that are measured separately by {@link TickMetrics}.
+ */
+public enum TickPhase {
+    /** The whole tick, as reported by Minestom's tick monitor. */
+    TICK("tick"),
+    /** All ServerPlayer.tick calls of the tick (entity update plus HUD work). */
+    PLAYER("player"),
+    /** The ServerSidebar update task. */
+    SIDEBAR("sidebar"),
+    /** All CustomPlaytimeTextDisplay.tick calls of the tick. */
+    BILLBOARD("billboard"),
+    /** Our own scheduler tasks (animation ticker, cosmetic broadcast flush). */
+    SCHEDULER("scheduler");
+
+    private final String metricName;
+
+    TickPhase(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String metricName() {
+        return metricName;
+    }
+}
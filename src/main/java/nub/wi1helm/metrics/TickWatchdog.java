@@ -0,0 +1,195 @@
+package nub.wi1helm.metrics;
+
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.event.server.ServerTickMonitorEvent;
+import net.minestom.server.timer.ExecutionType;
+import net.minestom.server.timer.TaskSchedule;
+import nub.wi1helm.config.LobbyConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Detects ticks that run past a threshold and samples the tick threads while the overrun is happening.
+ * Once the tick finishes, a compact report names the frames the tick threads were busy in, preferring our own
+ * code (e.g. {@code ServerPlayer.updateActionBar}) over library frames.
+ *
+ * Sampling only starts after the threshold is crossed and only when a report may be emitted, and reports are
+ * rate-limited, so the watchdog costs nothing on healthy ticks and can't pile up work during a bad phase.
+ *
+ * The threshold and report interval are {@link LobbyConfig#TICK_WATCHDOG_THRESHOLD_MS} (0 disables the watchdog) and
+ * {@link LobbyConfig#TICK_WATCHDOG_REPORT_INTERVAL_SECONDS}.
+ */
+public final class TickWatchdog {
+
+    private static final String OWN_PACKAGE = "nub.wi1helm.";
+    private static final String DISPATCHER_THREAD_PREFIX = "Ms-Tick";
+    private static final long SAMPLE_INTERVAL_MS = 10;
+    private static final int MAX_SAMPLES_PER_OVERRUN = 50;
+    private static final int REPORTED_FRAMES = 5;
+
+    // Written by the tick thread, read by the watchdog thread. tickStartNanos is 0 between ticks.
+    private static volatile long tickStartNanos = 0;
+    private static volatile long tickNumber = 0;
+    private static volatile Thread tickThread;
+
+    private static long thresholdNanos;
+    private static long reportIntervalNanos;
+    private static Thread watchdogThread;
+
+    private TickWatchdog() {}
+
+    public static synchronized void startFromEnv() {
+        if (watchdogThread != null) return;
+        long thresholdMs = LobbyConfig.TICK_WATCHDOG_THRESHOLD_MS.get();
+        if (thresholdMs <= 0) {
+            logger.info("TickWatchdog: Disabled.");
+            return;
+        }
+        thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        reportIntervalNanos = LobbyConfig.TICK_WATCHDOG_REPORT_INTERVAL_SECONDS.duration().toNanos();
+
+        MinecraftServer.getSchedulerManager().submitTask(() -> {
+            tickThread = Thread.currentThread();
+            tickNumber++;
+            tickStartNanos = System.nanoTime();
+            return TaskSchedule.nextTick();
+        }, ExecutionType.TICK_START);
+        MinecraftServer.getGlobalEventHandler().addListener(ServerTickMonitorEvent.class, event -> tickStartNanos = 0);
+
+        watchdogThread = new Thread(TickWatchdog::watch, "Tick-Watchdog");
+        watchdogThread.setDaemon(true);
+        watchdogThread.start();
+        logger.info("TickWatchdog: Reporting ticks over {} ms, at most one report every {}s.",
+                thresholdMs, TimeUnit.NANOSECONDS.toSeconds(reportIntervalNanos));
+    }
+
+    private static void watch() {
+        Overrun overrun = null;
+        long lastReport = System.nanoTime() - reportIntervalNanos;
+        long lastSuppressedTick = -1;
+        int suppressed = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(SAMPLE_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            final long start = tickStartNanos;
+            final long tick = tickNumber;
+            final long now = System.nanoTime();
+
+            if (overrun != null && (start == 0 || tick != overrun.tick)) {
+                overrun.report(suppressed);
+                suppressed = 0;
+                lastReport = now;
+                overrun = null;
+            }
+            if (start == 0 || now - start < thresholdNanos) continue;
+
+            if (overrun == null) {
+                if (now - lastReport < reportIntervalNanos) {
+                    // Rate-limited: don't even sample, just count the overrun for the next report
+                    if (tick != lastSuppressedTick) {
+                        lastSuppressedTick = tick;
+                        suppressed++;
+                    }
+                    continue;
+                }
+                overrun = new Overrun(tick, findTickThreads());
+            }
+            overrun.elapsedNanos = now - start;
+            overrun.sample();
+        }
+    }
+
+    private static List<Thread> findTickThreads() {
+        List<Thread> threads = new ArrayList<>();
+        Thread main = tickThread;
+        if (main != null) threads.add(main);
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread != main && thread.getName().startsWith(DISPATCHER_THREAD_PREFIX)) {
+                threads.add(thread);
+            }
+        }
+        return threads;
+    }
+
+    private static final class Overrun {
+        private final long tick;
+        private final List<Thread> threads;
+        private final Map<String, Integer> frameCounts = new HashMap<>();
+        private long elapsedNanos;
+        private int samples;
+
+        private Overrun(long tick, List<Thread> threads) {
+            this.tick = tick;
+            this.threads = threads;
+        }
+
+        private void sample() {
+            if (samples >= MAX_SAMPLES_PER_OVERRUN) return;
+            samples++;
+            for (Thread thread : threads) {
+                Thread.State state = thread.getState();
+                // A parked thread is waiting for other tick threads (or for work), not causing the overrun
+                if (state != Thread.State.RUNNABLE && state != Thread.State.BLOCKED) continue;
+                StackTraceElement[] stack = thread.getStackTrace();
+                if (stack.length == 0) continue;
+                frameCounts.merge(describe(culprit(stack), thread), 1, Integer::sum);
+            }
+        }
+
+        private void report(int suppressed) {
+            List<Map.Entry<String, Integer>> frames = new ArrayList<>(frameCounts.entrySet());
+            frames.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+            StringBuilder builder = new StringBuilder("TickWatchdog: Tick ").append(tick)
+                    .append(" ran for at least ").append(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)).append(" ms (threshold ")
+                    .append(TimeUnit.NANOSECONDS.toMillis(thresholdNanos)).append(" ms), ").append(samples).append(" samples.");
+            if (frames.isEmpty()) {
+                builder.append(" No busy tick thread was caught.");
+            } else {
+                builder.append(" Hot frames:");
+                for (int i = 0; i < Math.min(REPORTED_FRAMES, frames.size()); i++) {
+                    builder.append(' ').append(frames.get(i).getKey()).append(" x").append(frames.get(i).getValue()).append(';');
+                }
+            }
+            if (suppressed > 0) {
+                builder.append(" (").append(suppressed).append(" overruns since the last report were not sampled)");
+            }
+            logger.warn(builder.toString());
+        }
+    }
+
+    /**
+     * The frame to blame: the innermost frame of our own code if there is one, the top of the stack otherwise.
+     * For library frames directly above our code (e.g. MiniMessage parsing), both are named.
+     */
+    private static String culprit(StackTraceElement[] stack) {
+        for (int i = 0; i < stack.length; i++) {
+            if (stack[i].getClassName().startsWith(OWN_PACKAGE)) {
+                String own = frame(stack[i]);
+                return i == 0 ? own : own + " -> " + frame(stack[i - 1]);
+            }
+        }
+        return frame(stack[0]);
+    }
+
+    private static String frame(StackTraceElement element) {
+        String className = element.getClassName();
+        return className.substring(className.lastIndexOf('.') + 1) + "." + element.getMethodName()
+                + "(" + element.getFileName() + ":" + element.getLineNumber() + ")";
+    }
+
+    private static String describe(String frame, Thread thread) {
+        return frame + " [" + thread.getName() + "]";
+    }
+}
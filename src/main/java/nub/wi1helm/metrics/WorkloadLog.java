@@ -0,0 +1,243 @@
+package nub.wi1helm.metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The binary format of a recorded workload, written by {@link WorkloadRecorder} and read back for offline replay.
+ *
+ * The log is a gzip stream: a header (magic, version, start time in epoch milliseconds) followed by entries. Every
+ * entry starts with its type and its timestamp, encoded as the zigzag varint difference in microseconds to the previous
+ * entry. Players are referred to by a small id assigned at join. Repeated strings (paths, response bodies) are written
+ * once and then referred to by their index in a string table that both sides build up the same way.
+ */
+public final class WorkloadLog {
+
+    private static final int MAGIC = 0x4C574B4C; // "LWKL"
+    private static final int VERSION = 1;
+
+    private static final byte TYPE_JOIN = 1;
+    private static final byte TYPE_LEAVE = 2;
+    private static final byte TYPE_POSITION = 3;
+    private static final byte TYPE_BACKEND = 4;
+
+    // String references: 0 = literal (not kept), 1 = new table entry follows, n >= 2 = table entry n - 2
+    private static final int STRING_LITERAL = 0;
+    private static final int STRING_NEW = 1;
+    private static final int STRING_TABLE_LIMIT = 1 << 16;
+    // Longer strings are always written as literals, they rarely repeat and would bloat the table
+    private static final int STRING_TABLE_MAX_LENGTH = 512;
+
+    private WorkloadLog() {}
+
+    /**
+     * An entry of the log, with its time in microseconds since the recording started.
+     */
+    public sealed interface Entry permits Join, Leave, Position, BackendCall {
+        long micros();
+    }
+
+    /**
+     * A player started configuration (and with it, the profile load).
+     */
+    public record Join(long micros, int player, UUID uuid, String username) implements Entry {}
+
+    /**
+     * A player disconnected.
+     */
+    public record Leave(long micros, int player) implements Entry {}
+
+    /**
+     * A player's position as sent by their client.
+     */
+    public record Position(long micros, int player, float x, float y, float z, float yaw, float pitch) implements Entry {}
+
+    /**
+     * A backend response, timestamped when it arrived.
+     *
+     * @param status        The HTTP status, or -1 if the request failed without a response.
+     * @param latencyMicros Time between sending the request and receiving the response.
+     */
+    public record BackendCall(long micros, String service, String method, String path, int status,
+                              long latencyMicros, String body) implements Entry {}
+
+    /**
+     * Encodes entries into a log. Not thread-safe; the recorder writes from a single thread.
+     */
+    static final class Writer implements AutoCloseable {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private long lastMicros;
+
+        Writer(Path path, long startEpochMillis) throws IOException {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            // Sync flush, so a log cut short by a crash is readable up to the last flush
+            this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path), 1 << 16, true), 1 << 16));
+            out.writeInt(MAGIC);
+            writeVarLong(VERSION);
+            out.writeLong(startEpochMillis);
+        }
+
+        void write(Entry entry) throws IOException {
+            switch (entry) {
+                case Join join -> {
+                    header(TYPE_JOIN, join.micros());
+                    writeVarLong(join.player());
+                    out.writeLong(join.uuid().getMostSignificantBits());
+                    out.writeLong(join.uuid().getLeastSignificantBits());
+                    writeString(join.username());
+                }
+                case Leave leave -> {
+                    header(TYPE_LEAVE, leave.micros());
+                    writeVarLong(leave.player());
+                }
+                case Position position -> {
+                    header(TYPE_POSITION, position.micros());
+                    writeVarLong(position.player());
+                    out.writeFloat(position.x());
+                    out.writeFloat(position.y());
+                    out.writeFloat(position.z());
+                    out.writeFloat(position.yaw());
+                    out.writeFloat(position.pitch());
+                }
+                case BackendCall call -> {
+                    header(TYPE_BACKEND, call.micros());
+                    writeString(call.service());
+                    writeString(call.method());
+                    writeString(call.path());
+                    writeVarLong(call.status() + 1L);
+                    writeVarLong(call.latencyMicros());
+                    writeString(call.body());
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        private void header(byte type, long micros) throws IOException {
+            out.writeByte(type);
+            long delta = micros - lastMicros;
+            lastMicros = micros;
+            writeVarLong((delta << 1) ^ (delta >> 63));
+        }
+
+        private void writeString(String value) throws IOException {
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarLong(index + 2L);
+                return;
+            }
+            boolean keep = strings.size() < STRING_TABLE_LIMIT && value.length() <= STRING_TABLE_MAX_LENGTH;
+            writeVarLong(keep ? STRING_NEW : STRING_LITERAL);
+            if (keep) strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * A log read back into memory.
+     *
+     * @param startEpochMillis When the recording started.
+     * @param entries          The entries in recording order.
+     */
+    public record Recording(long startEpochMillis, List<Entry> entries) {}
+
+    /**
+     * Reads a complete log. A log whose end is missing (e.g. after a crash) is read up to the last complete entry.
+     *
+     * @param path The log file.
+     * @return The recording.
+     * @throws IOException if the file can't be read or is not a workload log.
+     */
+    public static Recording read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path), 1 << 16)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a workload log: " + path);
+            long version = readVarLong(in);
+            if (version != VERSION) throw new IOException("Unsupported workload log version " + version);
+            long startEpochMillis = in.readLong();
+
+            List<String> strings = new ArrayList<>();
+            List<Entry> entries = new ArrayList<>();
+            long micros = 0;
+            while (true) {
+                try {
+                    int type = in.read();
+                    if (type < 0) break;
+                    long zigzag = readVarLong(in);
+                    micros += (zigzag >>> 1) ^ -(zigzag & 1);
+                    entries.add(switch (type) {
+                        case TYPE_JOIN -> new Join(micros, (int) readVarLong(in), new UUID(in.readLong(), in.readLong()), readString(in, strings));
+                        case TYPE_LEAVE -> new Leave(micros, (int) readVarLong(in));
+                        case TYPE_POSITION -> new Position(micros, (int) readVarLong(in),
+                                in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat());
+                        case TYPE_BACKEND -> new BackendCall(micros, readString(in, strings), readString(in, strings),
+                                readString(in, strings), (int) (readVarLong(in) - 1), readVarLong(in), readString(in, strings));
+                        default -> throw new IOException("Unknown workload log entry type " + type);
+                    });
+                } catch (EOFException e) {
+                    break; // truncated last entry
+                }
+            }
+            return new Recording(startEpochMillis, entries);
+        } catch (EOFException e) {
+            throw new IOException("Workload log is truncated before its header: " + path, e);
+        }
+    }
+
+    private static String readString(DataInputStream in, List<String> strings) throws IOException {
+        long reference = readVarLong(in);
+        if (reference >= 2) return strings.get((int) (reference - 2));
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        if (reference == STRING_NEW) strings.add(value);
+        return value;
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.read();
+            if (b < 0) throw new EOFException();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+            if (shift > 63) throw new IOException("VarLong too long");
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,185 @@
+package nub.wi1helm.metrics;
+
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.coordinate.Pos;
+import net.minestom.server.event.GlobalEventHandler;
+import net.minestom.server.event.player.AsyncPlayerConfigurationEvent;
+import net.minestom.server.event.player.PlayerDisconnectEvent;
+import net.minestom.server.event.player.PlayerMoveEvent;
+import nub.wi1helm.player.BackendTransport;
+import nub.wi1helm.player.GameService;
+import nub.wi1helm.player.PlayerService;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Records the inputs of a production session into a {@link WorkloadLog}: joins, leaves, player positions and every
+ * backend response, so the session can be replayed offline against a headless server.
+ *
+ * Events are put on a bounded queue and encoded by a writer thread, so recording never blocks a tick or a
+ * configuration thread. If the writer falls behind, entries are dropped and counted rather than buffered without limit.
+ *
+ * Environment variables:
+ * - WORKLOAD_RECORD_PATH: File to record to (recording is off if unset).
+ * - WORKLOAD_RECORD_POSITION_MILLIS: Minimum time between two recorded positions of a player (defaults to 250).
+ */
+public final class WorkloadRecorder {
+
+    private static final int QUEUE_CAPACITY = 1 << 16;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    private static final BlockingQueue<WorkloadLog.Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final Map<UUID, Integer> playerIds = new ConcurrentHashMap<>();
+    private static final Map<UUID, Long> lastPositionMicros = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextPlayerId = new AtomicInteger();
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static volatile boolean recording;
+    private static long startNanos;
+    private static long positionIntervalMicros;
+    private static Thread writerThread;
+
+    private WorkloadRecorder() {}
+
+    /**
+     * Starts recording if WORKLOAD_RECORD_PATH is set. Must be called before the lobby's own configuration listener
+     * is registered, so a join is recorded before the backend calls it causes.
+     */
+    public static synchronized void startFromEnv() {
+        if (recording) return;
+        String path = System.getenv("WORKLOAD_RECORD_PATH");
+        if (path == null || path.isBlank()) return;
+
+        long positionMillis;
+        try {
+            positionMillis = Long.parseLong(System.getenv().getOrDefault("WORKLOAD_RECORD_POSITION_MILLIS", "250").trim());
+        } catch (NumberFormatException e) {
+            logger.warn("WorkloadRecorder: Invalid WORKLOAD_RECORD_POSITION_MILLIS '{}'. Using default: 250.", System.getenv("WORKLOAD_RECORD_POSITION_MILLIS"));
+            positionMillis = 250;
+        }
+        positionIntervalMicros = TimeUnit.MILLISECONDS.toMicros(Math.max(0, positionMillis));
+
+        WorkloadLog.Writer writer;
+        try {
+            writer = new WorkloadLog.Writer(Path.of(path), System.currentTimeMillis());
+        } catch (IOException e) {
+            logger.error("WorkloadRecorder: Could not open {}: {}. Recording disabled.", path, e.getMessage());
+            return;
+        }
+        startNanos = System.nanoTime();
+        recording = true;
+
+        writerThread = new Thread(() -> writeLoop(writer), "Workload-Recorder");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        GlobalEventHandler globalEventHandler = MinecraftServer.getGlobalEventHandler();
+        globalEventHandler.addListener(AsyncPlayerConfigurationEvent.class, event -> {
+            UUID uuid = event.getPlayer().getUuid();
+            int id = nextPlayerId.getAndIncrement();
+            playerIds.put(uuid, id);
+            offer(new WorkloadLog.Join(now(), id, uuid, event.getPlayer().getUsername()));
+        });
+        globalEventHandler.addListener(PlayerDisconnectEvent.class, event -> {
+            UUID uuid = event.getPlayer().getUuid();
+            Integer id = playerIds.remove(uuid);
+            lastPositionMicros.remove(uuid);
+            if (id != null) offer(new WorkloadLog.Leave(now(), id));
+        });
+        globalEventHandler.addListener(PlayerMoveEvent.class, event -> {
+            UUID uuid = event.getPlayer().getUuid();
+            Integer id = playerIds.get(uuid);
+            if (id == null) return;
+            long micros = now();
+            Long last = lastPositionMicros.get(uuid);
+            if (last != null && micros - last < positionIntervalMicros) return;
+            lastPositionMicros.put(uuid, micros);
+            Pos pos = event.getNewPosition();
+            offer(new WorkloadLog.Position(micros, id, (float) pos.x(), (float) pos.y(), (float) pos.z(), pos.yaw(), pos.pitch()));
+        });
+
+        PlayerService playerService = PlayerService.getInstance();
+        playerService.setTransport(recording("player-service", playerService.getTransport()));
+        GameService gameService = GameService.getInstance();
+        gameService.setTransport(recording("game-service", gameService.getTransport()));
+
+        logger.info("WorkloadRecorder: Recording joins, leaves, positions (every {} ms at most) and backend responses to {}.", positionMillis, path);
+    }
+
+    /**
+     * Stops recording and closes the log.
+     */
+    public static synchronized void stop() {
+        if (!recording) return;
+        recording = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("WorkloadRecorder: Stopped. {} entries were dropped because the writer fell behind.", dropped.get());
+    }
+
+    public static long getDropped() {
+        return dropped.get();
+    }
+
+    private static BackendTransport recording(String service, BackendTransport delegate) {
+        return request -> {
+            long sent = now();
+            return delegate.send(request).whenComplete((response, ex) -> {
+                if (!recording) return;
+                long received = now();
+                offer(new WorkloadLog.BackendCall(received, service, request.method(), pathOf(request),
+                        response != null ? response.statusCode() : -1, received - sent,
+                        response != null ? response.body() : String.valueOf(ex)));
+            });
+        };
+    }
+
+    private static String pathOf(HttpRequest request) {
+        String query = request.uri().getRawQuery();
+        return query == null ? request.uri().getRawPath() : request.uri().getRawPath() + "?" + query;
+    }
+
+    private static void offer(WorkloadLog.Entry entry) {
+        if (recording && !queue.offer(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    }
+
+    private static void writeLoop(WorkloadLog.Writer writer) {
+        long lastFlush = System.nanoTime();
+        try (writer) {
+            while (recording || !queue.isEmpty()) {
+                WorkloadLog.Entry entry = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (entry != null) writer.write(entry);
+                if (System.nanoTime() - lastFlush >= TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS)) {
+                    writer.flush();
+                    lastFlush = System.nanoTime();
+                }
+            }
+        } catch (IOException e) {
+            recording = false;
+            logger.error("WorkloadRecorder: Writing the workload log failed, recording stopped: {}", e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
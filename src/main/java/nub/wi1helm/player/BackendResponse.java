@@ -0,0 +1,9 @@
+package nub.wi1helm.player;
+
+/**
+ * The parts of a backend HTTP response the service clients look at.
+ *
+ * @param statusCode The HTTP status code.
+ * @param body       The response body.
+ */
+public record BackendResponse(int statusCode, String body) {}
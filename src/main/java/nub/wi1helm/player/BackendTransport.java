@@ -0,0 +1,47 @@
+package nub.wi1helm.player;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the backend requests of {@link PlayerService} and {@link GameService}.
+ *
+ * The services build their requests as usual but hand them to a transport instead of an {@link HttpClient}, so the
+ * transport can be swapped: {@link #http(HttpClient)} in production, {@link FaultInjectingTransport} around it to
+ * reproduce latency and failures, or an in-process stand-in (see {@code PlayerService.setTransport}) for
+ * performance tests that should not depend on a network or real services.
+ */
+@FunctionalInterface
+public interface BackendTransport {
+
+    /**
+     * Sends a request.
+     *
+     * @param request The request, including its timeout.
+     * @return A CompletableFuture that completes with the response, or exceptionally like {@link HttpClient#sendAsync}.
+     */
+    CompletableFuture<BackendResponse> send(HttpRequest request);
+
+    /**
+     * @param httpClient The client to send the requests with.
+     * @return A transport that sends requests over HTTP.
+     */
+    static BackendTransport http(HttpClient httpClient) {
+        return request -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> new BackendResponse(response.statusCode(), response.body()));
+    }
+
+    /**
+     * Wraps a transport in fault injection if any fault environment variables are set for the service.
+     *
+     * @param envPrefix The service's environment variable prefix, e.g. "PLAYER_SERVICE".
+     * @param transport The transport to wrap.
+     * @return The transport, or a {@link FaultInjectingTransport} around it.
+     */
+    static BackendTransport fromEnv(String envPrefix, BackendTransport transport) {
+        FaultInjectingTransport.FaultProfile profile = FaultInjectingTransport.FaultProfile.fromEnv(envPrefix);
+        return profile == null ? transport : new FaultInjectingTransport(transport, profile);
+    }
+}
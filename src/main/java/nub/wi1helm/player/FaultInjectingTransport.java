@@ -0,0 +1,224 @@
+package nub.wi1helm.player;
+
+import java.net.ConnectException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Wraps a {@link BackendTransport} and injects latency and failures, to reproduce join storms and brownouts.
+ *
+ * Every request first waits for a latency drawn from the configured distribution, then either fails in one of the
+ * configured ways or is passed on to the wrapped transport. Faults are drawn from a random generator seeded with the
+ * profile's seed, the request's method and URI, and how often that method and URI have been sent before. The n-th
+ * attempt of a request therefore always gets the same fault, however the requests of a run interleave, which makes a
+ * run repeatable. The attempt counters grow with the number of distinct URIs, so this is meant for test runs.
+ *
+ * Environment variables (with the service's prefix, e.g. PLAYER_SERVICE_FAULT_LATENCY):
+ * - FAULT_LATENCY: "fixed:MS", "uniform:MIN_MS:MAX_MS", "exponential:MEAN_MS" or "lognormal:MEDIAN_MS:SIGMA".
+ * - FAULT_ERROR_RATE: Share of requests that fail with a connection error.
+ * - FAULT_SERVER_ERROR_RATE: Share of requests answered with 503.
+ * - FAULT_NOT_FOUND_RATE: Share of requests answered with 404.
+ * - FAULT_CONFLICT_RATE: Share of requests answered with 409.
+ * - FAULT_STALL_RATE: Share of requests that never get an answer and time out after the request's timeout.
+ * - FAULT_SEED: Seed for the fault decisions (defaults to 1).
+ * Fault injection is enabled if any of the rates or the latency is set.
+ */
+public class FaultInjectingTransport implements BackendTransport {
+
+    // Used for stalls when a request carries no timeout of its own
+    private static final long DEFAULT_STALL_MILLIS = 30_000;
+    private static final String INJECTED_BODY = "{\"error\":\"injected fault\"}";
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Backend-Fault-Injection");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * The outcomes a request can be given.
+     */
+    public enum Fault { NONE, STALL, CONNECT_ERROR, SERVER_ERROR, NOT_FOUND, CONFLICT }
+
+    /**
+     * A latency distribution in milliseconds.
+     *
+     * @param kind One of none, fixed, uniform, exponential, lognormal.
+     * @param a    Fixed value, minimum, mean or median, depending on the kind.
+     * @param b    Maximum for uniform, sigma for lognormal; unused otherwise.
+     */
+    public record Latency(String kind, double a, double b) {
+
+        public static final Latency NONE = new Latency("none", 0, 0);
+
+        /**
+         * @param spec A latency spec like "lognormal:40:0.8".
+         * @return The parsed distribution.
+         * @throws IllegalArgumentException if the spec is malformed.
+         */
+        public static Latency parse(String spec) {
+            if (spec == null || spec.isBlank() || spec.equalsIgnoreCase("none")) return NONE;
+            String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+            try {
+                return switch (parts[0]) {
+                    case "fixed", "exponential" -> new Latency(parts[0], Double.parseDouble(parts[1]), 0);
+                    case "uniform", "lognormal" -> new Latency(parts[0], Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                    default -> throw new IllegalArgumentException("Unknown latency distribution: " + parts[0]);
+                };
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed latency spec: " + spec, e);
+            }
+        }
+
+        long sampleMillis(SplittableRandom random) {
+            double millis = switch (kind) {
+                case "fixed" -> a;
+                case "uniform" -> a + random.nextDouble() * (b - a);
+                case "exponential" -> -a * Math.log(1.0 - random.nextDouble());
+                case "lognormal" -> a * Math.exp(b * gaussian(random));
+                default -> 0;
+            };
+            return Math.max(0, Math.round(millis));
+        }
+
+        private static double gaussian(SplittableRandom random) {
+            // Box-Muller, so the draw only depends on the seeded generator
+            double u1 = 1.0 - random.nextDouble();
+            double u2 = random.nextDouble();
+            return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+        }
+    }
+
+    /**
+     * What to inject. The rates are shares of all requests and must add up to at most 1.
+     *
+     * @param latency         Latency added to every request.
+     * @param errorRate       Share of requests failing with a connection error.
+     * @param serverErrorRate Share of requests answered with 503.
+     * @param notFoundRate    Share of requests answered with 404.
+     * @param conflictRate    Share of requests answered with 409.
+     * @param stallRate       Share of requests that time out.
+     * @param seed            Seed for the fault decisions.
+     */
+    public record FaultProfile(Latency latency, double errorRate, double serverErrorRate, double notFoundRate,
+                               double conflictRate, double stallRate, long seed) {
+
+        public FaultProfile {
+            double total = errorRate + serverErrorRate + notFoundRate + conflictRate + stallRate;
+            if (errorRate < 0 || serverErrorRate < 0 || notFoundRate < 0 || conflictRate < 0 || stallRate < 0 || total > 1.0) {
+                throw new IllegalArgumentException("Fault rates must be non-negative and add up to at most 1, got " + total);
+            }
+        }
+
+        /**
+         * Reads a profile from the environment.
+         *
+         * @param envPrefix The service's environment variable prefix, e.g. "PLAYER_SERVICE".
+         * @return The profile, or null if no fault variables are set for the service.
+         */
+        static FaultProfile fromEnv(String envPrefix) {
+            Map<String, String> env = System.getenv();
+            String prefix = envPrefix + "_FAULT_";
+            boolean configured = env.keySet().stream().anyMatch(name -> name.startsWith(prefix) && !name.equals(prefix + "SEED"));
+            if (!configured) return null;
+
+            try {
+                FaultProfile profile = new FaultProfile(
+                        Latency.parse(env.get(prefix + "LATENCY")),
+                        Double.parseDouble(env.getOrDefault(prefix + "ERROR_RATE", "0")),
+                        Double.parseDouble(env.getOrDefault(prefix + "SERVER_ERROR_RATE", "0")),
+                        Double.parseDouble(env.getOrDefault(prefix + "NOT_FOUND_RATE", "0")),
+                        Double.parseDouble(env.getOrDefault(prefix + "CONFLICT_RATE", "0")),
+                        Double.parseDouble(env.getOrDefault(prefix + "STALL_RATE", "0")),
+                        Long.parseLong(env.getOrDefault(prefix + "SEED", "1")));
+                logger.warn("FaultInjectingTransport: Injecting faults into {} requests: {}", envPrefix, profile);
+                return profile;
+            } catch (IllegalArgumentException e) {
+                logger.error("FaultInjectingTransport: Invalid {}* configuration, fault injection disabled: {}", prefix, e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private final BackendTransport delegate;
+    private final FaultProfile profile;
+    private final Map<String, AtomicLong> attempts = new ConcurrentHashMap<>();
+    private final Map<Fault, LongAdder> injected = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate The transport that handles requests which are not failed.
+     * @param profile  What to inject.
+     */
+    public FaultInjectingTransport(BackendTransport delegate, FaultProfile profile) {
+        this.delegate = delegate;
+        this.profile = profile;
+    }
+
+    @Override
+    public CompletableFuture<BackendResponse> send(HttpRequest request) {
+        String key = request.method() + " " + request.uri();
+        long attempt = attempts.computeIfAbsent(key, k -> new AtomicLong()).getAndIncrement();
+        SplittableRandom random = new SplittableRandom(profile.seed() * 0x9E3779B97F4A7C15L + key.hashCode() * 1_000_003L + attempt);
+
+        Fault fault = drawFault(random.nextDouble());
+        long delayMillis = profile.latency().sampleMillis(random);
+        injected.computeIfAbsent(fault, f -> new LongAdder()).increment();
+
+        CompletableFuture<BackendResponse> result = new CompletableFuture<>();
+        if (fault == Fault.STALL) {
+            long timeoutMillis = request.timeout().map(Duration::toMillis).orElse(DEFAULT_STALL_MILLIS);
+            timer.schedule(() -> result.completeExceptionally(new HttpTimeoutException("request timed out (injected stall)")),
+                    timeoutMillis, TimeUnit.MILLISECONDS);
+            return result;
+        }
+
+        timer.schedule(() -> {
+            switch (fault) {
+                case CONNECT_ERROR -> result.completeExceptionally(new ConnectException("Connection refused (injected)"));
+                case SERVER_ERROR -> result.complete(new BackendResponse(503, INJECTED_BODY));
+                case NOT_FOUND -> result.complete(new BackendResponse(404, INJECTED_BODY));
+                case CONFLICT -> result.complete(new BackendResponse(409, INJECTED_BODY));
+                default -> delegate.send(request).whenComplete((response, ex) -> {
+                    if (ex != null) result.completeExceptionally(ex);
+                    else result.complete(response);
+                });
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    private Fault drawFault(double roll) {
+        if ((roll -= profile.stallRate()) < 0) return Fault.STALL;
+        if ((roll -= profile.errorRate()) < 0) return Fault.CONNECT_ERROR;
+        if ((roll -= profile.serverErrorRate()) < 0) return Fault.SERVER_ERROR;
+        if ((roll -= profile.notFoundRate()) < 0) return Fault.NOT_FOUND;
+        if (roll - profile.conflictRate() < 0) return Fault.CONFLICT;
+        return Fault.NONE;
+    }
+
+    /**
+     * @param fault The outcome to look up.
+     * @return How many requests were given the outcome so far.
+     */
+    public long injectedCount(Fault fault) {
+        LongAdder count = injected.get(fault);
+        return count == null ? 0 : count.sum();
+    }
+
+    public FaultProfile getProfile() {
+        return profile;
+    }
+}
@@ -4,11 +4,14 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 
+import nub.wi1helm.config.LobbyConfig;
+import nub.wi1helm.metrics.GameServiceCallEvent;
+import nub.wi1helm.metrics.Metrics;
+
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import static nub.wi1helm.Main.logger; // Assuming this imports your logger
@@ -19,16 +22,21 @@ public class GameService {
     private static final Object lock = new Object();
 
     // Base URL for your Go Game Service
-    private static final String GAME_SERVICE_BASE_URL = "http://game-service:8082";
+    // GAME_SERVICE_URL overrides the in-cluster address (e.g. for the load test's stand-in backends)
+    private static final String GAME_SERVICE_BASE_URL = System.getenv().getOrDefault("GAME_SERVICE_URL", "http://game-service:8082");
+    private static final String SERVICE_NAME = "game-service";
 
     private final HttpClient httpClient;
+    // Sends the requests; HTTP in production, swappable for load tests and fault injection
+    private volatile BackendTransport transport;
     private final Gson gson;
 
     private GameService() {
         this.httpClient = HttpClient.newBuilder()
                 .version(HttpClient.Version.HTTP_1_1)
-                .connectTimeout(Duration.ofSeconds(5))
+                .connectTimeout(LobbyConfig.HTTP_CONNECT_TIMEOUT_MILLIS.duration())
                 .build();
+        this.transport = BackendTransport.fromEnv("GAME_SERVICE", BackendTransport.http(httpClient));
         this.gson = new GsonBuilder().create();
     }
 
@@ -73,6 +81,23 @@ public class GameService {
         public boolean isOnline() { return isOnline; }
     }
 
+    // --- Response decoding ---
+
+    double decodePlaytime(String body) {
+        PlaytimeResponse apiResponse = gson.fromJson(body, PlaytimeResponse.class);
+        return apiResponse != null ? apiResponse.getPlaytime() : 0.0;
+    }
+
+    double decodeDeltaPlaytime(String body) {
+        DeltaPlaytimeResponse apiResponse = gson.fromJson(body, DeltaPlaytimeResponse.class);
+        return apiResponse != null ? apiResponse.getDeltatime() : 0.0;
+    }
+
+    double decodeTeamPlaytime(String body) {
+        TeamTotalPlaytimeResponse apiResponse = gson.fromJson(body, TeamTotalPlaytimeResponse.class);
+        return apiResponse != null ? apiResponse.getTotalPlaytime() : 0.0;
+    }
+
     // --- API Methods Reflecting Go Endpoints ---
 
     /**
@@ -87,10 +112,17 @@ public class GameService {
                 .uri(URI.create(GAME_SERVICE_BASE_URL + "/game/player/" + uuid + "/playtime"))
                 .GET()
                 .header("Accept", "application/json")
-                .timeout(Duration.ofSeconds(8))
+                .timeout(LobbyConfig.HTTP_REQUEST_TIMEOUT_MILLIS.duration())
                 .build();
 
-        return httpClient.sendAsync(getRequest, HttpResponse.BodyHandlers.ofString())
+        final GameServiceCallEvent callEvent = GameServiceCallEvent.start("player_playtime", uuid);
+        final long requestStart = System.nanoTime();
+        return transport.send(getRequest)
+                .whenComplete((response, ex) -> {
+                    int status = response != null ? response.statusCode() : Metrics.STATUS_ERROR;
+                    Metrics.recordHttp(SERVICE_NAME, "player_playtime", status, System.nanoTime() - requestStart);
+                    callEvent.complete(status);
+                })
                 .thenApply(response -> {
                     if (response.statusCode() == 404) {
                         logger.info("GameService: Total playtime not found for {}. Returning 0.0.", uuid);
@@ -103,8 +135,7 @@ public class GameService {
                     }
 
                     try {
-                        PlaytimeResponse apiResponse = gson.fromJson(response.body(), PlaytimeResponse.class);
-                        return apiResponse != null ? apiResponse.getPlaytime() : 0.0;
+                        return decodePlaytime(response.body());
                     } catch (JsonSyntaxException e) {
                         logger.error("GameService: Failed to parse player total playtime JSON for {}: {}", uuid, e.getMessage());
                         return 0.0;
@@ -128,10 +159,17 @@ public class GameService {
                 .uri(URI.create(GAME_SERVICE_BASE_URL + "/game/player/" + uuid + "/deltatime"))
                 .GET()
                 .header("Accept", "application/json")
-                .timeout(Duration.ofSeconds(8))
+                .timeout(LobbyConfig.HTTP_REQUEST_TIMEOUT_MILLIS.duration())
                 .build();
 
-        return httpClient.sendAsync(getRequest, HttpResponse.BodyHandlers.ofString())
+        final GameServiceCallEvent callEvent = GameServiceCallEvent.start("player_deltatime", uuid);
+        final long requestStart = System.nanoTime();
+        return transport.send(getRequest)
+                .whenComplete((response, ex) -> {
+                    int status = response != null ? response.statusCode() : Metrics.STATUS_ERROR;
+                    Metrics.recordHttp(SERVICE_NAME, "player_deltatime", status, System.nanoTime() - requestStart);
+                    callEvent.complete(status);
+                })
                 .thenApply(response -> {
                     if (response.statusCode() == 404) {
                         logger.info("GameService: Delta playtime not found for {}. Returning 0.0.", uuid);
@@ -144,8 +182,7 @@ public class GameService {
                     }
 
                     try {
-                        DeltaPlaytimeResponse apiResponse = gson.fromJson(response.body(), DeltaPlaytimeResponse.class);
-                        return apiResponse != null ? apiResponse.getDeltatime() : 0.0;
+                        return decodeDeltaPlaytime(response.body());
                     } catch (JsonSyntaxException e) {
                         logger.error("GameService: Failed to parse player delta playtime JSON for {}: {}", uuid, e.getMessage());
                         return 0.0;
@@ -169,10 +206,17 @@ public class GameService {
                 .uri(URI.create(GAME_SERVICE_BASE_URL + "/game/team/" + teamId + "/playtime"))
                 .GET()
                 .header("Accept", "application/json")
-                .timeout(Duration.ofSeconds(8))
+                .timeout(LobbyConfig.HTTP_REQUEST_TIMEOUT_MILLIS.duration())
                 .build();
 
-        return httpClient.sendAsync(getRequest, HttpResponse.BodyHandlers.ofString())
+        final GameServiceCallEvent callEvent = GameServiceCallEvent.start("team_playtime", teamId);
+        final long requestStart = System.nanoTime();
+        return transport.send(getRequest)
+                .whenComplete((response, ex) -> {
+                    int status = response != null ? response.statusCode() : Metrics.STATUS_ERROR;
+                    Metrics.recordHttp(SERVICE_NAME, "team_playtime", status, System.nanoTime() - requestStart);
+                    callEvent.complete(status);
+                })
                 .thenApply(response -> {
                     if (response.statusCode() == 404) {
                         logger.info("GameService: Team playtime not found for team {}. Returning 0.0.", teamId);
@@ -185,8 +229,7 @@ public class GameService {
                     }
 
                     try {
-                        TeamTotalPlaytimeResponse apiResponse = gson.fromJson(response.body(), TeamTotalPlaytimeResponse.class);
-                        return apiResponse != null ? apiResponse.getTotalPlaytime() : 0.0;
+                        return decodeTeamPlaytime(response.body());
                     } catch (JsonSyntaxException e) {
                         logger.error("GameService: Failed to parse team playtime JSON for team {}: {}", teamId, e.getMessage());
                         return 0.0;
@@ -198,12 +241,78 @@ public class GameService {
                 });
     }
 
+    // Body of the playtime batch write, see postPlaytimeBatch
+    private static class PlaytimeBatchRequest {
+        private final String batchId;
+        private final Map<String, Double> increments; // player UUID -> ticks
+        PlaytimeBatchRequest(String batchId, Map<String, Double> increments) {
+            this.batchId = batchId;
+            this.increments = increments;
+        }
+    }
+
+    /**
+     * Adds locally accrued playtime for several players to their totals in one request.
+     * Corresponds to Go endpoint: `POST /game/playtime/batch`
+     *
+     * The batch id doubles as the idempotency key: game-service applies a batch id at most once, so a batch whose
+     * response was lost can be sent again safely.
+     *
+     * @param batchId    Unique id of this batch.
+     * @param increments Playtime ticks to add, by player UUID.
+     * @return A CompletableFuture that completes with true if game-service accepted (or had already applied) the batch.
+     */
+    public CompletableFuture<Boolean> postPlaytimeBatch(String batchId, Map<String, Double> increments) {
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create(GAME_SERVICE_BASE_URL + "/game/playtime/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(new PlaytimeBatchRequest(batchId, increments))))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", batchId)
+                .timeout(LobbyConfig.HTTP_REQUEST_TIMEOUT_MILLIS.duration())
+                .build();
+
+        final GameServiceCallEvent callEvent = GameServiceCallEvent.start("playtime_batch", batchId);
+        final long requestStart = System.nanoTime();
+        return transport.send(postRequest)
+                .whenComplete((response, ex) -> {
+                    int status = response != null ? response.statusCode() : Metrics.STATUS_ERROR;
+                    Metrics.recordHttp(SERVICE_NAME, "playtime_batch", status, System.nanoTime() - requestStart);
+                    callEvent.complete(status);
+                })
+                .thenApply(response -> {
+                    // 409: this batch id has been applied before
+                    if (response.statusCode() / 100 == 2 || response.statusCode() == 409) {
+                        return true;
+                    }
+                    logger.error("GameService: Unexpected response status {} for playtime batch {}: {}",
+                            response.statusCode(), batchId, response.body());
+                    return false;
+                })
+                .exceptionally(ex -> {
+                    logger.error("GameService: HTTP request failed for playtime batch {}: {}", batchId, ex.getMessage());
+                    return false;
+                });
+    }
+
     // DTO for PlayerUUIDRequest
     private static class PlayerUUIDRequest {
         private String uuid;
         public PlayerUUIDRequest(String uuid) { this.uuid = uuid; }
     }
 
+    /**
+     * Replaces how requests are sent, e.g. with an in-process stand-in or a {@link FaultInjectingTransport}.
+     *
+     * @param transport The transport to use for all following requests.
+     */
+    public void setTransport(BackendTransport transport) {
+        this.transport = transport;
+    }
+
+    public BackendTransport getTransport() {
+        return transport;
+    }
+
     // Method to gracefully shutdown the HttpClient when needed
     public void shutdown() {
         logger.info("GameService: Shutdown requested");
@@ -2,6 +2,9 @@
 package nub.wi1helm.player;
 
 import com.google.gson.*;
+import nub.wi1helm.config.LobbyConfig;
+import nub.wi1helm.metrics.Metrics;
+import nub.wi1helm.metrics.ProfileLoadEvent;
 import nub.wi1helm.server.ServerProfile;
 import nub.wi1helm.server.ServerTeam;
 import org.jetbrains.annotations.NotNull;
@@ -10,8 +13,6 @@ import java.net.ConnectException; // Import ConnectException
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
 
@@ -23,17 +24,22 @@ public class PlayerService {
     private static volatile PlayerService instance;
     private static final Object lock = new Object();
 
-    private static final String BASE_URL = "http://player-service:8081";
+    // PLAYER_SERVICE_URL overrides the in-cluster address (e.g. for the load test's stand-in backends)
+    private static final String BASE_URL = System.getenv().getOrDefault("PLAYER_SERVICE_URL", "http://player-service:8081");
+    private static final String SERVICE_NAME = "player-service";
 
     private final HttpClient httpClient;
+    // Sends the requests; HTTP in production, swappable for load tests and fault injection
+    private volatile BackendTransport transport;
     private final Gson gson;
 
     // Private constructor to prevent direct instantiation
     private PlayerService() {
         this.httpClient = HttpClient.newBuilder()
                 .version(HttpClient.Version.HTTP_1_1)
-                .connectTimeout(Duration.ofSeconds(5))
+                .connectTimeout(LobbyConfig.HTTP_CONNECT_TIMEOUT_MILLIS.duration())
                 .build();
+        this.transport = BackendTransport.fromEnv("PLAYER_SERVICE", BackendTransport.http(httpClient));
 
         this.gson = new GsonBuilder()
                 .registerTypeAdapter(Instant.class, (JsonSerializer<Instant>) (src, typeOfSrc, context) -> {
@@ -61,7 +67,8 @@ public class PlayerService {
     }
 
     public CompletableFuture<ServerProfile> loadPlayerProfile(@NotNull String uuid, @NotNull String username) {
-        return getPlayerProfile(uuid, username)
+        final ProfileLoadEvent loadEvent = ProfileLoadEvent.start(uuid, ProfileLoadEvent.STAGE_TOTAL);
+        return getPlayerProfile(uuid, username, ProfileLoadEvent.STAGE_GET)
                 .thenCompose(profileWithStatus -> {
                     if (profileWithStatus.profile != null) {
                         logger.info("PlayerService: Loaded existing player data for {}.", username);
@@ -70,24 +77,15 @@ public class PlayerService {
 
                     logger.info("PlayerService: Player profile not found for {}. Attempting to create.", username);
                     return createPlayerProfile(uuid)
-                            .thenCompose(createdProfile -> {
-                                if (createdProfile != null) {
+                            .thenCompose(createdWithStatus -> {
+                                if (createdWithStatus.profile != null) {
                                     logger.info("PlayerService: Player profile newly created for {}.", username);
-                                    createdProfile.setFirstJoin(true);
-                                    return CompletableFuture.completedFuture(createdProfile);
-                                } else {
-                                    logger.warn("PlayerService: Failed to create profile for {}. Returning null.", username);
-                                    return CompletableFuture.completedFuture(null);
+                                    return CompletableFuture.completedFuture(createdWithStatus.profile.withFirstJoin(true));
                                 }
-                            })
-                            .exceptionallyCompose(ex -> {
-                                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
-                                String errorMessage = cause.getClass().getName() + ": " + (cause.getMessage() != null ? cause.getMessage() : "No message");
-                                if (cause instanceof ConnectException) {
-                                    logger.error("PlayerService: CONNECTION REFUSED during profile creation for {}. Check player-service availability at {}: {}", username, BASE_URL, errorMessage);
-                                } else if (cause != null && cause.getMessage() != null && cause.getMessage().contains("409 Conflict")) {
+                                if (createdWithStatus.statusCode == 409) {
+                                    // Another request (typically a reconnect or a second pod during a join storm) created it first
                                     logger.warn("PlayerService: Race condition detected for {}. Profile already exists, retrying GET.", username);
-                                    return getPlayerProfile(uuid, username)
+                                    return getPlayerProfile(uuid, username, ProfileLoadEvent.STAGE_CONFLICT_RETRY)
                                             .thenApply(retryProfileWithStatus -> {
                                                 if (retryProfileWithStatus.profile != null) {
                                                     logger.info("PlayerService: Successfully retrieved profile for {} after conflict.", username);
@@ -98,7 +96,7 @@ public class PlayerService {
                                                 }
                                             });
                                 }
-                                logger.error("PlayerService: Unexpected error during profile creation for {}: {}", username, errorMessage);
+                                logger.warn("PlayerService: Failed to create profile for {}. Returning null.", username);
                                 return CompletableFuture.completedFuture(null);
                             });
                 })
@@ -111,7 +109,8 @@ public class PlayerService {
                         logger.error("PlayerService: Failed to load/create player profile for {}: {}", username, errorMessage);
                     }
                     return null; // Return null instead of throwing
-                });
+                })
+                .whenComplete((profile, ex) -> loadEvent.complete(0, profile != null));
     }
 
     private static class ProfileStatus {
@@ -124,15 +123,22 @@ public class PlayerService {
         }
     }
 
-    private CompletableFuture<ProfileStatus> getPlayerProfile(@NotNull String uuid, @NotNull String username) {
+    private CompletableFuture<ProfileStatus> getPlayerProfile(@NotNull String uuid, @NotNull String username, @NotNull String stage) {
         HttpRequest getRequest = HttpRequest.newBuilder()
                 .uri(URI.create(BASE_URL + "/profiles/" + uuid))
                 .GET()
                 .header("Accept", "application/json")
-                .timeout(Duration.ofSeconds(8))
+                .timeout(LobbyConfig.HTTP_REQUEST_TIMEOUT_MILLIS.duration())
                 .build();
 
-        return httpClient.sendAsync(getRequest, HttpResponse.BodyHandlers.ofString())
+        final ProfileLoadEvent stageEvent = ProfileLoadEvent.start(uuid, stage);
+        final long requestStart = System.nanoTime();
+        return transport.send(getRequest)
+                .whenComplete((response, ex) -> {
+                    int status = response != null ? response.statusCode() : Metrics.STATUS_ERROR;
+                    Metrics.recordHttp(SERVICE_NAME, "get_profile", status, System.nanoTime() - requestStart);
+                    stageEvent.complete(status, status == 200 || status == 404);
+                })
                 .thenApply(response -> {
                     logger.debug("PlayerService (GET): Received HTTP response for {}. Status: {}, Body: {}", username, response.statusCode(), response.body());
 
@@ -150,11 +156,7 @@ public class PlayerService {
                         return new ProfileStatus(null, response.statusCode());
                     }
 
-                    ServerProfile profile = createServerProfile(apiResponse);
-                    if (profile != null) {
-                        profile.setFirstJoin(false);
-                    }
-                    return new ProfileStatus(profile, response.statusCode());
+                    return new ProfileStatus(createServerProfile(apiResponse), response.statusCode());
                 })
                 .exceptionally(ex -> {
                     Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
@@ -168,7 +170,7 @@ public class PlayerService {
                 });
     }
 
-    private CompletableFuture<ServerProfile> createPlayerProfile(@NotNull String uuid) {
+    private CompletableFuture<ProfileStatus> createPlayerProfile(@NotNull String uuid) {
         JsonObject requestBody = new JsonObject();
         requestBody.addProperty("uuid", uuid);
 
@@ -177,28 +179,35 @@ public class PlayerService {
                 .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(requestBody)))
                 .header("Content-Type", "application/json")
                 .header("Accept", "application/json")
-                .timeout(Duration.ofSeconds(8))
+                .timeout(LobbyConfig.HTTP_REQUEST_TIMEOUT_MILLIS.duration())
                 .build();
 
-        return httpClient.sendAsync(postRequest, HttpResponse.BodyHandlers.ofString())
+        final ProfileLoadEvent stageEvent = ProfileLoadEvent.start(uuid, ProfileLoadEvent.STAGE_POST);
+        final long requestStart = System.nanoTime();
+        return transport.send(postRequest)
+                .whenComplete((response, ex) -> {
+                    int status = response != null ? response.statusCode() : Metrics.STATUS_ERROR;
+                    Metrics.recordHttp(SERVICE_NAME, "create_profile", status, System.nanoTime() - requestStart);
+                    stageEvent.complete(status, status == 201);
+                })
                 .thenApply(response -> {
                     logger.debug("PlayerService (POST): Received HTTP response for {}. Status: {}, Body: {}", uuid, response.statusCode(), response.body());
 
                     if (response.statusCode() == 409) {
                         logger.warn("PlayerService (POST): Profile already exists for {}", uuid);
-                        return null; // Will trigger race condition handling in parent method
+                        return new ProfileStatus(null, response.statusCode()); // Triggers the conflict retry in loadPlayerProfile
                     }
                     if (response.statusCode() != 201) {
                         logger.error("PlayerService (POST): Unexpected response status {} for {}: {}", response.statusCode(), uuid, response.body());
-                        return null;
+                        return new ProfileStatus(null, response.statusCode());
                     }
 
                     PlayerApiResponse apiResponse = parseApiResponse(response.body(), uuid);
                     if (apiResponse == null) {
-                        return null;
+                        return new ProfileStatus(null, response.statusCode());
                     }
 
-                    return createServerProfile(apiResponse);
+                    return new ProfileStatus(createServerProfile(apiResponse), response.statusCode());
                 })
                 .exceptionally(ex -> {
                     Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
@@ -208,11 +217,11 @@ public class PlayerService {
                     } else {
                         logger.error("PlayerService (POST): HTTP request failed for {}: {}", uuid, errorMessage);
                     }
-                    return null;
+                    return new ProfileStatus(null, 0);
                 });
     }
 
-    private PlayerApiResponse parseApiResponse(String jsonBody, String identifier) {
+    PlayerApiResponse parseApiResponse(String jsonBody, String identifier) {
         try {
             return gson.fromJson(jsonBody, PlayerApiResponse.class);
         } catch (JsonSyntaxException e) {
@@ -232,7 +241,8 @@ public class PlayerService {
                     apiResponse.getBanExpiresAt(),
                     ServerTeam.fromString(apiResponse.getTeam()),
                     apiResponse.getLastLoginAt(),
-                    apiResponse.getCreatedAt()
+                    apiResponse.getCreatedAt(),
+                    false // set by loadPlayerProfile once it knows whether the profile was just created
             );
         } catch (Exception e) {
             logger.error("PlayerService: Failed to create ServerProfile: {}", e.getMessage());
@@ -240,6 +250,19 @@ public class PlayerService {
         }
     }
 
+    /**
+     * Replaces how requests are sent, e.g. with an in-process stand-in or a {@link FaultInjectingTransport}.
+     *
+     * @param transport The transport to use for all following requests.
+     */
+    public void setTransport(BackendTransport transport) {
+        this.transport = transport;
+    }
+
+    public BackendTransport getTransport() {
+        return transport;
+    }
+
     // Method to gracefully shutdown the HttpClient when needed
     public void shutdown() {
         logger.info("PlayerService: Shutdown requested");
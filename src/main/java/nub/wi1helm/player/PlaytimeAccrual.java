@@ -0,0 +1,276 @@
+package nub.wi1helm.player;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import nub.wi1helm.config.LobbyConfig;
+import nub.wi1helm.config.PeriodicTask;
+import nub.wi1helm.config.Setting;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Counts playtime on the server and writes it to game-service in batches.
+ *
+ * Every tick a player is online, their account accrues the player's current delta rate. A flusher drains all accounts
+ * at a fixed interval into one batch with a fresh id, appends the batch to a journal file (and syncs it) and then
+ * sends it to game-service. Once game-service has accepted a batch, an ack line is appended. Batches without an ack
+ * are re-sent with their original id until they are accepted, including after a restart: the journal is replayed on
+ * startup. Since game-service applies a batch id at most once, re-sending is safe. What a crash can lose is at most
+ * the playtime accrued since the last flush. The flush interval is {@link LobbyConfig#PLAYTIME_FLUSH_INTERVAL_MILLIS}.
+ *
+ * Environment variables:
+ * - PLAYTIME_ACCRUAL_ENABLED: Accrue playtime locally instead of polling totals from game-service (defaults to false).
+ * - PLAYTIME_JOURNAL_PATH: The journal file (defaults to data/playtime-journal.log).
+ */
+public class PlaytimeAccrual {
+
+    private static volatile PlaytimeAccrual instance;
+    private static final Object lock = new Object();
+
+    private static final Gson gson = new Gson();
+    private static final Type INCREMENTS_TYPE = new TypeToken<Map<String, Double>>() {}.getType();
+    private static final String BATCH_PREFIX = "B ";
+    private static final String ACK_PREFIX = "A ";
+
+    /**
+     * A single player's accrued playtime.
+     */
+    public static final class Account {
+        private final DoubleAdder unflushed = new DoubleAdder();
+        // Playtime accrued since the account was opened; single writer (the player's tick thread)
+        private volatile double accrued = 0;
+        private volatile boolean closed = false;
+
+        /**
+         * Adds playtime. Must only be called from the player's tick thread.
+         */
+        public void accrue(double ticks) {
+            if (ticks <= 0) return;
+            unflushed.add(ticks);
+            accrued += ticks;
+        }
+
+        /**
+         * @return The playtime accrued since the account was opened.
+         */
+        public double accrued() {
+            return accrued;
+        }
+    }
+
+    private final boolean enabled;
+    private final Path journalPath;
+    private final GameService gameService = GameService.getInstance();
+
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    // Batches written to the journal but not yet accepted by game-service, in order; flusher thread only
+    private final Map<String, Map<String, Double>> outstanding = new LinkedHashMap<>();
+    private FileChannel journal;
+    private ScheduledExecutorService flusher;
+
+    private PlaytimeAccrual() {
+        this.enabled = "true".equalsIgnoreCase(System.getenv().getOrDefault("PLAYTIME_ACCRUAL_ENABLED", "false"));
+        this.journalPath = Path.of(System.getenv().getOrDefault("PLAYTIME_JOURNAL_PATH", "data/playtime-journal.log"));
+    }
+
+    public static PlaytimeAccrual getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new PlaytimeAccrual();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return True if playtime is accrued locally; otherwise totals are still read from game-service.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replays unacknowledged batches from the journal and starts the periodic flush. Does nothing when disabled.
+     */
+    public void start() {
+        if (!enabled) return;
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Playtime-Accrual-Flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.execute(this::openJournal);
+        Setting flushInterval = LobbyConfig.PLAYTIME_FLUSH_INTERVAL_MILLIS;
+        PeriodicTask.schedule(flusher, this::flush, flushInterval.get(), flushInterval);
+        logger.info("PlaytimeAccrual: Accruing playtime locally, flushing to game-service every {} ms (journal: {}).",
+                flushInterval.get(), journalPath);
+    }
+
+    /**
+     * Opens (or re-opens after a quick reconnect) the account of a player. A re-opened account starts counting
+     * {@link Account#accrued()} from 0 again, because the new session's profile total already includes what was
+     * flushed so far; what is still unflushed stays in the account and goes out with the next flush.
+     */
+    public Account open(String uuid) {
+        return accounts.compute(uuid, (key, existing) -> {
+            if (existing == null) return new Account();
+            existing.closed = false;
+            existing.accrued = 0;
+            return existing;
+        });
+    }
+
+    /**
+     * Marks a player's account as closed. Its remaining playtime goes out with the next flush.
+     */
+    public void close(String uuid) {
+        Account account = accounts.get(uuid);
+        if (account != null) account.closed = true;
+    }
+
+    private void openJournal() {
+        try {
+            if (journalPath.getParent() != null) Files.createDirectories(journalPath.getParent());
+            if (Files.exists(journalPath)) {
+                replay(Files.readAllLines(journalPath, StandardCharsets.UTF_8));
+            }
+            journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // Rewrite the journal with only the unacknowledged batches
+            journal.truncate(0);
+            for (Map.Entry<String, Map<String, Double>> batch : outstanding.entrySet()) {
+                append(BATCH_PREFIX + batch.getKey() + " " + gson.toJson(batch.getValue()));
+            }
+            if (!outstanding.isEmpty()) {
+                logger.info("PlaytimeAccrual: Replaying {} unacknowledged playtime batches from the journal.", outstanding.size());
+            }
+        } catch (IOException e) {
+            logger.error("PlaytimeAccrual: Failed to open journal {}; batches won't survive a crash: {}", journalPath, e.getMessage(), e);
+            journal = null;
+        }
+    }
+
+    private void replay(List<String> lines) {
+        for (String line : lines) {
+            if (line.startsWith(BATCH_PREFIX)) {
+                int split = line.indexOf(' ', BATCH_PREFIX.length());
+                if (split < 0) continue;
+                try {
+                    Map<String, Double> increments = gson.fromJson(line.substring(split + 1), INCREMENTS_TYPE);
+                    if (increments != null) outstanding.put(line.substring(BATCH_PREFIX.length(), split), increments);
+                } catch (JsonSyntaxException e) {
+                    // A torn last line from a crash mid-write; that batch was never sent
+                    logger.warn("PlaytimeAccrual: Skipping unreadable journal entry: {}", e.getMessage());
+                }
+            } else if (line.startsWith(ACK_PREFIX)) {
+                outstanding.remove(line.substring(ACK_PREFIX.length()).trim());
+            }
+        }
+    }
+
+    private void append(String line) throws IOException {
+        if (journal == null) return;
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        journal.force(false);
+    }
+
+    /**
+     * Drains all accounts into a new batch and sends every outstanding batch, oldest first.
+     * Runs on the flusher thread.
+     */
+    private void flush() {
+        try {
+            Map<String, Double> increments = new HashMap<>();
+            Iterator<Map.Entry<String, Account>> iterator = accounts.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Account> entry = iterator.next();
+                Account account = entry.getValue();
+                // A closed account is removed before it is drained, so nothing it accrues in between is dropped with
+                // it. If the player rejoins, open() starts a new account.
+                accounts.computeIfPresent(entry.getKey(), (key, current) -> current == account && current.closed ? null : current);
+                double ticks = account.unflushed.sumThenReset();
+                if (ticks > 0) increments.put(entry.getKey(), ticks);
+            }
+
+            if (!increments.isEmpty()) {
+                String batchId = UUID.randomUUID().toString();
+                outstanding.put(batchId, increments);
+                append(BATCH_PREFIX + batchId + " " + gson.toJson(increments));
+            }
+
+            Iterator<Map.Entry<String, Map<String, Double>>> batches = outstanding.entrySet().iterator();
+            while (batches.hasNext()) {
+                Map.Entry<String, Map<String, Double>> batch = batches.next();
+                boolean accepted = gameService.postPlaytimeBatch(batch.getKey(), batch.getValue())
+                        .get(10, TimeUnit.SECONDS);
+                if (!accepted) {
+                    // Keep the order; everything left is retried with the next flush
+                    logger.warn("PlaytimeAccrual: Playtime batch {} not accepted, {} batches outstanding.", batch.getKey(), outstanding.size());
+                    break;
+                }
+                append(ACK_PREFIX + batch.getKey());
+                batches.remove();
+            }
+
+            if (outstanding.isEmpty() && journal != null && journal.size() > 0) {
+                journal.truncate(0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("PlaytimeAccrual: Flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Flushes once more and stops the flusher. Whatever game-service doesn't accept stays in the journal.
+     */
+    public void shutdown() {
+        if (flusher == null) return;
+        for (Account account : accounts.values()) {
+            account.closed = true;
+        }
+        flusher.execute(this::flush);
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(15, TimeUnit.SECONDS)) {
+                logger.warn("PlaytimeAccrual: Final flush did not finish in time; unsent batches stay in the journal.");
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flusher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (journal != null) journal.close();
+        } catch (IOException e) {
+            logger.warn("PlaytimeAccrual: Failed to close journal: {}", e.getMessage());
+        }
+        logger.info("PlaytimeAccrual: Shut down.");
+    }
+}
@@ -0,0 +1,157 @@
+package nub.wi1helm.redis;
+
+import nub.wi1helm.config.LobbyConfig;
+import nub.wi1helm.metrics.Metrics;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.ClusterPipeline;
+import redis.clients.jedis.CommandObject;
+import redis.clients.jedis.CommandObjects;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.JedisCluster;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Function;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * This pod's access to the Redis cluster, shared by every subsystem that needs Redis.
+ *
+ * - {@link #cluster()}: The JedisCluster for single commands, scripts and pub/sub.
+ * - {@link #pipelined(String, Function)}: Batches commands; each node gets its share in a single round trip.
+ * - {@link #readPreferReplica(String, Function)}: Reads from a replica of the key's slot, falling back to the master.
+ *   Only for reads that tolerate replication lag, such as the service registry.
+ *
+ * Pooled connections are not validated on borrow or return, which would put a PING in front of nearly every command.
+ * Instead, the evictor pings idle connections in the background; a connection that breaks in use fails its command,
+ * which JedisCluster retries on a fresh connection.
+ */
+public final class RedisClient implements AutoCloseable {
+
+    private static final Duration EVICTION_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration MIN_EVICTABLE_IDLE = Duration.ofSeconds(60);
+    // Replica reads are a small share of the traffic, so their per-node pools stay small
+    private static final int REPLICA_POOL_SIZE = 8;
+
+    private final JedisCluster cluster;
+    private final CommandObjects commandObjects = new CommandObjects();
+    private final ReplicaReads replicaReads;
+
+    private RedisClient(JedisCluster cluster, ReplicaReads replicaReads) {
+        this.cluster = cluster;
+        this.replicaReads = replicaReads;
+    }
+
+    /**
+     * Connects to the cluster with the pool sizes and timeouts from {@link LobbyConfig}.
+     *
+     * @param nodes    Seed nodes of the cluster.
+     * @param password The password, or null if the cluster has none.
+     * @return The connected client.
+     */
+    public static RedisClient connect(Set<HostAndPort> nodes, String password) {
+        int timeoutMillis = LobbyConfig.REDIS_TIMEOUT_MILLIS.getInt();
+        JedisCluster cluster = new JedisCluster(
+                nodes,
+                timeoutMillis, // connectionTimeoutMillis
+                timeoutMillis, // soTimeoutMillis
+                LobbyConfig.REDIS_MAX_ATTEMPTS.getInt(),
+                password,
+                poolConfig(LobbyConfig.REDIS_POOL_MAX_TOTAL.getInt(), LobbyConfig.REDIS_POOL_MAX_IDLE.getInt(),
+                        LobbyConfig.REDIS_POOL_MIN_IDLE.getInt()));
+        JedisClientConfig replicaClientConfig = DefaultJedisClientConfig.builder()
+                .connectionTimeoutMillis(timeoutMillis)
+                .socketTimeoutMillis(timeoutMillis)
+                .password(password)
+                .build();
+        ReplicaReads replicaReads = new ReplicaReads(cluster, replicaClientConfig,
+                poolConfig(REPLICA_POOL_SIZE, REPLICA_POOL_SIZE, 0));
+        return new RedisClient(cluster, replicaReads);
+    }
+
+    /**
+     * Builds a pool configuration that validates connections through idle eviction only.
+     */
+    static GenericObjectPoolConfig<Connection> poolConfig(int maxTotal, int maxIdle, int minIdle) {
+        GenericObjectPoolConfig<Connection> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(maxTotal);
+        poolConfig.setMaxIdle(maxIdle);
+        poolConfig.setMinIdle(minIdle);
+        poolConfig.setTestOnBorrow(false);
+        poolConfig.setTestOnReturn(false);
+        poolConfig.setTestWhileIdle(true);
+        poolConfig.setMinEvictableIdleTime(MIN_EVICTABLE_IDLE);
+        poolConfig.setTimeBetweenEvictionRuns(EVICTION_INTERVAL);
+        // Negative: every idle connection is visited on each eviction run
+        poolConfig.setNumTestsPerEvictionRun(-1);
+        poolConfig.setBlockWhenExhausted(true);
+        return poolConfig;
+    }
+
+    /**
+     * @return The cluster client for single blocking commands, scripts and pub/sub.
+     */
+    public JedisCluster cluster() {
+        return cluster;
+    }
+
+    /**
+     * Runs a batch of commands through a pipeline. The commands are queued by {@code commands}, which returns the
+     * {@code Response}s (or a structure holding them) it wants to read; they are filled in once the batch returns.
+     * A {@code Response} of a failed command throws when read, so one failure doesn't hide the other results.
+     *
+     * @param operation Name of the batch in the Redis metrics.
+     * @param commands  Queues the commands on the pipeline.
+     * @return What {@code commands} returned, with all responses available.
+     * @throws redis.clients.jedis.exceptions.JedisException If a node could not be reached.
+     */
+    public <T> T pipelined(String operation, Function<ClusterPipeline, T> commands) {
+        final long start = System.nanoTime();
+        try (ClusterPipeline pipeline = cluster.pipelined()) {
+            T result = commands.apply(pipeline);
+            pipeline.sync();
+            Metrics.recordRedis(operation, true, System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            Metrics.recordRedis(operation, false, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a key from a replica of its slot. If the slot has no replica or the replica fails, the read goes to the
+     * master instead, so this only throws if the master fails too.
+     *
+     * @param key     The key the command reads (it decides the slot).
+     * @param command Builds the command, e.g. {@code commands -> commands.hgetAll(key)}.
+     * @return The result of the command.
+     */
+    public <T> T readPreferReplica(String key, Function<CommandObjects, CommandObject<T>> command) {
+        CommandObject<T> commandObject = command.apply(commandObjects);
+        HostAndPort replica = replicaReads.replicaFor(key);
+        if (replica != null) {
+            final long start = System.nanoTime();
+            try {
+                T result = replicaReads.execute(replica, commandObject);
+                Metrics.recordRedis("replica_read", true, System.nanoTime() - start);
+                return result;
+            } catch (RuntimeException e) {
+                Metrics.recordRedis("replica_read", false, System.nanoTime() - start);
+                // The replica may have been promoted, removed or moved; look the topology up again next time
+                replicaReads.invalidate();
+                logger.debug("RedisClient: Replica read of {} from {} failed, reading from the master: {}", key, replica, e.getMessage());
+            }
+        }
+        return cluster.executeCommand(commandObject);
+    }
+
+    @Override
+    public void close() {
+        replicaReads.close();
+        cluster.close();
+    }
+}
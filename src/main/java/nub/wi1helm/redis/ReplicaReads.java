@@ -0,0 +1,149 @@
+package nub.wi1helm.redis;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.CommandObject;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.ConnectionPool;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Routes reads to the replicas of a key's slot. JedisCluster only ever talks to masters, so the replica topology is
+ * looked up here from CLUSTER SLOTS (again every minute, or after a failed read) and the replicas get pools of their own.
+ */
+final class ReplicaReads implements AutoCloseable {
+
+    private static final int SLOTS = 16384;
+    private static final long TOPOLOGY_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private record Topology(HostAndPort[][] replicasBySlot, long loadedAt) {}
+
+    private final JedisCluster cluster;
+    private final JedisClientConfig clientConfig;
+    private final GenericObjectPoolConfig<Connection> poolConfig;
+    private final Map<HostAndPort, ConnectionPool> pools = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private volatile Topology topology;
+
+    ReplicaReads(JedisCluster cluster, JedisClientConfig clientConfig, GenericObjectPoolConfig<Connection> poolConfig) {
+        this.cluster = cluster;
+        this.clientConfig = clientConfig;
+        this.poolConfig = poolConfig;
+    }
+
+    /**
+     * @return A replica serving the key's slot (rotating between several), or null if the slot has none.
+     */
+    HostAndPort replicaFor(String key) {
+        Topology current = topology;
+        if (current == null || System.nanoTime() - current.loadedAt() > TOPOLOGY_MAX_AGE_NANOS) {
+            current = refresh(current);
+            if (current == null) return null;
+        }
+        HostAndPort[] replicas = current.replicasBySlot()[JedisClusterCRC16.getSlot(key)];
+        if (replicas == null) return null;
+        return replicas[Math.floorMod(nextReplica.getAndIncrement(), replicas.length)];
+    }
+
+    /**
+     * Runs a read-only command on a replica.
+     *
+     * @throws redis.clients.jedis.exceptions.JedisException If the replica can't be reached or refuses the read.
+     */
+    <T> T execute(HostAndPort replica, CommandObject<T> command) {
+        ConnectionPool pool = pools.computeIfAbsent(replica, node -> new ConnectionPool(node, clientConfig, poolConfig));
+        Connection connection = pool.getResource();
+        try {
+            // READONLY holds for the connection, but sending it with every read costs no extra round trip and
+            // covers connections the pool has replaced in the meantime
+            connection.sendCommand(Protocol.Command.READONLY);
+            connection.sendCommand(command.getArguments());
+            connection.getStatusCodeReply();
+            T result = command.getBuilder().build(connection.getOne());
+            connection.close(); // back to the pool
+            return result;
+        } catch (RuntimeException e) {
+            // A reply may still be unread, so the connection can't be handed out again
+            pool.returnBrokenResource(connection);
+            throw e;
+        }
+    }
+
+    /**
+     * Forces the topology to be looked up again before the next read.
+     */
+    void invalidate() {
+        topology = null;
+    }
+
+    private Topology refresh(Topology current) {
+        if (!refreshing.compareAndSet(false, true)) {
+            return current; // another thread is refreshing; keep using what we have
+        }
+        try {
+            for (ConnectionPool pool : cluster.getClusterNodes().values()) {
+                try (Connection connection = pool.getResource()) {
+                    Topology loaded = parse(new Jedis(connection).clusterSlots());
+                    topology = loaded;
+                    return loaded;
+                } catch (RuntimeException e) {
+                    logger.debug("ReplicaReads: CLUSTER SLOTS failed on one node, trying the next: {}", e.getMessage());
+                }
+            }
+            logger.warn("ReplicaReads: Could not load the replica topology from any node. Reading from masters.");
+            // Don't retry on every read; the next attempt is one topology lifetime away
+            Topology empty = new Topology(new HostAndPort[SLOTS][], System.nanoTime());
+            topology = empty;
+            return empty;
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Topology parse(List<Object> slots) {
+        HostAndPort[][] replicasBySlot = new HostAndPort[SLOTS][];
+        for (Object entry : slots) {
+            List<Object> range = (List<Object>) entry;
+            int start = ((Long) range.get(0)).intValue();
+            int end = ((Long) range.get(1)).intValue();
+            // Index 2 is the master, everything after it a replica
+            List<HostAndPort> replicas = new ArrayList<>();
+            for (int i = 3; i < range.size(); i++) {
+                List<Object> node = (List<Object>) range.get(i);
+                String host = SafeEncoder.encode((byte[]) node.get(0));
+                if (host.isEmpty()) continue; // node without a known address
+                replicas.add(new HostAndPort(host, ((Long) node.get(1)).intValue()));
+            }
+            if (replicas.isEmpty()) continue;
+            HostAndPort[] shared = replicas.toArray(new HostAndPort[0]);
+            for (int slot = start; slot <= end; slot++) {
+                replicasBySlot[slot] = shared;
+            }
+        }
+        return new Topology(replicasBySlot, System.nanoTime());
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(ConnectionPool::close);
+        pools.clear();
+    }
+}
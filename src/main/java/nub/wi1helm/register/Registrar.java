@@ -2,30 +2,38 @@ package nub.wi1helm.register;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
+import nub.wi1helm.config.LobbyConfig;
+import nub.wi1helm.config.PeriodicTask;
+import nub.wi1helm.metrics.Metrics;
+import nub.wi1helm.metrics.RegistrarCycleEvent;
+import nub.wi1helm.redis.RedisClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 // import net.minestom.server.MinecraftServer; // Assuming this is still used for context, though not directly in the registration logic
 
 // --- IMPORTANT: Ensure these imports are correct ---
-import org.apache.commons.pool2.impl.GenericObjectPoolConfig; // This specific import
-import redis.clients.jedis.Connection; // And this for the generic type
 import redis.clients.jedis.HostAndPort;
-import redis.clients.jedis.JedisCluster;
-import redis.clients.jedis.JedisPoolConfig; // Keep this import as you are instantiating JedisPoolConfig
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 // Import gRPC specific classes
@@ -43,12 +51,9 @@ public class Registrar {
     private static final String SERVICE_TYPE_PROXY = "proxy";
     private static final String SERVICE_TYPE_MINESTOM = "minestom";
 
-    // Discovery interval for Gate proxy endpoints in Redis
-    private static final long PROXY_DISCOVERY_INTERVAL_SECONDS = 10;
-    // Interval to check registration status with Gate proxies using listServers
-    private static final long REGISTRATION_CHECK_INTERVAL_SECONDS = 5;
     // Delay before retrying registration if it fails or is not found
     private static final long REGISTRATION_RETRY_DELAY_SECONDS = 5;
+    // The discovery and check intervals and the gRPC deadline are reloadable, see LobbyConfig
 
     private final String minestomServiceId;
     private final String minestomPodIp;
@@ -56,14 +61,20 @@ public class Registrar {
     private final String minestomServerLabel; // This will be the "name" for gRPC
     private final String minestomVersion;
 
-    private final JedisCluster jedisCluster;
+    private final RedisClient redis;
     // Stores all currently known active proxies.
     private final ConcurrentHashMap<String, ProxyInfo> knownProxies;
     // Stores gRPC stubs for each proxy this server is registered with.
     private final ConcurrentHashMap<String, GateProxyConnection> activeGateConnections;
 
 
+    // Only keeps time; the actual (blocking) work runs on virtual threads so it never holds the timer up
     private ScheduledExecutorService scheduler;
+    private final ThreadFactory workerThreads = Thread.ofVirtual().name("Minestom-Proxy-Reg-", 0).factory();
+    private ExecutorService workers;
+    // A cycle that is still running when its next run is due is skipped instead of piling up
+    private final AtomicBoolean discoveryInProgress = new AtomicBoolean(false);
+    private final AtomicBoolean registrationCheckInProgress = new AtomicBoolean(false);
     private volatile boolean running = false;
 
     private static class ProxyInfo {
@@ -134,6 +145,13 @@ public class Registrar {
             logger.info("gRPC client initialized for Gate at {}:{}", proxyInfo.ip, proxyInfo.port);
         }
 
+        /**
+         * @return The stub with a fresh deadline, so that an unresponsive proxy can't block a worker indefinitely.
+         */
+        GateServiceGrpc.GateServiceBlockingStub call() {
+            return stub.withDeadlineAfter(LobbyConfig.GRPC_DEADLINE_SECONDS.get(), TimeUnit.SECONDS);
+        }
+
         public void shutdown() {
             if (channel != null) {
                 logger.info("Shutting down gRPC channel for Gate at {}:{}", proxyInfo.ip, proxyInfo.port);
@@ -181,50 +199,29 @@ public class Registrar {
      * @throws IllegalStateException if Redis connection fails.
      */
     public static Registrar createAndConfigure(RegistrarConfig config) {
-        JedisCluster jedisCluster;
+        RedisClient redis;
         try {
-            // Configure JedisPoolConfig for connection pooling
-            // --- MODIFIED DECLARATION HERE ---
-            GenericObjectPoolConfig<Connection> poolConfig = new GenericObjectPoolConfig<>();
-            poolConfig.setMaxTotal(128); // Max active connections
-            poolConfig.setMaxIdle(128); // Max idle connections
-            poolConfig.setMinIdle(16);  // Min idle connections
-            poolConfig.setTestOnBorrow(true); // Test connections when borrowed
-            poolConfig.setTestOnReturn(true); // Test connections when returned
-            poolConfig.setTestWhileIdle(true); // Test connections while idle
-            poolConfig.setMinEvictableIdleTimeMillis(Duration.ofSeconds(60).toMillis());
-            poolConfig.setTimeBetweenEvictionRunsMillis(Duration.ofSeconds(30).toMillis());
-            poolConfig.setNumTestsPerEvictionRun(3);
-            poolConfig.setBlockWhenExhausted(true); // Block when pool is exhausted
-
-            // Pass the password to JedisCluster constructor
-            jedisCluster = new JedisCluster(
-                    config.getRedisClusterNodes(),
-                    2000, // connectionTimeoutMillis
-                    2000, // soTimeoutMillis
-                    5,    // maxAttempts
-                    config.getRedisPassword(), // Pass the password here
-                    poolConfig
-            );
+            // Pool sizes and timeouts come from LobbyConfig; connections are only validated by idle eviction
+            redis = RedisClient.connect(config.getRedisClusterNodes(), config.getRedisPassword());
 
             // Simple test to ensure connection
-            jedisCluster.hgetAll("test_connection");
+            redis.cluster().hgetAll("test_connection");
             logger.info("Successfully connected to Redis cluster: {}", config.getRedisClusterNodes());
         } catch (Exception e) {
             throw new IllegalStateException("Failed to connect to Redis cluster using provided nodes: " + config.getRedisClusterNodes(), e);
         }
 
-        return new Registrar(config, jedisCluster);
+        return new Registrar(config, redis);
     }
 
-    private Registrar(RegistrarConfig config, JedisCluster jedisCluster) {
+    private Registrar(RegistrarConfig config, RedisClient redis) {
         this.minestomServiceId = SERVICE_TYPE_MINESTOM + "-" + UUID.randomUUID().toString();
         this.minestomPodIp = getPodIp();
         this.minestomPort = config.getMinestomPort();
         this.minestomServerLabel = config.getMinestomServerLabel();
         this.minestomVersion = config.getMinestomVersion();
 
-        this.jedisCluster = jedisCluster;
+        this.redis = redis;
         this.knownProxies = new ConcurrentHashMap<>();
         this.activeGateConnections = new ConcurrentHashMap<>();
 
@@ -264,15 +261,19 @@ public class Registrar {
             t.setDaemon(true);
             return t;
         });
+        workers = Executors.newThreadPerTaskExecutor(workerThreads);
 
         // Schedule proxy discovery and initial registration
-        scheduler.scheduleAtFixedRate(this::discoverProxiesAndManageConnections, 0, PROXY_DISCOVERY_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        PeriodicTask.schedule(scheduler, () -> launchCycle(discoveryInProgress, this::discoverProxiesAndManageConnections),
+                0, LobbyConfig.PROXY_DISCOVERY_INTERVAL_SECONDS);
         // Schedule periodic registration status checks
-        scheduler.scheduleAtFixedRate(this::checkAndMaintainRegistrations, 0, REGISTRATION_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        PeriodicTask.schedule(scheduler, () -> launchCycle(registrationCheckInProgress, this::checkAndMaintainRegistrations),
+                0, LobbyConfig.REGISTRATION_CHECK_INTERVAL_SECONDS);
 
-        Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+        // No shutdown hook of its own: hooks run concurrently, and Main's hook has to release the team poller lease
+        // over these Redis connections before stop() closes them
         logger.info("MinestomProxyRegistrar started. Registration checks every {}s, proxy discovery and connection management every {}s.",
-                REGISTRATION_CHECK_INTERVAL_SECONDS, PROXY_DISCOVERY_INTERVAL_SECONDS);
+                LobbyConfig.REGISTRATION_CHECK_INTERVAL_SECONDS.get(), LobbyConfig.PROXY_DISCOVERY_INTERVAL_SECONDS.get());
     }
 
     public void stop() {
@@ -283,8 +284,13 @@ public class Registrar {
         running = false;
         logger.info("Signaling MinestomProxyRegistrar to stop...");
 
-        // Deregister from all active Gate proxies
-        activeGateConnections.forEach((id, conn) -> unregisterMinestomServerWithGate(conn));
+        // Deregister from all active Gate proxies, in parallel so one unreachable proxy doesn't delay the others
+        List<Callable<Boolean>> unregistrations = new ArrayList<>();
+        activeGateConnections.forEach((id, conn) -> unregistrations.add(() -> {
+            unregisterMinestomServerWithGate(conn);
+            return true;
+        }));
+        runSubtasks(unregistrations, LobbyConfig.GRPC_DEADLINE_SECONDS.get() + 1);
 
         if (scheduler != null) {
             scheduler.shutdown();
@@ -298,46 +304,121 @@ public class Registrar {
                 scheduler.shutdownNow();
             }
         }
+        if (workers != null) {
+            // Interrupts in-flight cycles; blocking gRPC calls give up when interrupted
+            workers.shutdownNow();
+        }
         // Shutdown all gRPC channels
         activeGateConnections.forEach((id, conn) -> conn.shutdown());
 
-        jedisCluster.close();
-        logger.info("MinestomProxyRegistrar stopped and JedisCluster closed.");
+        redis.close();
+        logger.info("MinestomProxyRegistrar stopped and Redis connections closed.");
+    }
+
+    /**
+     * Runs a registrar cycle on its own virtual thread unless the previous run of the same cycle is still going.
+     */
+    private void launchCycle(AtomicBoolean inProgress, Runnable cycle) {
+        if (!running || !inProgress.compareAndSet(false, true)) return;
+        try {
+            workers.execute(() -> {
+                try {
+                    cycle.run();
+                } catch (Exception e) {
+                    logger.error("Registrar cycle failed: {}", e.getMessage(), e);
+                } finally {
+                    inProgress.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Rejected because we are shutting down
+            inProgress.set(false);
+        }
+    }
+
+    /**
+     * Runs the subtasks of one cycle concurrently, each on its own virtual thread, and waits for all of them.
+     * The executor is scoped to this call: subtasks still running when the timeout expires are cancelled, and the
+     * call doesn't return before every subtask has finished.
+     *
+     * @param subtasks       The per-proxy work; each returns whether it succeeded.
+     * @param timeoutSeconds How long the whole cycle may take.
+     * @return The number of subtasks that failed, threw or were cancelled.
+     */
+    private int runSubtasks(List<Callable<Boolean>> subtasks, long timeoutSeconds) {
+        if (subtasks.isEmpty()) return 0;
+        int failures = 0;
+        try (ExecutorService scope = Executors.newThreadPerTaskExecutor(workerThreads)) {
+            for (Future<Boolean> result : scope.invokeAll(subtasks, timeoutSeconds, TimeUnit.SECONDS)) {
+                if (result.isCancelled()) {
+                    failures++;
+                    continue;
+                }
+                try {
+                    if (!result.get()) failures++;
+                } catch (ExecutionException e) {
+                    failures++;
+                    logger.error("Registrar subtask failed: {}", e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return subtasks.size();
+        }
+        return failures;
+    }
+
+    /**
+     * Retries the registration with a proxy after {@link #REGISTRATION_RETRY_DELAY_SECONDS} on a worker thread.
+     */
+    private void scheduleRegistrationRetry(GateProxyConnection connection) {
+        if (!running) return;
+        scheduler.schedule(() -> {
+            if (running) workers.execute(() -> registerMinestomServerWithGate(connection));
+        }, REGISTRATION_RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
     }
 
     /**
      * Attempts to register this Minestom server with a specific Gate proxy via gRPC.
      *
      * @param connection The GateProxyConnection representing the target proxy.
+     * @return True if the registration succeeded.
      */
-    private void registerMinestomServerWithGate(GateProxyConnection connection) {
+    private boolean registerMinestomServerWithGate(GateProxyConnection connection) {
         if (connection == null || connection.stub == null) {
             logger.warn("Cannot register with null or uninitialized GateProxyConnection.");
-            return;
+            return false;
         }
 
         logger.info("Attempting to register Minestom server '{}' with Gate at {}:{}",
                 minestomServerLabel, connection.proxyInfo.ip, connection.proxyInfo.port);
+        final RegistrarCycleEvent cycleEvent = RegistrarCycleEvent.start(RegistrarCycleEvent.CYCLE_REGISTER);
         RegisterServerRequest request = RegisterServerRequest.newBuilder()
                 .setName(minestomServerLabel)
                 .setAddress(minestomPodIp + ":" + minestomPort)
                 .build();
+        final long start = System.nanoTime();
         try {
-            connection.stub.registerServer(request);
+            connection.call().registerServer(request);
+            Metrics.recordGrpc("RegisterServer", "OK", System.nanoTime() - start);
             connection.lastSuccessfulContact = Instant.now().toEpochMilli();
             connection.registered = true;
             logger.info("Server '{}' successfully registered with Gate at {}:{}",
                     minestomServerLabel, connection.proxyInfo.ip, connection.proxyInfo.port);
         } catch (StatusRuntimeException e) {
+            Metrics.recordGrpc("RegisterServer", e.getStatus().getCode().name(), System.nanoTime() - start);
             logger.error("Failed to register server '{}' with Gate at {}:{}: {}",
                     minestomServerLabel, connection.proxyInfo.ip, connection.proxyInfo.port, e.getStatus().getDescription());
             connection.registered = false; // Mark as not registered
             // Consider more specific handling based on gRPC status codes (e.g., UNAVAILABLE, PERMISSION_DENIED)
         } catch (Exception e) {
+            Metrics.recordGrpc("RegisterServer", "UNKNOWN", System.nanoTime() - start);
             logger.error("Unexpected error during registration of server '{}' with Gate at {}:{}: {}",
                     minestomServerLabel, connection.proxyInfo.ip, connection.proxyInfo.port, e.getMessage(), e);
             connection.registered = false; // Mark as not registered
         }
+        cycleEvent.complete(1, connection.registered ? 0 : 1);
+        return connection.registered;
     }
 
     /**
@@ -357,17 +438,21 @@ public class Registrar {
         UnregisterServerRequest request = UnregisterServerRequest.newBuilder()
                 .setName(minestomServerLabel)
                 .build();
+        final long start = System.nanoTime();
         try {
-            connection.stub.unregisterServer(request);
+            connection.call().unregisterServer(request);
+            Metrics.recordGrpc("UnregisterServer", "OK", System.nanoTime() - start);
             connection.registered = false;
             logger.info("Server '{}' successfully unregistered from Gate at {}:{}",
                     minestomServerLabel, connection.proxyInfo.ip, connection.proxyInfo.port);
         } catch (StatusRuntimeException e) {
+            Metrics.recordGrpc("UnregisterServer", e.getStatus().getCode().name(), System.nanoTime() - start);
             // If the proxy is already down, this is expected.
             logger.warn("Failed to unregister server '{}' from Gate at {}:{}: {} (Proxy might be down/unreachable)",
                     minestomServerLabel, connection.proxyInfo.ip, connection.proxyInfo.port, e.getStatus().getDescription());
             connection.registered = false;
         } catch (Exception e) {
+            Metrics.recordGrpc("UnregisterServer", "UNKNOWN", System.nanoTime() - start);
             logger.error("Unexpected error during unregistration of server '{}' from Gate at {}:{}: {}",
                     minestomServerLabel, connection.proxyInfo.ip, connection.proxyInfo.port, e.getMessage(), e);
             connection.registered = false;
@@ -377,44 +462,56 @@ public class Registrar {
     /**
      * Checks the registration status of this Minestom server with each active Gate proxy
      * using `listServers`. If not found, it attempts to re-register.
+     * Every proxy is checked in its own subtask, so one slow proxy doesn't delay the checks of the others.
      */
     private void checkAndMaintainRegistrations() {
         if (!running) return;
 
         logger.debug("Checking registration status with {} active Gate proxy connections...", activeGateConnections.size());
+        final RegistrarCycleEvent cycleEvent = RegistrarCycleEvent.start(RegistrarCycleEvent.CYCLE_REGISTRATION_CHECK);
+        List<Callable<Boolean>> checks = new ArrayList<>();
         for (Map.Entry<String, GateProxyConnection> entry : activeGateConnections.entrySet()) {
-            String proxyId = entry.getKey();
-            GateProxyConnection connection = entry.getValue();
+            checks.add(() -> checkRegistration(entry.getKey(), entry.getValue()));
+        }
+        int failures = runSubtasks(checks, LobbyConfig.REGISTRATION_CHECK_INTERVAL_SECONDS.get());
+        cycleEvent.complete(checks.size(), failures);
+    }
 
-            try {
-                ListServersResponse response = connection.stub.listServers(ListServersRequest.getDefaultInstance());
-                boolean found = response.getServersList().stream()
-                        .anyMatch(server -> server.getName().equals(minestomServerLabel) &&
-                                server.getAddress().equals(minestomPodIp + ":" + minestomPort));
-
-                if (found) {
-                    connection.lastSuccessfulContact = Instant.now().toEpochMilli();
-                    connection.registered = true;
-                    logger.debug("Server '{}' confirmed as registered with Gate at {}:{}",
-                            minestomServerLabel, connection.proxyInfo.ip, connection.proxyInfo.port);
-                } else {
-                    logger.warn("Server '{}' not found in list of servers from Gate at {}:{}. Attempting to re-register.",
-                            minestomServerLabel, connection.proxyInfo.ip, connection.proxyInfo.port);
-                    connection.registered = false;
-                    scheduler.schedule(() -> registerMinestomServerWithGate(connection), REGISTRATION_RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
-                }
-            } catch (StatusRuntimeException e) {
-                logger.warn("Failed to list servers from Gate at {}:{} (Proxy ID: {}): {}. Assuming registration lost, attempting re-registration.",
-                        connection.proxyInfo.ip, connection.proxyInfo.port, proxyId, e.getStatus().getDescription());
-                connection.registered = false; // Mark as not registered
-                scheduler.schedule(() -> registerMinestomServerWithGate(connection), REGISTRATION_RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
-            } catch (Exception e) {
-                logger.error("Unexpected error during registration check with Gate at {}:{} (Proxy ID: {}): {}. Attempting re-registration.",
-                        connection.proxyInfo.ip, connection.proxyInfo.port, proxyId, e.getMessage(), e);
-                connection.registered = false;
-                scheduler.schedule(() -> registerMinestomServerWithGate(connection), REGISTRATION_RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
+    /**
+     * Checks (and if necessary schedules the repair of) the registration with a single proxy.
+     *
+     * @return True if this server is registered with the proxy.
+     */
+    private boolean checkRegistration(String proxyId, GateProxyConnection connection) {
+        final long start = System.nanoTime();
+        try {
+            ListServersResponse response = connection.call().listServers(ListServersRequest.getDefaultInstance());
+            Metrics.recordGrpc("ListServers", "OK", System.nanoTime() - start);
+            boolean found = response.getServersList().stream()
+                    .anyMatch(server -> server.getName().equals(minestomServerLabel) &&
+                            server.getAddress().equals(minestomPodIp + ":" + minestomPort));
+
+            if (found) {
+                connection.lastSuccessfulContact = Instant.now().toEpochMilli();
+                connection.registered = true;
+                logger.debug("Server '{}' confirmed as registered with Gate at {}:{}",
+                        minestomServerLabel, connection.proxyInfo.ip, connection.proxyInfo.port);
+                return true;
             }
+            logger.warn("Server '{}' not found in list of servers from Gate at {}:{}. Attempting to re-register.",
+                    minestomServerLabel, connection.proxyInfo.ip, connection.proxyInfo.port);
+        } catch (StatusRuntimeException e) {
+            Metrics.recordGrpc("ListServers", e.getStatus().getCode().name(), System.nanoTime() - start);
+            logger.warn("Failed to list servers from Gate at {}:{} (Proxy ID: {}): {}. Assuming registration lost, attempting re-registration.",
+                    connection.proxyInfo.ip, connection.proxyInfo.port, proxyId, e.getStatus().getDescription());
+        } catch (Exception e) {
+            Metrics.recordGrpc("ListServers", "UNKNOWN", System.nanoTime() - start);
+            logger.error("Unexpected error during registration check with Gate at {}:{} (Proxy ID: {}): {}. Attempting re-registration.",
+                    connection.proxyInfo.ip, connection.proxyInfo.port, proxyId, e.getMessage(), e);
         }
+        connection.registered = false; // Mark as not registered
+        scheduleRegistrationRetry(connection);
+        return false;
     }
 
     /**
@@ -425,16 +522,29 @@ public class Registrar {
      */
     private void discoverProxiesAndManageConnections() {
         logger.debug("Discovering Gate proxy gRPC endpoints from Redis...");
+        final RegistrarCycleEvent cycleEvent = RegistrarCycleEvent.start(RegistrarCycleEvent.CYCLE_DISCOVERY);
+        int failures = 0;
         String hashKey = REDIS_REGISTRY_HASH_PREFIX + SERVICE_TYPE_PROXY;
         Map<String, String> proxyEntries;
         try {
-            proxyEntries = jedisCluster.hgetAll(hashKey);
+            final long start = System.nanoTime();
+            try {
+                // The registry tolerates replication lag (entries go stale only after three check intervals)
+                proxyEntries = redis.readPreferReplica(hashKey, commands -> commands.hgetAll(hashKey));
+                Metrics.recordRedis("hgetall", true, System.nanoTime() - start);
+            } catch (Exception e) {
+                Metrics.recordRedis("hgetall", false, System.nanoTime() - start);
+                throw e;
+            }
         } catch (Exception e) {
             logger.error("Failed to retrieve proxy entries from Redis: {}", e.getMessage(), e);
+            cycleEvent.complete(knownProxies.size(), 1);
             return;
         }
 
         Set<String> currentlyActiveRedisProxyIds = new HashSet<>();
+        // gRPC calls are collected and run concurrently once the Redis entries have been processed
+        List<Callable<Boolean>> proxyTasks = new ArrayList<>();
 
         for (Map.Entry<String, String> entry : proxyEntries.entrySet()) {
             String proxyId = entry.getKey();
@@ -452,7 +562,7 @@ public class Registrar {
 
                 long now = Instant.now().toEpochMilli();
                 // A proxy is considered stale if its last_seen is older than 3 registration check intervals
-                if (now - serviceInfo.last_seen > (REGISTRATION_CHECK_INTERVAL_SECONDS * 1000 * 3)) {
+                if (now - serviceInfo.last_seen > (LobbyConfig.REGISTRATION_CHECK_INTERVAL_SECONDS.get() * 1000 * 3)) {
                     logger.warn("Proxy {} (ID: {}) is stale, last seen {}ms ago. Skipping.",
                             serviceInfo.ip + ":" + proxyApiPort, proxyId, (now - serviceInfo.last_seen));
                     continue;
@@ -469,16 +579,18 @@ public class Registrar {
 
                     // If a new or changed proxy is found, create/re-initialize its connection
                     GateProxyConnection existingConnection = activeGateConnections.get(proxyId);
-                    if (existingConnection != null) {
-                        logger.info("Shutting down old connection for proxy {} due to IP/port change.", proxyId);
-                        // Attempt to unregister from old endpoint before shutting down, though it might fail if proxy is truly gone
-                        unregisterMinestomServerWithGate(existingConnection);
-                        existingConnection.shutdown();
-                    }
                     GateProxyConnection newConnection = new GateProxyConnection(newProxyInfo);
                     activeGateConnections.put(proxyId, newConnection);
-                    // Attempt to register immediately with the new proxy
-                    registerMinestomServerWithGate(newConnection);
+                    proxyTasks.add(() -> {
+                        if (existingConnection != null) {
+                            logger.info("Shutting down old connection for proxy {} due to IP/port change.", proxyId);
+                            // Attempt to unregister from old endpoint before shutting down, though it might fail if proxy is truly gone
+                            unregisterMinestomServerWithGate(existingConnection);
+                            existingConnection.shutdown();
+                        }
+                        // Attempt to register immediately with the new proxy
+                        return registerMinestomServerWithGate(newConnection);
+                    });
                 } else {
                     // Proxy exists and hasn't changed, ensure it's in activeGateConnections.
                     // Registration will be handled by checkAndMaintainRegistrations if needed.
@@ -486,14 +598,16 @@ public class Registrar {
                         logger.info("Re-adding known proxy {} to active connections.", newProxyInfo);
                         GateProxyConnection conn = new GateProxyConnection(newProxyInfo);
                         // Initial registration attempt for a previously unknown but now active proxy
-                        registerMinestomServerWithGate(conn);
+                        proxyTasks.add(() -> registerMinestomServerWithGate(conn));
                         return conn;
                     });
                 }
 
             } catch (JsonSyntaxException e) {
+                failures++;
                 logger.warn("Failed to parse JSON for proxy {}: {}. Skipping.", proxyId, e.getMessage());
             } catch (NumberFormatException e) {
+                failures++;
                 logger.warn("Invalid 'http_port' metadata for proxy {}: {}. Using default 8080. Error: {}", proxyId, proxyJson, e.getMessage());
             }
         }
@@ -509,19 +623,36 @@ public class Registrar {
             if (connection != null) {
                 logger.info("Gate proxy {} (ID: {}) no longer active in Redis. Unregistering and shutting down connection.",
                         removedProxyInfo.ip + ":" + removedProxyInfo.port, removedId);
-                unregisterMinestomServerWithGate(connection);
-                connection.shutdown();
+                proxyTasks.add(() -> {
+                    unregisterMinestomServerWithGate(connection);
+                    connection.shutdown();
+                    return true;
+                });
             }
         }
 
+        failures += runSubtasks(proxyTasks, LobbyConfig.PROXY_DISCOVERY_INTERVAL_SECONDS.get());
+
         logger.debug("Finished Gate proxy discovery and connection management. Currently {} active known proxies.", knownProxies.size());
 
         if (knownProxies.isEmpty()) {
             logger.warn("No active Gate proxies discovered from Redis. Minestom server registration/updates might fail.");
         }
+        cycleEvent.complete(knownProxies.size(), failures);
     }
 
 
+    public String getMinestomServiceId() {
+        return minestomServiceId;
+    }
+
+    /**
+     * @return The Redis client, for other subsystems that share this pod's Redis connection pools.
+     */
+    public RedisClient getRedis() {
+        return redis;
+    }
+
     public String getMinestomPodIp() {
         return minestomPodIp;
     }
@@ -0,0 +1,61 @@
+package nub.wi1helm.server;
+
+import net.minestom.server.MinecraftServer;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Chooses the network compression threshold for the deployment the server runs in.
+ *
+ * Minestom applies one threshold to every connection (0 disables compression). This lobby only accepts
+ * Velocity-forwarded connections, so every connection is a proxy link and the setting is really about that link:
+ * on a LAN or in-cluster link compression costs CPU for little gain, across a WAN it saves a lot of bandwidth.
+ *
+ * Environment variables:
+ * - COMPRESSION_THRESHOLD: Explicit threshold in bytes (0 disables compression). Overrides NETWORK_LINK.
+ * - NETWORK_LINK: "lan" (default, compression disabled) or "wan" (packets of 256 bytes and more are compressed).
+ */
+public final class CompressionPolicy {
+
+    public static final int DISABLED = 0;
+    // Vanilla's default threshold
+    public static final int WAN_THRESHOLD = 256;
+
+    private CompressionPolicy() {}
+
+    /**
+     * Applies the configured threshold. Must be called before the server is started.
+     *
+     * @return The threshold in effect.
+     */
+    public static int configure() {
+        int threshold = resolve(System.getenv("COMPRESSION_THRESHOLD"), System.getenv().getOrDefault("NETWORK_LINK", "lan"));
+        MinecraftServer.setCompressionThreshold(threshold);
+        if (threshold == DISABLED) {
+            logger.info("CompressionPolicy: Network compression disabled.");
+        } else {
+            logger.info("CompressionPolicy: Compressing packets of {} bytes and more.", threshold);
+        }
+        return threshold;
+    }
+
+    static int resolve(String explicitThreshold, String link) {
+        if (explicitThreshold != null && !explicitThreshold.isBlank()) {
+            try {
+                int threshold = Integer.parseInt(explicitThreshold.trim());
+                if (threshold >= 0) return threshold;
+            } catch (NumberFormatException ignored) {
+                // fall through to the warning below
+            }
+            logger.warn("CompressionPolicy: Invalid COMPRESSION_THRESHOLD '{}'. Falling back to NETWORK_LINK.", explicitThreshold);
+        }
+        return switch (link.trim().toLowerCase()) {
+            case "wan" -> WAN_THRESHOLD;
+            case "lan" -> DISABLED;
+            default -> {
+                logger.warn("CompressionPolicy: Unknown NETWORK_LINK '{}'. Using lan.", link);
+                yield DISABLED;
+            }
+        };
+    }
+}
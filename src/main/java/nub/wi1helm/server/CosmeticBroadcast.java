@@ -0,0 +1,105 @@
+package nub.wi1helm.server;
+
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.entity.Player;
+import net.minestom.server.network.packet.server.CachedPacket;
+import net.minestom.server.network.packet.server.ServerPacket;
+import net.minestom.server.timer.ExecutionType;
+import net.minestom.server.timer.TaskSchedule;
+import nub.wi1helm.metrics.TickMetrics;
+import nub.wi1helm.metrics.TickPhase;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Broadcast path for cosmetic packets that every viewer receives byte-for-byte identical
+ * (billboard metadata, shared sidebar content, announcements).
+ *
+ * Packets are wrapped in a {@link CachedPacket}, so they are encoded once and the same buffer is written to every
+ * viewer. Packets submitted with a key are coalesced: only the latest packet per key is sent, once, at the end of the tick.
+ */
+public final class CosmeticBroadcast {
+
+    private static final Map<Object, Pending> pending = new ConcurrentHashMap<>();
+
+    private static final AtomicLong packetsEncoded = new AtomicLong();
+    private static final AtomicLong packetsDelivered = new AtomicLong();
+    private static final AtomicLong packetsCoalesced = new AtomicLong();
+
+    private static volatile boolean started = false;
+
+    private record Pending(Collection<? extends Player> viewers, ServerPacket packet) {}
+
+    private CosmeticBroadcast() {}
+
+    /**
+     * Starts the end-of-tick flush. Safe to call more than once.
+     */
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+        MinecraftServer.getSchedulerManager().submitTask(() -> {
+            final long start = TickMetrics.begin();
+            flush();
+            TickMetrics.end(TickPhase.SCHEDULER, start);
+            return TaskSchedule.nextTick();
+        }, ExecutionType.TICK_END);
+        logger.info("CosmeticBroadcast: Started end-of-tick cosmetic packet flush.");
+    }
+
+    /**
+     * Queues a packet for the given viewers, replacing anything queued under the same key during this tick.
+     *
+     * @param key     Identifies what the packet updates (e.g. the billboard entity).
+     * @param viewers The viewers at flush time; the collection is read when the tick ends.
+     * @param packet  The packet, identical for all viewers.
+     */
+    public static void submit(Object key, Collection<? extends Player> viewers, ServerPacket packet) {
+        if (pending.put(key, new Pending(viewers, packet)) != null) {
+            packetsCoalesced.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sends a packet to all given viewers right away, encoding it only once.
+     */
+    public static void broadcast(Collection<? extends Player> viewers, ServerPacket packet) {
+        if (viewers.isEmpty()) return;
+        CachedPacket cachedPacket = new CachedPacket(packet);
+        int delivered = 0;
+        for (Player viewer : viewers) {
+            viewer.sendPacket(cachedPacket);
+            delivered++;
+        }
+        packetsEncoded.incrementAndGet();
+        packetsDelivered.addAndGet(delivered);
+    }
+
+    private static void flush() {
+        if (pending.isEmpty()) return;
+        Iterator<Pending> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            Pending next = iterator.next();
+            iterator.remove();
+            broadcast(next.viewers(), next.packet());
+        }
+    }
+
+    public static long getPacketsEncoded() {
+        return packetsEncoded.get();
+    }
+
+    public static long getPacketsDelivered() {
+        return packetsDelivered.get();
+    }
+
+    public static long getPacketsCoalesced() {
+        return packetsCoalesced.get();
+    }
+}
@@ -0,0 +1,189 @@
+package nub.wi1helm.server;
+
+import net.minestom.server.entity.Player;
+import net.minestom.server.network.packet.server.common.KeepAlivePacket;
+import nub.wi1helm.config.LobbyConfig;
+import nub.wi1helm.metrics.Histogram;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Paces logins so that a wave of players (e.g. after a proxy restart) doesn't hit the backends all at once.
+ *
+ * Players are admitted through a token bucket sized to what player-service and game-service can take. Players over
+ * the limit wait in the configuration phase, in arrival order. While they wait they get keep-alives (so the client
+ * doesn't time out) and their queue position on the {@link #QUEUE_CHANNEL} plugin channel; the vanilla client shows
+ * no chat or titles during configuration, so the position is meant for the proxy or client mods.
+ *
+ * The rate, burst and maximum wait are the reloadable {@link LobbyConfig} settings {@code login-admission.*}, so they
+ * can be turned up or down during an incident without a restart; a change applies from the next refill.
+ */
+public final class LoginAdmission {
+
+    public static final String QUEUE_CHANNEL = "lobby:queue_position";
+
+
+    private static final long REFILL_INTERVAL_MILLIS = 50;
+    // Keep-alive and queue position update interval for waiting players; well below the client's 30 s timeout
+    private static final long HOLD_INTERVAL_MILLIS = 2000;
+
+    private static final ArrayDeque<CompletableFuture<Void>> queue = new ArrayDeque<>();
+    private static double tokens = LobbyConfig.LOGIN_ADMISSION_BURST.get();
+    private static long lastRefillNanos = System.nanoTime();
+
+    private static final Histogram waitTimes = new Histogram(); // microseconds
+    private static final AtomicLong admitted = new AtomicLong();
+    private static final AtomicLong turnedAway = new AtomicLong();
+
+    private static volatile ScheduledExecutorService scheduler;
+
+    private LoginAdmission() {}
+
+    /**
+     * Starts refilling the bucket. Safe to call more than once.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Login-Admission");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(LoginAdmission::refill, REFILL_INTERVAL_MILLIS, REFILL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        logger.info("LoginAdmission: Admitting {} logins/s (burst {}), max wait {} s.", LobbyConfig.LOGIN_ADMISSION_RATE.get(),
+                LobbyConfig.LOGIN_ADMISSION_BURST.get(), LobbyConfig.LOGIN_ADMISSION_MAX_WAIT_SECONDS.get());
+    }
+
+    /**
+     * Blocks the (configuration phase) caller until the player may log in.
+     *
+     * @return False if the player waited longer than the maximum wait or disconnected while waiting.
+     */
+    public static boolean admit(Player player) {
+        final long start = System.nanoTime();
+        CompletableFuture<Void> ticket = new CompletableFuture<>();
+        synchronized (LoginAdmission.class) {
+            refillLocked();
+            if (queue.isEmpty() && tokens >= 1) {
+                tokens -= 1;
+                ticket.complete(null);
+            } else {
+                queue.addLast(ticket);
+            }
+        }
+
+        boolean ok = hold(player, ticket, LobbyConfig.LOGIN_ADMISSION_MAX_WAIT_SECONDS.duration().toMillis(), true);
+        if (!ok) {
+            synchronized (LoginAdmission.class) {
+                queue.remove(ticket);
+            }
+            // Admitted right as we gave up: hand the token to the next in line
+            if (!ticket.cancel(false)) {
+                synchronized (LoginAdmission.class) {
+                    tokens = Math.min(LobbyConfig.LOGIN_ADMISSION_BURST.get(), tokens + 1);
+                }
+            }
+            turnedAway.incrementAndGet();
+            logger.warn("LoginAdmission: {} gave up after {} ms in the login queue.", player.getUsername(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return false;
+        }
+        admitted.incrementAndGet();
+        waitTimes.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        return true;
+    }
+
+    /**
+     * Keeps a player in the configuration phase until the given future completes, sending keep-alives meanwhile.
+     *
+     * @return True if the future completed (normally or not) in time and the player is still online.
+     */
+    public static boolean holdUntil(Player player, CompletableFuture<?> future, long timeoutMillis) {
+        return hold(player, future, timeoutMillis, false);
+    }
+
+    private static boolean hold(Player player, CompletableFuture<?> future, long timeoutMillis, boolean reportPosition) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !player.isOnline()) return false;
+            try {
+                future.get(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(HOLD_INTERVAL_MILLIS)), TimeUnit.NANOSECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                keepAlive(player);
+                if (reportPosition) {
+                    int position = positionOf(future);
+                    if (position > 0) player.sendPluginMessage(QUEUE_CHANNEL, String.valueOf(position));
+                }
+            } catch (ExecutionException e) {
+                return true; // completed; the caller looks at the outcome
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private static void keepAlive(Player player) {
+        // Same bookkeeping Minestom does in play state, so the client's answer is accepted
+        long id = System.currentTimeMillis();
+        player.refreshKeepAlive(id);
+        player.sendPacket(new KeepAlivePacket(id));
+    }
+
+    private static synchronized int positionOf(CompletableFuture<?> ticket) {
+        int position = 1;
+        for (CompletableFuture<Void> queued : queue) {
+            if (queued == ticket) return position;
+            position++;
+        }
+        return 0;
+    }
+
+    private static synchronized void refill() {
+        refillLocked();
+        Iterator<CompletableFuture<Void>> iterator = queue.iterator();
+        while (tokens >= 1 && iterator.hasNext()) {
+            CompletableFuture<Void> ticket = iterator.next();
+            iterator.remove();
+            if (ticket.complete(null)) tokens -= 1;
+        }
+    }
+
+    private static void refillLocked() {
+        long now = System.nanoTime();
+        double refilled = (now - lastRefillNanos) / 1e9 * LobbyConfig.LOGIN_ADMISSION_RATE.get();
+        tokens = Math.min(LobbyConfig.LOGIN_ADMISSION_BURST.get(), tokens + refilled);
+        lastRefillNanos = now;
+    }
+
+    public static synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    public static long getAdmitted() {
+        return admitted.get();
+    }
+
+    public static long getTurnedAway() {
+        return turnedAway.get();
+    }
+
+    /**
+     * @return Time from arrival to admission of admitted players, in microseconds.
+     */
+    public static Histogram getWaitTimes() {
+        return waitTimes;
+    }
+}
@@ -0,0 +1,35 @@
+package nub.wi1helm.server;
+
+/**
+ * Formats playtime values (stored in ticks) the way they are shown to players, e.g. {@code 00.001.234}.
+ */
+public final class PlaytimeFormat {
+
+    private static final int MIN_DIGITS = 8;
+
+    private PlaytimeFormat() {}
+
+    /**
+     * Converts ticks to whole seconds, zero-pads them to at least 8 digits and groups the digits by three with dots.
+     * Produces the same output as {@code String.format("%08d", seconds)} followed by the grouping regex,
+     * without the regex.
+     *
+     * @param ticks The playtime in ticks.
+     * @return The formatted seconds.
+     */
+    public static String format(double ticks) {
+        long seconds = Math.max(0L, (long) (ticks / 20));
+        String digits = Long.toString(seconds);
+        int width = Math.max(MIN_DIGITS, digits.length());
+        int padding = width - digits.length();
+
+        StringBuilder builder = new StringBuilder(width + width / 3);
+        for (int i = 0; i < width; i++) {
+            if (i > 0 && (width - i) % 3 == 0) {
+                builder.append('.');
+            }
+            builder.append(i < padding ? '0' : digits.charAt(i - padding));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,69 @@
+package nub.wi1helm.server;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands playtime values fetched on HttpClient threads over to the player's tick thread.
+ *
+ * Each value (total and delta playtime) has a single slot. At most one request per slot is in flight at a time, every
+ * request is numbered when it is issued, and a result only replaces the slot's content if it belongs to a newer
+ * request than the one already posted. The tick thread takes the latest values once per tick and publishes them in
+ * a new profile snapshot, so the profile never goes back to an older value.
+ * Posting and taking only move primitives, so a pending update costs no allocation.
+ */
+final class PlaytimeMailbox {
+
+    static final class Slot {
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicBoolean inFlight = new AtomicBoolean(false);
+
+        private long postedSequence = 0;
+        private double value;
+        private boolean pending = false;
+
+        /**
+         * Claims the slot for a new request.
+         *
+         * @return The request's sequence number, or -1 if a request for this slot is still in flight.
+         */
+        long begin() {
+            if (!inFlight.compareAndSet(false, true)) return -1;
+            return sequence.incrementAndGet();
+        }
+
+        /**
+         * Posts the result of request {@code seq} and releases the slot for the next request.
+         * Results of requests older than the one already posted are dropped.
+         */
+        void post(long seq, double newValue) {
+            synchronized (this) {
+                if (seq > postedSequence) {
+                    postedSequence = seq;
+                    value = newValue;
+                    pending = true;
+                }
+            }
+            inFlight.set(false);
+        }
+
+        /**
+         * Releases the slot after a failed request.
+         */
+        void fail() {
+            inFlight.set(false);
+        }
+
+        /**
+         * @return The latest posted value not taken yet, or NaN if there is none.
+         */
+        synchronized double take() {
+            if (!pending) return Double.NaN;
+            pending = false;
+            return value;
+        }
+    }
+
+    final Slot totalPlaytime = new Slot();
+    final Slot deltaPlaytime = new Slot();
+}
@@ -0,0 +1,102 @@
+package nub.wi1helm.server;
+
+import nub.wi1helm.config.LobbyConfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Configures how Minestom's tick dispatcher spreads the lobby's chunks (and the entities inside them) across threads.
+ *
+ * Minestom owns the dispatcher and assigns every chunk partition to a thread round-robin, in the order chunks are
+ * loaded. We can't swap that provider, but we control the thread count and the load order. The chunk grid is cut into
+ * square regions, regions are balanced across the threads, and the chunks are then loaded in an order that makes the
+ * round-robin assignment put every chunk of a region on the region's thread. The layout only depends on the grid,
+ * the region size and the thread count, so it is identical on every start.
+ *
+ * The thread count and region size are {@link LobbyConfig#DISPATCHER_THREADS} and {@link LobbyConfig#DISPATCHER_REGION_SIZE}.
+ */
+public final class RegionDispatch {
+
+    private static final String DISPATCHER_THREADS_PROPERTY = "minestom.dispatcher-threads";
+
+    public record ChunkCoord(int x, int z) {}
+
+    private RegionDispatch() {}
+
+    /**
+     * Applies the configured thread count to Minestom. Must be called before {@code MinecraftServer.init()}.
+     */
+    public static void configure() {
+        System.setProperty(DISPATCHER_THREADS_PROPERTY, String.valueOf(threads()));
+        logger.info("RegionDispatch: Ticking with {} dispatcher threads and {}x{} chunk regions.", threads(), regionSize(), regionSize());
+    }
+
+    public static int threads() {
+        return LobbyConfig.DISPATCHER_THREADS.getInt();
+    }
+
+    public static int regionSize() {
+        return LobbyConfig.DISPATCHER_REGION_SIZE.getInt();
+    }
+
+    /**
+     * Computes the order in which the chunks of the given (inclusive) grid have to be loaded so that Minestom's
+     * round-robin partition assignment groups them by region.
+     */
+    public static List<ChunkCoord> loadOrder(int minX, int maxX, int minZ, int maxZ) {
+        return loadOrder(minX, maxX, minZ, maxZ, regionSize(), threads());
+    }
+
+    static List<ChunkCoord> loadOrder(int minX, int maxX, int minZ, int maxZ, int regionSize, int threads) {
+        // Collect regions in a fixed (z, then x) order
+        List<List<ChunkCoord>> regions = new ArrayList<>();
+        for (int rz = Math.floorDiv(minZ, regionSize); rz <= Math.floorDiv(maxZ, regionSize); rz++) {
+            for (int rx = Math.floorDiv(minX, regionSize); rx <= Math.floorDiv(maxX, regionSize); rx++) {
+                List<ChunkCoord> region = new ArrayList<>();
+                for (int z = Math.max(minZ, rz * regionSize); z <= Math.min(maxZ, rz * regionSize + regionSize - 1); z++) {
+                    for (int x = Math.max(minX, rx * regionSize); x <= Math.min(maxX, rx * regionSize + regionSize - 1); x++) {
+                        region.add(new ChunkCoord(x, z));
+                    }
+                }
+                if (!region.isEmpty()) regions.add(region);
+            }
+        }
+
+        // Balance regions over threads: largest region first onto the least loaded thread (stable on ties)
+        List<ArrayDeque<ChunkCoord>> queues = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) queues.add(new ArrayDeque<>());
+        List<List<ChunkCoord>> bySize = new ArrayList<>(regions);
+        bySize.sort(Comparator.comparingInt((List<ChunkCoord> r) -> r.size()).reversed());
+        for (List<ChunkCoord> region : bySize) {
+            ArrayDeque<ChunkCoord> target = queues.get(0);
+            for (ArrayDeque<ChunkCoord> queue : queues) {
+                if (queue.size() < target.size()) target = queue;
+            }
+            target.addAll(region);
+        }
+
+        // Interleave so that load position i lands on thread (i % threads). When a thread runs out of chunks the
+        // position is filled from the fullest queue; only those few spilled chunks leave their region's thread.
+        int total = queues.stream().mapToInt(ArrayDeque::size).sum();
+        List<ChunkCoord> order = new ArrayList<>(total);
+        int spilled = 0;
+        for (int i = 0; i < total; i++) {
+            ArrayDeque<ChunkCoord> queue = queues.get(i % threads);
+            if (queue.isEmpty()) {
+                for (ArrayDeque<ChunkCoord> candidate : queues) {
+                    if (candidate.size() > queue.size()) queue = candidate;
+                }
+                spilled++;
+            }
+            order.add(queue.poll());
+        }
+
+        logger.debug("RegionDispatch: {} chunks in {} regions over {} threads ({} spilled).", total, regions.size(), threads, spilled);
+        return List.copyOf(order);
+    }
+}
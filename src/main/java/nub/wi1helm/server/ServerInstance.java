@@ -4,59 +4,182 @@ import net.kyori.adventure.key.Key;
 import net.minestom.server.MinecraftServer;
 import net.minestom.server.color.Color;
 import net.minestom.server.coordinate.BlockVec;
+import net.minestom.server.event.player.PlayerBlockBreakEvent;
+import net.minestom.server.event.player.PlayerBlockPlaceEvent;
 import net.minestom.server.instance.Chunk;
+import net.minestom.server.instance.LightingChunk;
 import net.minestom.server.instance.anvil.AnvilLoader;
+import net.minestom.server.instance.block.Block;
 import net.minestom.server.registry.DynamicRegistry;
 import net.minestom.server.world.DimensionType;
 import net.minestom.server.world.biome.Biome;
 import net.minestom.server.world.biome.BiomeEffects;
+import nub.wi1helm.config.LobbyConfig;
+import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Properties;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+
+import static nub.wi1helm.Main.logger;
 
 public class ServerInstance extends net.minestom.server.instance.InstanceContainer {
 
-    private int CHUNK_RADIUS_X = 4;
-    private int CHUNK_RADIUS_Z = 2;
+    // CORRECTED LINE: Use the path relative to the /app WORKDIR in the Docker container
+    // The resources are copied to /app/resources, so the world is at /app/resources/world
+    private static final Path WORLD_PATH = Path.of("resources/world");
+    // Written into the world folder by a lighting bake (./gradlew bakeLighting) with the chunk radii it covered
+    private static final String BAKED_MARKER = "lighting.baked";
+
+    // The lobby is a static spectator world: once loaded, nothing in it should change.
+    private final boolean frozen;
+    // Set once the initial chunk load (and biome painting) is done; from then on a frozen instance rejects block changes.
+    private volatile boolean sealed = false;
+    private final Path bakedMarker;
 
     public ServerInstance() {
-        // CORRECTED LINE: Use the path relative to the /app WORKDIR in the Docker container
-        // The resources are copied to /app/resources, so the world is at /app/resources/world
-        super(UUID.randomUUID(), DimensionType.OVERWORLD, new AnvilLoader("resources/world"));
+        this(!"false".equalsIgnoreCase(System.getenv().getOrDefault("LOBBY_FROZEN", "true")),
+                "true".equalsIgnoreCase(System.getenv().getOrDefault("LOBBY_BAKE_LIGHTING", "false")));
+    }
+
+    /**
+     * @param frozen       If true, block changes are rejected, and lighting is never recomputed after load if the
+     *                     world folder holds baked lighting for every loaded chunk.
+     * @param bakeLighting If true, lighting is computed once for the loaded chunks and written back to the world
+     *                     folder, so that later (frozen) starts can serve it straight from the region files.
+     */
+    public ServerInstance(boolean frozen, boolean bakeLighting) {
+        this(WORLD_PATH, frozen, bakeLighting);
+    }
+
+    /**
+     * @param worldPath The world folder to load, for tools that don't run in the directory holding resources/world.
+     */
+    ServerInstance(Path worldPath, boolean frozen, boolean bakeLighting) {
+        super(UUID.randomUUID(), DimensionType.OVERWORLD, new AnvilLoader(worldPath));
+        this.frozen = frozen;
+        this.bakedMarker = worldPath.resolve(BAKED_MARKER);
         this.enableAutoChunkLoad(false);
-        // Store the futures so we can use CompletableFuture#allOf
-        Set<CompletableFuture<Chunk>> futures = new HashSet<>();
+
+        int radiusX = LobbyConfig.CHUNK_RADIUS_X.getInt();
+        int radiusZ = LobbyConfig.CHUNK_RADIUS_Z.getInt();
+
+        // With baked lighting, the light is persisted in the region files (see bakeLighting), so a frozen instance only
+        // has to serve what the AnvilLoader read and must never invalidate it. Without it, freezing would serve chunks
+        // without any light, so the light stays live until a bake covering the loaded radius has been committed.
+        final boolean freezeLight = frozen && !bakeLighting && isLightingBaked(radiusX, radiusZ);
+        this.setChunkSupplier((instance, chunkX, chunkZ) -> {
+            LightingChunk chunk = new LightingChunk(instance, chunkX, chunkZ);
+            chunk.setFreezeInvalidation(freezeLight);
+            return chunk;
+        });
+        if (frozen && !bakeLighting && !freezeLight) {
+            logger.warn("ServerInstance: No baked lighting for a {}x{} chunk radius in {}. Lighting stays live; run ./gradlew bakeLighting to bake it.",
+                    radiusX, radiusZ, worldPath);
+        }
 
         Biome biome = Biome.builder().effects(BiomeEffects.builder().skyColor(new Color(110, 177, 255)).waterColor(new Color(0,0,0)).waterFogColor(new Color(0,0,0)).fogColor(new Color(45,35,45)).build()).build();
         MinecraftServer.getBiomeRegistry().register(Key.key("main"),biome);
 
         setTime(1000);
+        if (frozen) {
+            // No day cycle either, so the instance never has to advance or resync world time.
+            setTimeRate(0);
+        }
 
-        for (int x = -CHUNK_RADIUS_X; x <= CHUNK_RADIUS_X; x++) {
-            for (int z = -CHUNK_RADIUS_Z; z <= CHUNK_RADIUS_Z; z++) {
-                CompletableFuture<Chunk> future = this.loadChunk(x, z);
-
-                // After chunk is loaded, set the biome for every block column inside the chunk
-                future.thenAccept(chunk -> {
-                    if (chunk != null) {
-                        for (int bx = 0; bx < 16; bx++) {
-                            for (int bz = 0; bz < 16; bz++) {
-                                for (int by = -64; by < 256; by++) {
-                                    chunk.setBiome(new BlockVec(bx, by, bz), DynamicRegistry.Key.of(Key.key("main")));
-                                }
-                            }
-                        }
-                    }
-                });
-
-                futures.add(future);
+        // Chunks are loaded one after another in the order RegionDispatch computed, because the dispatcher hands
+        // out tick threads in load order. That keeps the thread layout of the lobby identical on every start.
+        for (RegionDispatch.ChunkCoord coord : RegionDispatch.loadOrder(-radiusX, radiusX, -radiusZ, radiusZ)) {
+            Chunk chunk = this.loadChunk(coord.x(), coord.z()).join();
+
+            // After chunk is loaded, set the biome for every block column inside the chunk
+            if (chunk != null) {
+                paintBiome(chunk);
             }
         }
 
-        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        if (bakeLighting) {
+            bakeLighting(radiusX, radiusZ);
+        }
+
+        if (frozen) {
+            // Players are spectators, but cancel interaction-driven changes explicitly as well.
+            eventNode().addListener(PlayerBlockBreakEvent.class, event -> event.setCancelled(true));
+            eventNode().addListener(PlayerBlockPlaceEvent.class, event -> event.setCancelled(true));
+            this.sealed = true;
+            logger.info("ServerInstance: Frozen with {} chunks loaded. {}", getChunks().size(), freezeLight || bakeLighting
+                    ? "Block changes and lighting updates are disabled." : "Block changes are disabled.");
+        }
 
         MinecraftServer.getInstanceManager().registerInstance(this);
     }
+
+    /**
+     * Computes lighting for every loaded chunk and saves the chunks back through the AnvilLoader,
+     * which persists the sky and block light next to the block data in the region files. Then records the baked
+     * radius in the marker file that later starts check before they freeze the light.
+     */
+    private void bakeLighting(int radiusX, int radiusZ) {
+        logger.info("ServerInstance: Baking lighting for {} chunks...", getChunks().size());
+        LightingChunk.relight(this, getChunks());
+        saveChunksToStorage().join();
+        Properties marker = new Properties();
+        marker.setProperty("chunk-radius-x", String.valueOf(radiusX));
+        marker.setProperty("chunk-radius-z", String.valueOf(radiusZ));
+        try (Writer writer = Files.newBufferedWriter(bakedMarker)) {
+            marker.store(writer, "Chunk radii covered by the baked lighting in the region files");
+        } catch (IOException e) {
+            logger.error("ServerInstance: Failed to write {}: {}. Later starts will keep lighting live.", bakedMarker, e.getMessage());
+        }
+        for (Chunk chunk : getChunks()) {
+            if (frozen && chunk instanceof LightingChunk lightingChunk) {
+                lightingChunk.setFreezeInvalidation(true);
+            }
+        }
+        logger.info("ServerInstance: Lighting baked and saved to the world folder.");
+    }
+
+    /**
+     * @return True if the world folder holds baked lighting for at least the given chunk radii.
+     */
+    private boolean isLightingBaked(int radiusX, int radiusZ) {
+        Properties marker = new Properties();
+        try (Reader reader = Files.newBufferedReader(bakedMarker)) {
+            marker.load(reader);
+            return Integer.parseInt(marker.getProperty("chunk-radius-x", "-1")) >= radiusX
+                    && Integer.parseInt(marker.getProperty("chunk-radius-z", "-1")) >= radiusZ;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("ServerInstance: Could not read {}: {}. Treating lighting as not baked.", bakedMarker, e.getMessage());
+            return false;
+        }
+    }
+
+    static void paintBiome(Chunk chunk) {
+        for (int bx = 0; bx < 16; bx++) {
+            for (int bz = 0; bz < 16; bz++) {
+                for (int by = -64; by < 256; by++) {
+                    chunk.setBiome(new BlockVec(bx, by, bz), DynamicRegistry.Key.of(Key.key("main")));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setBlock(int x, int y, int z, @NotNull Block block, boolean doBlockUpdates) {
+        if (sealed) {
+            throw new IllegalStateException("ServerInstance is frozen; cannot set block at " + x + ", " + y + ", " + z);
+        }
+        super.setBlock(x, y, z, block, doBlockUpdates);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
 }
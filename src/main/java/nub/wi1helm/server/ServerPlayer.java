@@ -1,132 +1,282 @@
 package nub.wi1helm.server;
 
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.format.NamedTextColor;
 import net.minestom.server.entity.Player;
 import net.minestom.server.network.player.GameProfile;
 import net.minestom.server.network.player.PlayerConnection;
+import nub.wi1helm.game.GameHandler;
+import nub.wi1helm.metrics.TickMetrics;
+import nub.wi1helm.metrics.TickPhase;
 import nub.wi1helm.player.GameService;
+import nub.wi1helm.player.PlaytimeAccrual;
 import nub.wi1helm.player.PlayerService;
 import nub.wi1helm.server.ServerProfile;
 import nub.wi1helm.server.ServerTeam;
 import org.jetbrains.annotations.NotNull;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
 
 import static nub.wi1helm.Main.logger;
 
 public class ServerPlayer extends Player {
 
+    // Immutable snapshot; only accessed through PROFILE (release on write, acquire on read)
+    @SuppressWarnings("unused")
     private ServerProfile serverProfile;
+    private static final VarHandle PROFILE;
+
+    static {
+        try {
+            PROFILE = MethodHandles.lookup().findVarHandle(ServerPlayer.class, "serverProfile", ServerProfile.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     // Use singleton instances instead of creating new ones
     private static final PlayerService playerService = PlayerService.getInstance();
     private static final GameService gameService = GameService.getInstance();
+    private static final PlaytimeAccrual playtimeAccrual = PlaytimeAccrual.getInstance();
 
-    private final CompletableFuture<Void> playerDataLoadFuture;
+    // Completes once the profile load (successful or not) has finished
+    private final CompletableFuture<Void> playerDataLoadFuture = new CompletableFuture<>();
+    // Playtime values fetched asynchronously, applied to serverProfile on the tick thread
+    private final PlaytimeMailbox playtimeMailbox = new PlaytimeMailbox();
+    // Playtime counted on this server, null if accrual is disabled and game-service computes it; set before the
+    // profile is published, so it is in place whenever tick() sees a profile
+    private PlaytimeAccrual.Account accrualAccount;
+
+    // The action bar last shown and what it displays; tick thread only. It is rebuilt when the shown second or rate
+    // changes and re-sent as it is otherwise (the client fades it out unless it keeps coming).
+    private Component actionBar;
+    private long actionBarSeconds;
+    private long actionBarRateTenths;
 
     public ServerPlayer(@NotNull PlayerConnection playerConnection, @NotNull GameProfile gameProfile) {
         super(playerConnection, gameProfile);
+    }
 
-        this.playerDataLoadFuture = playerService.loadPlayerProfile(getUuid().toString(), getUsername())
+    /**
+     * Starts loading the player's profile and playtime. Called once the player has been admitted (see
+     * {@link LoginAdmission}), so that the backends only see as many loads as the admission rate allows.
+     *
+     * @return The future that completes when the load has finished, see {@link #getPlayerDataLoadFuture()}.
+     */
+    public CompletableFuture<Void> loadPlayerData() {
+        this.accrualAccount = playtimeAccrual.isEnabled() ? playtimeAccrual.open(getUuid().toString()) : null;
+        playerService.loadPlayerProfile(getUuid().toString(), getUsername())
                 .thenCompose(loadedProfile -> {
-                    this.serverProfile = loadedProfile;
+                    if (loadedProfile == null) {
+                        // PlayerService has logged why; without a profile the player can't be let in
+                        throw new IllegalStateException("player-data-service returned no profile");
+                    }
+                    // The initial values go through the mailbox as well. The slots are claimed before the profile
+                    // becomes visible to tick(), so these are always the first requests.
+                    long totalSeq = playtimeMailbox.totalPlaytime.begin();
+                    long deltaSeq = playtimeMailbox.deltaPlaytime.begin();
+                    PROFILE.setRelease(this, loadedProfile);
 
                     CompletableFuture<Double> totalPlaytimeFuture = gameService.getPlayerTotalPlaytime(getUuid().toString());
                     CompletableFuture<Double> deltaPlaytimeFuture = gameService.getPlayerDeltaPlaytime(getUuid().toString());
 
                     return CompletableFuture.allOf(totalPlaytimeFuture, deltaPlaytimeFuture)
-                            .thenAccept(v -> {
-                                try {
-                                    double totalPlaytime = totalPlaytimeFuture.join();
-                                    double deltaPlaytime = deltaPlaytimeFuture.join();
-
-                                    this.serverProfile.setPlaytime(totalPlaytime);
-                                    this.serverProfile.setDeltaPlaytime(deltaPlaytime);
-
-                                    logger.info("ServerPlayer {} (UUID: {}) fully initialized with profile: Team={}, TotalPlaytime={}, DeltaPlaytime={}, Banned={}, FirstJoin={}",
-                                            getUsername(), getUuid(), serverProfile.getServerTeam(), serverProfile.getPlaytime(), serverProfile.getDeltaPlaytime(), serverProfile.isBanned(), serverProfile.isFirstJoin());
-
-                                } catch (Exception e) {
+                            .whenComplete((v, e) -> {
+                                if (e != null) {
+                                    playtimeMailbox.totalPlaytime.fail();
+                                    playtimeMailbox.deltaPlaytime.fail();
                                     logger.error("Failed to fetch initial playtime data for {} (UUID: {}): {}", getUsername(), getUuid(), e.getMessage(), e);
+                                    return;
                                 }
-                            });
+                                double totalPlaytime = totalPlaytimeFuture.join();
+                                double deltaPlaytime = deltaPlaytimeFuture.join();
+
+                                playtimeMailbox.totalPlaytime.post(totalSeq, totalPlaytime);
+                                playtimeMailbox.deltaPlaytime.post(deltaSeq, deltaPlaytime);
+
+                                logger.info("ServerPlayer {} (UUID: {}) fully initialized with profile: Team={}, TotalPlaytime={}, DeltaPlaytime={}, Banned={}, FirstJoin={}",
+                                        getUsername(), getUuid(), loadedProfile.serverTeam(), totalPlaytime, deltaPlaytime, loadedProfile.banned(), loadedProfile.firstJoin());
+                            })
+                            .exceptionally(e -> null);
                 })
                 .exceptionally(ex -> {
                     logger.error("Failed to load/create ServerProfile for {} (UUID: {}): {}", getUsername(), getUuid(), ex.getMessage(), ex);
                     Throwable actualCause = ex.getCause() != null ? ex.getCause() : ex;
                     this.kick(Component.text("Failed to load your player data: " + actualCause.getMessage()));
                     return null;
-                });
+                })
+                .whenComplete((v, e) -> playerDataLoadFuture.complete(null));
+        return playerDataLoadFuture;
     }
 
     @Override
     public void tick(long time) {
+        final long tickStart = TickMetrics.begin();
         super.tick(time);
 
-        // Use singleton instances
-        gameService.getPlayerTotalPlaytime(getUuid().toString())
-                .thenAccept(latestPlaytime -> {
-                    if (serverProfile != null) {
-                        serverProfile.setPlaytime(latestPlaytime);
-                    }
-                })
-                .exceptionally(e -> {
-                    logger.warn("Failed to fetch latest total playtime for {}: {}", getUuid(), e.getMessage());
-                    return null;
-                });
-
-        gameService.getPlayerDeltaPlaytime(getUuid().toString())
-                .thenAccept(latestDeltaPlaytime -> {
-                    if (serverProfile != null) {
-                        serverProfile.setDeltaPlaytime(latestDeltaPlaytime);
-                    }
-                })
-                .exceptionally(e -> {
-                    logger.warn("Failed to fetch latest delta playtime for {}: {}", getUuid(), e.getMessage());
-                    return null;
-                });
+        ServerProfile profile = profile();
+        if (profile != null) {
+            profile = drainPlaytimeMailbox(profile);
+            requestPlaytimeUpdates();
+            if (accrualAccount != null) {
+                accrualAccount.accrue(profile.deltaPlaytime());
+            }
+            // Every tick online earns deltaPlaytime ticks of playtime for the player's team
+            GameHandler.recordTeamPlaytime(profile.serverTeam(), profile.deltaPlaytime());
+        }
         updateActionBar();
+        TickMetrics.end(TickPhase.PLAYER, tickStart);
     }
 
-    public void updateActionBar() {
-        if (serverProfile == null) return;
+    /**
+     * Publishes the playtime values that arrived since the last tick in a new profile snapshot.
+     *
+     * @return The snapshot that is current after draining.
+     */
+    private ServerProfile drainPlaytimeMailbox(ServerProfile current) {
+        double total = playtimeMailbox.totalPlaytime.take();
+        double delta = playtimeMailbox.deltaPlaytime.take();
+        if (Double.isNaN(total) && Double.isNaN(delta)) return current;
+        return updateServerProfile(profile -> {
+            ServerProfile updated = profile;
+            if (!Double.isNaN(total)) updated = updated.withPlaytime(total);
+            if (!Double.isNaN(delta)) updated = updated.withDeltaPlaytime(delta);
+            return updated;
+        });
+    }
+
+    /**
+     * Asks the Game Service for fresh playtime values. A value whose previous request hasn't been answered yet is
+     * skipped, so a slow backend never has more than one request per value and player outstanding.
+     * GameService reports errors and unknown players as 0.0, so a 0.0 after a known value counts as a failed request
+     * and the player keeps the last value (as GameHandler does for the team totals).
+     */
+    private void requestPlaytimeUpdates() {
+        // With local accrual the total is known here; only the rate still comes from game-service
+        long totalSeq = accrualAccount == null ? playtimeMailbox.totalPlaytime.begin() : -1;
+        if (totalSeq >= 0) {
+            gameService.getPlayerTotalPlaytime(getUuid().toString())
+                    .whenComplete((latestPlaytime, e) -> {
+                        if (e != null) {
+                            playtimeMailbox.totalPlaytime.fail();
+                            logger.warn("Failed to fetch latest total playtime for {}: {}", getUuid(), e.getMessage());
+                        } else if (latestPlaytime <= 0.0 && profile().playtime() > 0.0) {
+                            playtimeMailbox.totalPlaytime.fail();
+                        } else {
+                            playtimeMailbox.totalPlaytime.post(totalSeq, latestPlaytime);
+                        }
+                    });
+        }
 
-        long seconds = (long) (serverProfile.getPlaytime() / 20);
-        String formattedTime = String.format("%08d", seconds);
-        String displayTime = formattedTime.replaceAll("(?<=\\d)(?=(\\d{3})+$)", ".");
+        long deltaSeq = playtimeMailbox.deltaPlaytime.begin();
+        if (deltaSeq >= 0) {
+            gameService.getPlayerDeltaPlaytime(getUuid().toString())
+                    .whenComplete((latestDeltaPlaytime, e) -> {
+                        if (e != null) {
+                            playtimeMailbox.deltaPlaytime.fail();
+                            logger.warn("Failed to fetch latest delta playtime for {}: {}", getUuid(), e.getMessage());
+                        } else if (latestDeltaPlaytime <= 0.0 && profile().deltaPlaytime() > 0.0) {
+                            playtimeMailbox.deltaPlaytime.fail();
+                        } else {
+                            playtimeMailbox.deltaPlaytime.post(deltaSeq, latestDeltaPlaytime);
+                        }
+                    });
+        }
+    }
 
-        String rate = String.format("<gray>+%.1fs/s</gray>", (double) getServerProfile().getDeltaPlaytime());
+    public void updateActionBar() {
+        ServerProfile profile = profile();
+        if (profile == null) return;
 
-        String full = displayTime + " " + rate;
-        this.sendActionBar(MiniMessage.miniMessage().deserialize(full));
+        double playtime = playtimeOf(profile);
+        long seconds = (long) (playtime / 20);
+        long rateTenths = Math.round(profile.deltaPlaytime() * 10);
+        if (actionBar == null || seconds != actionBarSeconds || rateTenths != actionBarRateTenths) {
+            actionBar = actionBarText(playtime, profile.deltaPlaytime());
+            actionBarSeconds = seconds;
+            actionBarRateTenths = rateTenths;
+        }
+        this.sendActionBar(actionBar);
+    }
+
+    /**
+     * @return The action bar text, e.g. {@code 00.001.234 +1.0s/s} with the rate in gray.
+     */
+    static Component actionBarText(double playtime, double deltaPlaytime) {
+        long tenths = Math.round(deltaPlaytime * 10);
+        long absTenths = Math.abs(tenths);
+        String rate = (tenths < 0 ? "-" : "+") + absTenths / 10 + "." + absTenths % 10 + "s/s";
+        return Component.text()
+                .content(PlaytimeFormat.format(playtime) + " ")
+                .append(Component.text(rate, NamedTextColor.GRAY))
+                .build();
     }
 
     public CompletableFuture<Void> getPlayerDataLoadFuture() {
         return playerDataLoadFuture;
     }
 
-    @NotNull
+    private ServerProfile profile() {
+        return (ServerProfile) PROFILE.getAcquire(this);
+    }
+
+    /**
+     * @return The current profile snapshot, or null if it hasn't been loaded yet. The snapshot never changes; call
+     * this again to see later updates.
+     */
     public ServerProfile getServerProfile() {
-        if (serverProfile == null) {
+        ServerProfile profile = profile();
+        if (profile == null) {
             logger.warn("Attempted to access ServerProfile for {} before it was loaded!", getUsername());
         }
-        return serverProfile;
+        return profile;
+    }
+
+    /**
+     * Atomically replaces the profile with an updated copy. The update may be applied more than once if another
+     * thread publishes a profile concurrently, so it must not have side effects.
+     *
+     * @param update Creates the new snapshot from the current one.
+     * @return The published snapshot, or null if the profile hasn't been loaded yet.
+     */
+    public ServerProfile updateServerProfile(UnaryOperator<ServerProfile> update) {
+        ServerProfile current = profile();
+        while (current != null) {
+            ServerProfile updated = update.apply(current);
+            ServerProfile witness = (ServerProfile) PROFILE.compareAndExchangeRelease(this, current, updated);
+            if (witness == current) return updated;
+            current = witness;
+        }
+        return null;
+    }
+
+    /**
+     * @return The profile's total plus what was accrued locally since the player joined.
+     */
+    private double playtimeOf(ServerProfile profile) {
+        return accrualAccount != null ? profile.playtime() + accrualAccount.accrued() : profile.playtime();
     }
 
     public double getPlaytime() {
-        return serverProfile != null ? serverProfile.getPlaytime() : 0.0;
+        ServerProfile profile = profile();
+        return profile != null ? playtimeOf(profile) : 0.0;
     }
 
     public double getDeltaPlaytime() {
-        return serverProfile != null ? serverProfile.getDeltaPlaytime() : 1.0;
+        ServerProfile profile = profile();
+        return profile != null ? profile.deltaPlaytime() : 1.0;
     }
 
     public boolean isBanned() {
-        return serverProfile != null && serverProfile.isBanned();
+        ServerProfile profile = profile();
+        return profile != null && profile.banned();
     }
 
     public ServerTeam getServerTeam() {
-        return serverProfile != null ? serverProfile.getServerTeam() : null;
+        ServerProfile profile = profile();
+        return profile != null ? profile.serverTeam() : null;
     }
-}
\ No newline at end of file
+}
@@ -6,57 +6,40 @@ import org.jetbrains.annotations.Nullable;
 
 import java.time.Instant;
 
-public class ServerProfile {
-    private final String uuid;
-    private final String username;
-    private double playtime;
-    private double deltaPlaytime;
-    private boolean banned;
-    private @Nullable Instant banExpiresAt; // New field for ban expiration
-    private ServerTeam serverTeam;
-    private final @Nullable Instant lastLoginAt;
-    private final @Nullable Instant createdAt;
-    private boolean isFirstJoin; // New field for first join status
-
-    public ServerProfile(
-            @NotNull String uuid,
-            @NotNull String username,
-            double playtime,
-            double deltaPlaytime,
-            boolean banned,
-            @Nullable Instant banExpiresAt, // Added to constructor
-            @NotNull ServerTeam serverTeam,
-            @Nullable Instant lastLoginAt,
-            @Nullable Instant createdAt) {
-        this.uuid = uuid;
-        this.username = username;
-        this.playtime = playtime;
-        this.deltaPlaytime = deltaPlaytime;
-        this.banned = banned;
-        this.banExpiresAt = banExpiresAt; // Assign
-        this.serverTeam = serverTeam;
-        this.lastLoginAt = lastLoginAt;
-        this.createdAt = createdAt;
-        this.isFirstJoin = false; // Default to false, will be set by PlayerService
+/**
+ * An immutable snapshot of a player's profile. Changes are made by creating a new snapshot with one of the
+ * {@code with...} methods and publishing it through {@link ServerPlayer#updateServerProfile}, so any thread that reads
+ * a profile always sees a complete and consistent one.
+ */
+public record ServerProfile(
+        @NotNull String uuid,
+        @NotNull String username,
+        double playtime,
+        double deltaPlaytime,
+        boolean banned,
+        @Nullable Instant banExpiresAt,
+        @NotNull ServerTeam serverTeam,
+        @Nullable Instant lastLoginAt,
+        @Nullable Instant createdAt,
+        boolean firstJoin) {
+
+    public ServerProfile withPlaytime(double playtime) {
+        return new ServerProfile(uuid, username, playtime, deltaPlaytime, banned, banExpiresAt, serverTeam, lastLoginAt, createdAt, firstJoin);
+    }
+
+    public ServerProfile withDeltaPlaytime(double deltaPlaytime) {
+        return new ServerProfile(uuid, username, playtime, deltaPlaytime, banned, banExpiresAt, serverTeam, lastLoginAt, createdAt, firstJoin);
+    }
+
+    public ServerProfile withBan(boolean banned, @Nullable Instant banExpiresAt) {
+        return new ServerProfile(uuid, username, playtime, deltaPlaytime, banned, banExpiresAt, serverTeam, lastLoginAt, createdAt, firstJoin);
+    }
+
+    public ServerProfile withServerTeam(@NotNull ServerTeam serverTeam) {
+        return new ServerProfile(uuid, username, playtime, deltaPlaytime, banned, banExpiresAt, serverTeam, lastLoginAt, createdAt, firstJoin);
     }
 
-    // --- Getters ---
-    public @NotNull String getUuid() { return uuid; }
-    public @NotNull String getUsername() { return username; }
-    public double getPlaytime() { return playtime; }
-    public double getDeltaPlaytime() { return deltaPlaytime; }
-    public boolean isBanned() { return banned; }
-    public @Nullable Instant getBanExpiresAt() { return banExpiresAt; } // Getter for new field
-    public @NotNull ServerTeam getServerTeam() { return serverTeam; }
-    public @Nullable Instant getLastLoginAt() { return lastLoginAt; }
-    public @Nullable Instant getCreatedAt() { return createdAt; }
-    public boolean isFirstJoin() { return isFirstJoin; } // Getter for new field
-
-    // --- Setters (for fields that might change post-load if needed, or by internal logic) ---
-    public void setPlaytime(double playtime) { this.playtime = playtime; }
-    public void setDeltaPlaytime(double deltaPlaytime) { this.deltaPlaytime = deltaPlaytime; }
-    public void setBanned(boolean banned) { this.banned = banned; }
-    public void setBanExpiresAt(@Nullable Instant banExpiresAt) { this.banExpiresAt = banExpiresAt; }
-    public void setServerTeam(@NotNull ServerTeam serverTeam) { this.serverTeam = serverTeam; }
-    public void setFirstJoin(boolean firstJoin) { this.isFirstJoin = firstJoin; } // Setter for new field
-}
\ No newline at end of file
+    public ServerProfile withFirstJoin(boolean firstJoin) {
+        return new ServerProfile(uuid, username, playtime, deltaPlaytime, banned, banExpiresAt, serverTeam, lastLoginAt, createdAt, firstJoin);
+    }
+}
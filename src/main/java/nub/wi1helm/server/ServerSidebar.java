@@ -1,42 +1,184 @@
 package nub.wi1helm.server;
 
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.minestom.server.MinecraftServer;
 import net.minestom.server.entity.Player;
+import net.minestom.server.event.GlobalEventHandler;
+import net.minestom.server.event.player.PlayerDisconnectEvent;
+import net.minestom.server.event.player.PlayerSpawnEvent;
+import net.minestom.server.network.packet.server.play.UpdateScorePacket;
 import net.minestom.server.scoreboard.Sidebar;
 import net.minestom.server.timer.TaskSchedule;
+import nub.wi1helm.config.LobbyConfig;
+import nub.wi1helm.game.GameHandler;
+import nub.wi1helm.metrics.TickMetrics;
+import nub.wi1helm.metrics.TickPhase;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static nub.wi1helm.Main.logger;
+
+/**
+ * Sidebars shared per team, plus one global sidebar for players whose team isn't known yet.
+ * Players join a sidebar when they first spawn and leave it when they disconnect.
+ *
+ * Shared lines are recomputed at a throttled rate ({@link LobbyConfig#SIDEBAR_UPDATE_TICKS}), diffed, and each changed
+ * line is sent once to the whole group.
+ * The only player-specific line (own playtime) is layered on top of the shared objective by sending its score
+ * to that single viewer.
+ */
 public class ServerSidebar {
-    private static final Map<UUID, Sidebar> sidebarCache = new HashMap<>();
+
+    private static final Component TITLE = MiniMessage.miniMessage().deserialize("<gradient:#00d2ff:#3a47d5><bold>Race To 10 Million</bold></gradient>");
+
+    // Line layout, top to bottom: own team, own playtime (per viewer), then one line per team total
+    private static final int LINE_TEAM = 0;
+    private static final int LINE_PLAYTIME = 1;
+    private static final int LINE_FIRST_TEAM_TOTAL = 2;
+    private static final int LINE_COUNT = LINE_FIRST_TEAM_TOTAL + ServerTeam.values().length;
+    private static final String PERSONAL_LINE_ID = "personal-playtime";
+
+    private static final SharedSidebar globalSidebar = new SharedSidebar(null);
+    private static final Map<ServerTeam, SharedSidebar> teamSidebars = new EnumMap<>(ServerTeam.class);
+    private static final Map<UUID, ViewerState> viewers = new ConcurrentHashMap<>();
+
+    static {
+        for (ServerTeam team : ServerTeam.values()) {
+            teamSidebars.put(team, new SharedSidebar(team));
+        }
+    }
 
     public static void create() {
-        MinecraftServer.getSchedulerManager().submitTask(() -> {
-            for (Player p : MinecraftServer.getConnectionManager().getOnlinePlayers()) {
-                if (!(p instanceof ServerPlayer player)) continue;
-
-                // Get or create the sidebar for the player
-                Sidebar sidebar = sidebarCache.get(player.getUuid());
-                if (sidebar == null) {
-                    // Create new sidebar if it doesn't exist
-                    sidebar = new Sidebar(MiniMessage.miniMessage().deserialize("<gradient:#00d2ff:#3a47d5><bold>Race To 10 Million</bold></gradient>"));
-
-                    // Attach the sidebar to the player
-                    sidebar.addViewer(player);
-
-                    // Cache the sidebar for future updates#ff75aa
-                    sidebarCache.put(player.getUuid(), sidebar);
-                } else {
-                    //hello
-                }
+        GlobalEventHandler globalEventHandler = MinecraftServer.getGlobalEventHandler();
+        globalEventHandler.addListener(PlayerSpawnEvent.class, event -> {
+            if (event.isFirstSpawn() && event.getPlayer() instanceof ServerPlayer player) {
+                attach(player);
             }
-            return TaskSchedule.tick(1); // Run every tick for smoother animation
         });
+        globalEventHandler.addListener(PlayerDisconnectEvent.class, event -> detach(event.getPlayer()));
+
+        MinecraftServer.getSchedulerManager().submitTask(() -> {
+            final long start = TickMetrics.begin();
+            update();
+            TickMetrics.end(TickPhase.SIDEBAR, start);
+            // Read on every run, so a changed interval applies from the next update
+            return TaskSchedule.tick(LobbyConfig.SIDEBAR_UPDATE_TICKS.getInt());
+        });
+        logger.info("ServerSidebar: Updating shared sidebar lines every {} ticks.", LobbyConfig.SIDEBAR_UPDATE_TICKS.get());
+    }
+
+    static void attach(ServerPlayer player) {
+        // Fully set up before publishing, so the update task never refreshes a half-attached viewer
+        ViewerState state = new ViewerState();
+        state.refresh(player);
+        ViewerState previous = viewers.put(player.getUuid(), state);
+        if (previous != null && previous.sidebar != null && previous.sidebar != state.sidebar) {
+            previous.sidebar.sidebar.removeViewer(player);
+        }
+    }
+
+    private static void detach(Player player) {
+        ViewerState state = viewers.remove(player.getUuid());
+        if (state != null && state.sidebar != null) {
+            state.sidebar.sidebar.removeViewer(player);
+        }
+    }
+
+    static void update() {
+        Map<ServerTeam, Double> teamPlaytimes = GameHandler.getLatestTeamPlaytimes();
+        globalSidebar.update(teamPlaytimes);
+        for (SharedSidebar sidebar : teamSidebars.values()) {
+            sidebar.update(teamPlaytimes);
+        }
+
+        for (UUID uuid : viewers.keySet()) {
+            if (MinecraftServer.getConnectionManager().getOnlinePlayerByUuid(uuid) instanceof ServerPlayer player) {
+                refresh(player);
+            }
+        }
     }
-    public static Map<UUID, Sidebar> getSidebarCache() {
-        return sidebarCache;
+
+    /**
+     * Moves an attached player to their team's sidebar if it changed and resends their personal line if it changed.
+     */
+    static void refresh(ServerPlayer player) {
+        ViewerState state = viewers.get(player.getUuid());
+        if (state != null) {
+            state.refresh(player);
+        }
+    }
+
+    private static SharedSidebar sidebarFor(ServerTeam team) {
+        return team != null ? teamSidebars.get(team) : globalSidebar;
+    }
+
+    public static int getViewerCount() {
+        return viewers.size();
+    }
+
+    /**
+     * One Sidebar shown to every player of a team (or to every player without a team, for the global one).
+     */
+    private static final class SharedSidebar {
+        private final ServerTeam team;
+        private final Sidebar sidebar = new Sidebar(TITLE);
+        // The text each line was last rendered from; a line is only resent when this changes
+        private final String[] renderedKeys = new String[LINE_COUNT];
+
+        private SharedSidebar(ServerTeam team) {
+            this.team = team;
+            for (int line = 0; line < LINE_COUNT; line++) {
+                if (line == LINE_PLAYTIME) continue; // layered per viewer
+                sidebar.createLine(new Sidebar.ScoreboardLine(lineId(line), Component.empty(), LINE_COUNT - line));
+            }
+            renderedKeys[LINE_TEAM] = team != null ? team.name() : "";
+            sidebar.updateLineContent(lineId(LINE_TEAM), team != null
+                    ? Component.text("Team: ", NamedTextColor.GRAY).append(team.component())
+                    : Component.text("Team: ...", NamedTextColor.GRAY));
+        }
+
+        private void update(Map<ServerTeam, Double> teamPlaytimes) {
+            for (ServerTeam totalTeam : ServerTeam.values()) {
+                int line = LINE_FIRST_TEAM_TOTAL + totalTeam.ordinal();
+                String totalKey = PlaytimeFormat.format(teamPlaytimes.getOrDefault(totalTeam, 0.0));
+                if (totalKey.equals(renderedKeys[line])) continue;
+                renderedKeys[line] = totalKey;
+                sidebar.updateLineContent(lineId(line), Component.text(totalKey, totalTeam.color()));
+            }
+        }
+    }
+
+    /**
+     * Which shared sidebar a player is looking at, and what their personal line last showed.
+     */
+    private static final class ViewerState {
+        private SharedSidebar sidebar;
+        private String renderedPlaytime;
+
+        private void refresh(ServerPlayer player) {
+            SharedSidebar target = sidebarFor(player.getServerTeam());
+            if (target != sidebar) {
+                // Leaving a sidebar destroys its objective on the client, personal line included
+                if (sidebar != null) sidebar.sidebar.removeViewer(player);
+                sidebar = target;
+                renderedPlaytime = null;
+                target.sidebar.addViewer(player);
+            }
+
+            String playtime = PlaytimeFormat.format(player.getPlaytime());
+            if (playtime.equals(renderedPlaytime)) return;
+            renderedPlaytime = playtime;
+            player.sendPacket(new UpdateScorePacket(PERSONAL_LINE_ID, target.sidebar.getObjectiveName(), LINE_COUNT - LINE_PLAYTIME,
+                    Component.text("You: ", NamedTextColor.GRAY).append(Component.text(playtime, NamedTextColor.WHITE)), null));
+        }
+    }
+
+    private static String lineId(int line) {
+        return "line-" + line;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,302 @@
+package nub.wi1helm.perf;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static nub.wi1helm.perf.ProtocolIO.PacketReader;
+import static nub.wi1helm.perf.ProtocolIO.PacketWriter;
+
+/**
+ * A headless client that logs in the way a player behind Velocity does and then idles in the lobby.
+ *
+ * The bot speaks protocol 770 (1.21.5) directly: handshake, login with Velocity modern forwarding (the forwarding
+ * data is signed with the shared secret), configuration, and play. In play it only answers what the server requires
+ * to keep it connected: keep-alives, teleport confirmations and chunk batch acknowledgements. All received bytes and
+ * packets are counted.
+ */
+final class Bot implements Runnable {
+
+    static final int PROTOCOL_VERSION = 770;
+
+    // Packet ids for protocol 770
+    private static final int HANDSHAKE = 0x00;
+    private static final int LOGIN_START = 0x00;
+    private static final int LOGIN_PLUGIN_RESPONSE = 0x02;
+    private static final int LOGIN_ACKNOWLEDGED = 0x03;
+    private static final int CB_LOGIN_DISCONNECT = 0x00;
+    private static final int CB_LOGIN_SUCCESS = 0x02;
+    private static final int CB_SET_COMPRESSION = 0x03;
+    private static final int CB_LOGIN_PLUGIN_REQUEST = 0x04;
+
+    private static final int CB_CONFIG_DISCONNECT = 0x02;
+    private static final int CB_CONFIG_FINISH = 0x03;
+    private static final int CB_CONFIG_KEEP_ALIVE = 0x04;
+    private static final int CB_CONFIG_PING = 0x05;
+    private static final int CB_CONFIG_KNOWN_PACKS = 0x0E;
+    private static final int CONFIG_ACK_FINISH = 0x03;
+    private static final int CONFIG_KEEP_ALIVE = 0x04;
+    private static final int CONFIG_PONG = 0x05;
+    private static final int CONFIG_KNOWN_PACKS = 0x07;
+
+    private static final int CB_PLAY_CHUNK_BATCH_FINISHED = 0x0B;
+    private static final int CB_PLAY_DISCONNECT = 0x1C;
+    private static final int CB_PLAY_KEEP_ALIVE = 0x26;
+    private static final int CB_PLAY_LOGIN = 0x2B;
+    private static final int CB_PLAY_SYNC_POSITION = 0x41;
+    private static final int PLAY_CONFIRM_TELEPORT = 0x00;
+    private static final int PLAY_CHUNK_BATCH_RECEIVED = 0x0A;
+    private static final int PLAY_KEEP_ALIVE = 0x1B;
+
+    private static final String VELOCITY_CHANNEL = "velocity:player_info";
+    private static final int VELOCITY_FORWARDING_VERSION = 1;
+
+    private enum State { LOGIN, CONFIGURATION, PLAY }
+
+    private final InetSocketAddress server;
+    private final String username;
+    private final UUID uuid;
+    private final byte[] forwardingSecret;
+
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong packetsReceived = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private volatile long joinNanos = -1;
+    private volatile String failure;
+    private volatile boolean running = true;
+    private volatile Socket socket;
+
+    private State state = State.LOGIN;
+    private int compressionThreshold = -1;
+    private final Inflater inflater = new Inflater();
+
+    Bot(InetSocketAddress server, String username, String forwardingSecret) {
+        this.server = server;
+        this.username = username;
+        this.uuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + username).getBytes(StandardCharsets.UTF_8));
+        this.forwardingSecret = forwardingSecret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void run() {
+        try (Socket connection = new Socket()) {
+            this.socket = connection;
+            connection.setTcpNoDelay(true);
+            connection.connect(server, 10_000);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new CountingInputStream(connection.getInputStream())));
+            OutputStream out = new BufferedOutputStream(connection.getOutputStream());
+
+            send(out, new PacketWriter(HANDSHAKE)
+                    .writeVarInt(PROTOCOL_VERSION)
+                    .writeString(server.getHostString())
+                    .writeShort(server.getPort())
+                    .writeVarInt(2)); // next state: login
+            send(out, new PacketWriter(LOGIN_START).writeString(username).writeUuid(uuid));
+
+            while (running) {
+                byte[] packet = readPacket(in);
+                packetsReceived.incrementAndGet();
+                PacketReader reader = new PacketReader(packet);
+                int id = reader.readVarInt();
+                switch (state) {
+                    case LOGIN -> handleLogin(out, id, reader);
+                    case CONFIGURATION -> handleConfiguration(out, id, reader);
+                    case PLAY -> handlePlay(out, id, reader);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (running && failure == null) failure = e.getClass().getSimpleName() + ": " + e.getMessage();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private void handleLogin(OutputStream out, int id, PacketReader reader) throws IOException {
+        switch (id) {
+            case CB_LOGIN_PLUGIN_REQUEST -> {
+                int messageId = reader.readVarInt();
+                String channel = reader.readString();
+                PacketWriter response = new PacketWriter(LOGIN_PLUGIN_RESPONSE).writeVarInt(messageId);
+                if (VELOCITY_CHANNEL.equals(channel)) {
+                    response.writeBoolean(true).writeBytes(forwardingData());
+                } else {
+                    response.writeBoolean(false);
+                }
+                send(out, response);
+            }
+            case CB_SET_COMPRESSION -> compressionThreshold = reader.readVarInt();
+            case CB_LOGIN_SUCCESS -> {
+                send(out, new PacketWriter(LOGIN_ACKNOWLEDGED));
+                state = State.CONFIGURATION;
+            }
+            case CB_LOGIN_DISCONNECT -> fail("Disconnected during login: " + reader.readString());
+            default -> { }
+        }
+    }
+
+    private void handleConfiguration(OutputStream out, int id, PacketReader reader) throws IOException {
+        switch (id) {
+            // No known packs: the server sends the full registry data, like it would for a modded client
+            case CB_CONFIG_KNOWN_PACKS -> send(out, new PacketWriter(CONFIG_KNOWN_PACKS).writeVarInt(0));
+            case CB_CONFIG_KEEP_ALIVE -> send(out, new PacketWriter(CONFIG_KEEP_ALIVE).writeLong(reader.readLong()));
+            case CB_CONFIG_PING -> send(out, new PacketWriter(CONFIG_PONG).writeInt(reader.readInt()));
+            case CB_CONFIG_FINISH -> {
+                send(out, new PacketWriter(CONFIG_ACK_FINISH));
+                state = State.PLAY;
+            }
+            case CB_CONFIG_DISCONNECT -> fail("Disconnected during configuration");
+            default -> { }
+        }
+    }
+
+    private void handlePlay(OutputStream out, int id, PacketReader reader) throws IOException {
+        switch (id) {
+            case CB_PLAY_LOGIN -> {
+                if (joinNanos < 0) joinNanos = System.nanoTime() - startNanos;
+            }
+            case CB_PLAY_KEEP_ALIVE -> send(out, new PacketWriter(PLAY_KEEP_ALIVE).writeLong(reader.readLong()));
+            case CB_PLAY_SYNC_POSITION -> send(out, new PacketWriter(PLAY_CONFIRM_TELEPORT).writeVarInt(reader.readVarInt()));
+            case CB_PLAY_CHUNK_BATCH_FINISHED -> send(out, new PacketWriter(PLAY_CHUNK_BATCH_RECEIVED).writeFloat(25f));
+            case CB_PLAY_DISCONNECT -> fail("Disconnected during play");
+            default -> { }
+        }
+    }
+
+    /**
+     * Velocity modern forwarding data: HMAC-SHA256 signature followed by the signed forwarding payload.
+     */
+    private byte[] forwardingData() {
+        byte[] payload = new PacketWriter()
+                .writeVarInt(VELOCITY_FORWARDING_VERSION)
+                .writeString("127.0.0.1")
+                .writeUuid(uuid)
+                .writeString(username)
+                .writeVarInt(0) // no profile properties
+                .toByteArray();
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(forwardingSecret, "HmacSHA256"));
+            byte[] signature = mac.doFinal(payload);
+            byte[] data = new byte[signature.length + payload.length];
+            System.arraycopy(signature, 0, data, 0, signature.length);
+            System.arraycopy(payload, 0, data, signature.length, payload.length);
+            return data;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private void send(OutputStream out, PacketWriter packet) throws IOException {
+        byte[] body = packet.toByteArray();
+        if (compressionThreshold >= 0) {
+            // Our packets are all below any sensible threshold, so they go out uncompressed (data length 0)
+            byte[] dataLength = ProtocolIO.varInt(0);
+            out.write(ProtocolIO.varInt(dataLength.length + body.length));
+            out.write(dataLength);
+        } else {
+            out.write(ProtocolIO.varInt(body.length));
+        }
+        out.write(body);
+        out.flush();
+    }
+
+    private byte[] readPacket(DataInputStream in) throws IOException {
+        int length = ProtocolIO.readVarInt(in);
+        byte[] frame = ProtocolIO.readFully(in, length);
+        if (compressionThreshold < 0) return frame;
+
+        ByteArrayInputStream frameIn = new ByteArrayInputStream(frame);
+        int dataLength = ProtocolIO.readVarInt(frameIn);
+        byte[] rest = frameIn.readAllBytes();
+        if (dataLength == 0) return rest;
+        try {
+            inflater.reset();
+            inflater.setInput(rest);
+            byte[] data = new byte[dataLength];
+            int read = 0;
+            while (read < dataLength) {
+                int n = inflater.inflate(data, read, dataLength - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) break;
+                read += n;
+            }
+            return data;
+        } catch (DataFormatException e) {
+            throw new IOException("Bad compressed packet", e);
+        }
+    }
+
+    private void fail(String reason) {
+        failure = reason;
+        running = false;
+    }
+
+    /**
+     * Disconnects the bot.
+     */
+    void stop() {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+    }
+
+    boolean joined() {
+        return joinNanos >= 0;
+    }
+
+    long joinNanos() {
+        return joinNanos;
+    }
+
+    String failure() {
+        return failure;
+    }
+
+    long bytesReceived() {
+        return bytesReceived.get();
+    }
+
+    long packetsReceived() {
+        return packetsReceived.get();
+    }
+
+    private final class CountingInputStream extends FilterInputStream {
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) bytesReceived.incrementAndGet();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) bytesReceived.addAndGet(n);
+            return n;
+        }
+    }
+}
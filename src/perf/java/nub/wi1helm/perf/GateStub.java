@@ -0,0 +1,84 @@
+package nub.wi1helm.perf;
+
+import build.buf.gen.minekube.gate.v1.GateServiceGrpc;
+import build.buf.gen.minekube.gate.v1.ListServersRequest;
+import build.buf.gen.minekube.gate.v1.ListServersResponse;
+import build.buf.gen.minekube.gate.v1.RegisterServerRequest;
+import build.buf.gen.minekube.gate.v1.RegisterServerResponse;
+import build.buf.gen.minekube.gate.v1.Server;
+import build.buf.gen.minekube.gate.v1.UnregisterServerRequest;
+import build.buf.gen.minekube.gate.v1.UnregisterServerResponse;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A stand-in for Gate's gRPC API: keeps the registered servers in memory so the Registrar's register / list /
+ * unregister cycle behaves like it does against a real proxy.
+ */
+final class GateStub extends GateServiceGrpc.GateServiceImplBase implements AutoCloseable {
+
+    private final Map<String, String> servers = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final io.grpc.Server server;
+
+    GateStub() throws IOException {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        this.server = ServerBuilder.forPort(port)
+                .addService(this)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()
+                .start();
+    }
+
+    int port() {
+        return server.getPort();
+    }
+
+    long calls() {
+        return calls.sum();
+    }
+
+    @Override
+    public void registerServer(RegisterServerRequest request, StreamObserver<RegisterServerResponse> responseObserver) {
+        calls.increment();
+        servers.put(request.getName(), request.getAddress());
+        responseObserver.onNext(RegisterServerResponse.getDefaultInstance());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void unregisterServer(UnregisterServerRequest request, StreamObserver<UnregisterServerResponse> responseObserver) {
+        calls.increment();
+        servers.remove(request.getName());
+        responseObserver.onNext(UnregisterServerResponse.getDefaultInstance());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void listServers(ListServersRequest request, StreamObserver<ListServersResponse> responseObserver) {
+        calls.increment();
+        ListServersResponse.Builder response = ListServersResponse.newBuilder();
+        servers.forEach((name, address) -> response.addServers(Server.newBuilder().setName(name).setAddress(address)));
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        server.shutdown();
+        if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
+            server.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package nub.wi1helm.perf;
+
+import com.google.gson.GsonBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless load test for the lobby: starts stand-in backends, launches the lobby against them and logs in
+ * increasing swarms of bots, recording how join latency, tick duration, traffic and backend load scale.
+ *
+ * Each step connects N bots at once, waits until they have all joined (or timed out), holds them in the lobby and
+ * then samples tick durations, bytes and packets per player and the request rate each backend saw during the hold.
+ * The steps run once per tick thread count, each against a freshly started lobby and backends.
+ * Results are printed as a table and written as JSON to build/results/loadtest/results.json.
+ *
+ * Arguments (all optional, as {@code key=value}):
+ * - steps: Comma-separated bot counts (defaults to 10,50,100,250,500,1000).
+ * - holdSeconds: How long every step keeps its bots connected after joining (defaults to 20).
+ * - backendLatencyMillis: Latency added by the stub player-service and game-service (defaults to 0).
+ * - threads: Comma-separated tick thread counts (DISPATCHER_THREADS) to run the steps with, e.g. 1,2,4,8
+ *   (defaults to the number of available processors, the lobby's own default).
+ */
+public final class LoadTest {
+
+    private static final Path RESULTS_DIR = Path.of("build", "results", "loadtest");
+
+    /**
+     * Measurements for one swarm size.
+     */
+    record StepResult(int threads, int bots, int joined, int failed,
+                      double joinP50Millis, double joinP95Millis, double joinP99Millis, double joinMaxMillis,
+                      double msptP50, double msptP99, double msptMax,
+                      double bytesPerPlayerPerSecond, double packetsPerPlayerPerSecond,
+                      double playerServiceRequestsPerSecond, double gameServiceRequestsPerSecond,
+                      double redisCommandsPerSecond, double gateCallsPerSecond,
+                      Map<String, Integer> failureReasons) {}
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int[] steps = Arrays.stream(options.getOrDefault("steps", "10,50,100,250,500,1000").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+        int holdSeconds = Integer.parseInt(options.getOrDefault("holdSeconds", "20"));
+        long backendLatency = Long.parseLong(options.getOrDefault("backendLatencyMillis", "0"));
+        int[] threadCounts = Arrays.stream(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())).split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+
+        List<StepResult> results = new ArrayList<>();
+        for (int threads : threadCounts) {
+            Path logFile = RESULTS_DIR.resolve("server-" + threads + "-threads.log");
+            // A fresh lobby and backends per thread count, so no run inherits players or counters from the one before
+            try (GateStub gate = new GateStub();
+                 RedisStandIn redis = new RedisStandIn(gate.port());
+                 StubBackends backends = new StubBackends(backendLatency);
+                 ServerProcess server = new ServerProcess(backends, redis, threads, logFile)) {
+
+                System.out.println("LoadTest: Waiting for the lobby with " + threads + " tick threads to start (log: " + logFile + ")...");
+                server.awaitReady(Duration.ofMinutes(2));
+
+                int botIndex = 0;
+                for (int bots : steps) {
+                    StepResult result = runStep(server, gate, redis, backends, threads, bots, botIndex, holdSeconds);
+                    botIndex += bots;
+                    results.add(result);
+                    System.out.printf("LoadTest: %d/%d bots joined on %d tick threads, tick p99 %.2f ms.%n",
+                            result.joined(), bots, threads, result.msptP99());
+                }
+            }
+        }
+
+        printHeader();
+        results.forEach(LoadTest::printRow);
+
+        writeResults(results, steps, threadCounts, holdSeconds, backendLatency);
+    }
+
+    private static StepResult runStep(ServerProcess server, GateStub gate, RedisStandIn redis, StubBackends backends,
+                                      int threads, int count, int firstIndex, int holdSeconds) throws Exception {
+        System.out.printf("LoadTest: Connecting %d bots...%n", count);
+        List<Bot> bots = new ArrayList<>(count);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                // Unique names per step, so every bot is a first-time player that goes through profile creation
+                Bot bot = new Bot(server.address(), "bot" + (firstIndex + i), ServerProcess.FORWARDING_SECRET);
+                bots.add(bot);
+                executor.execute(bot);
+            }
+
+            long joinDeadline = System.nanoTime() + Duration.ofSeconds(Math.max(60, count / 5)).toNanos();
+            while (System.nanoTime() < joinDeadline && bots.stream().anyMatch(b -> !b.joined() && b.failure() == null)) {
+                Thread.sleep(200);
+            }
+
+            // Hold: everything measured from here on is steady state with the swarm connected. Traffic is summed over
+            // the same bots before and after, the ones that joined before the hold started.
+            List<Bot> holding = bots.stream().filter(b -> b.joined() && b.failure() == null).toList();
+            long bytesBefore = holding.stream().mapToLong(Bot::bytesReceived).sum();
+            long packetsBefore = holding.stream().mapToLong(Bot::packetsReceived).sum();
+            long playerBefore = backends.playerRequests();
+            long gameBefore = backends.gameRequests();
+            long redisBefore = redis.commands();
+            long gateBefore = gate.calls();
+            long holdStart = System.nanoTime();
+            Thread.sleep(Duration.ofSeconds(holdSeconds));
+            double seconds = (System.nanoTime() - holdStart) / 1e9;
+
+            List<Bot> joined = bots.stream().filter(b -> b.joined() && b.failure() == null).toList();
+            long bytes = holding.stream().mapToLong(Bot::bytesReceived).sum() - bytesBefore;
+            long packets = holding.stream().mapToLong(Bot::packetsReceived).sum() - packetsBefore;
+            ServerProcess.TickSample ticks = server.tickSample();
+
+            double[] joinMillis = bots.stream().filter(Bot::joined).mapToDouble(b -> b.joinNanos() / 1e6).sorted().toArray();
+            Map<String, Integer> failures = new LinkedHashMap<>();
+            for (Bot bot : bots) {
+                if (bot.failure() != null) failures.merge(bot.failure(), 1, Integer::sum);
+                else if (!bot.joined()) failures.merge("join timeout", 1, Integer::sum);
+            }
+            int players = Math.max(1, holding.size());
+
+            bots.forEach(Bot::stop);
+            return new StepResult(threads, count, joined.size(), count - joined.size(),
+                    percentile(joinMillis, 50), percentile(joinMillis, 95), percentile(joinMillis, 99),
+                    joinMillis.length == 0 ? Double.NaN : joinMillis[joinMillis.length - 1],
+                    ticks.p50(), ticks.p99(), ticks.max(),
+                    bytes / seconds / players, packets / seconds / players,
+                    (backends.playerRequests() - playerBefore) / seconds,
+                    (backends.gameRequests() - gameBefore) / seconds,
+                    (redis.commands() - redisBefore) / seconds,
+                    (gate.calls() - gateBefore) / seconds,
+                    failures);
+        } finally {
+            // Give the lobby time to process the disconnects before the next step starts
+            Thread.sleep(5000);
+        }
+    }
+
+    private static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) return Double.NaN;
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static void printHeader() {
+        System.out.printf("%7s %6s %6s %6s | %8s %8s %8s %8s | %7s %7s %7s | %10s %8s | %8s %8s %8s %8s%n",
+                "threads", "bots", "joined", "failed", "join p50", "p95", "p99", "max", "mspt50", "mspt99", "msptmax",
+                "B/plr/s", "pk/plr/s", "player/s", "game/s", "redis/s", "gate/s");
+    }
+
+    private static void printRow(StepResult r) {
+        System.out.printf("%7d %6d %6d %6d | %8.0f %8.0f %8.0f %8.0f | %7.2f %7.2f %7.2f | %10.0f %8.1f | %8.1f %8.1f %8.1f %8.1f%n",
+                r.threads(), r.bots(), r.joined(), r.failed(), r.joinP50Millis(), r.joinP95Millis(), r.joinP99Millis(), r.joinMaxMillis(),
+                r.msptP50(), r.msptP99(), r.msptMax(), r.bytesPerPlayerPerSecond(), r.packetsPerPlayerPerSecond(),
+                r.playerServiceRequestsPerSecond(), r.gameServiceRequestsPerSecond(), r.redisCommandsPerSecond(), r.gateCallsPerSecond());
+        if (!r.failureReasons().isEmpty()) {
+            System.out.println("               failures: " + r.failureReasons());
+        }
+    }
+
+    private static void writeResults(List<StepResult> results, int[] steps, int[] threadCounts, int holdSeconds,
+                                     long backendLatency) throws Exception {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("timestamp", Instant.now().toString());
+        document.put("steps", steps);
+        document.put("threads", threadCounts);
+        document.put("holdSeconds", holdSeconds);
+        document.put("backendLatencyMillis", backendLatency);
+        document.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        document.put("results", results);
+        Files.createDirectories(RESULTS_DIR);
+        Path file = RESULTS_DIR.resolve("results.json");
+        Files.writeString(file, new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(document));
+        System.out.println("LoadTest: Results written to " + file);
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,206 @@
+package nub.wi1helm.perf;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import nub.wi1helm.player.BackendResponse;
+import nub.wi1helm.player.BackendTransport;
+import nub.wi1helm.player.FaultInjectingTransport;
+import nub.wi1helm.player.FaultInjectingTransport.FaultProfile;
+import nub.wi1helm.player.FaultInjectingTransport.Latency;
+import nub.wi1helm.player.PlayerService;
+import nub.wi1helm.server.ServerProfile;
+
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reproduces join storms and player-service brownouts against {@link PlayerService#loadPlayerProfile} in-process.
+ *
+ * The player-service is replaced by an in-memory profile store behind a {@link FaultInjectingTransport}, so a run
+ * needs no network and the injected faults repeat exactly for the same seed. Every scenario loads the profiles of
+ * N first-time players at once. For a share of them a "second pod" creates the profile between our GET and our POST,
+ * which makes the POST answer 409 and exercises the conflict retry.
+ *
+ * Arguments (all optional, as {@code key=value}): players (defaults to 1000), seed (defaults to 1).
+ */
+public final class ProfileStorm {
+
+    private static final Path RESULTS_FILE = Path.of("build", "results", "loadtest", "profile-storm.json");
+    // Share of players whose profile is created concurrently by another pod
+    private static final double CONTENDED_SHARE = 0.1;
+
+    /**
+     * Outcome of one scenario.
+     */
+    record ScenarioResult(String scenario, FaultProfile faults, int players, int created, int loadedAfterConflict,
+                          int failed, double p50Millis, double p95Millis, double p99Millis, double maxMillis,
+                          Map<Integer, Long> storeResponses, Map<String, Long> injected) {}
+
+    private ProfileStorm() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            options.put(pair[0], pair[1]);
+        }
+        int players = Integer.parseInt(options.getOrDefault("players", "1000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+
+        List<ScenarioResult> results = new ArrayList<>();
+        results.add(run("healthy", new FaultProfile(Latency.parse("lognormal:15:0.3"), 0, 0, 0, 0, 0, seed), players));
+        results.add(run("join-storm", new FaultProfile(Latency.parse("lognormal:80:0.8"), 0, 0, 0, 0, 0, seed), players));
+        results.add(run("brownout", new FaultProfile(Latency.parse("lognormal:400:1.0"), 0.02, 0.05, 0, 0, 0.03, seed), players));
+
+        System.out.printf("%-12s %7s %7s %9s %6s | %8s %8s %8s %8s%n",
+                "scenario", "players", "created", "conflict", "failed", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (ScenarioResult r : results) {
+            System.out.printf("%-12s %7d %7d %9d %6d | %8.0f %8.0f %8.0f %8.0f%n", r.scenario(), r.players(), r.created(),
+                    r.loadedAfterConflict(), r.failed(), r.p50Millis(), r.p95Millis(), r.p99Millis(), r.maxMillis());
+        }
+
+        Files.createDirectories(RESULTS_FILE.getParent());
+        Files.writeString(RESULTS_FILE, new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(results));
+        System.out.println("ProfileStorm: Results written to " + RESULTS_FILE);
+        System.exit(0);
+    }
+
+    private static ScenarioResult run(String scenario, FaultProfile faults, int players) {
+        ProfileStore store = new ProfileStore();
+        FaultInjectingTransport transport = new FaultInjectingTransport(store, faults);
+        PlayerService playerService = PlayerService.getInstance();
+        playerService.setTransport(transport);
+
+        List<CompletableFuture<ServerProfile>> loads = new ArrayList<>(players);
+        long[] startNanos = new long[players];
+        long[] endNanos = new long[players];
+        for (int i = 0; i < players; i++) {
+            // Name-based UUIDs keep the contended players (and thus the whole run) identical between runs
+            UUID uuid = UUID.nameUUIDFromBytes((scenario + ":" + i).getBytes(StandardCharsets.UTF_8));
+            if (i % Math.round(1 / CONTENDED_SHARE) == 0) store.contend(uuid.toString());
+            final int index = i;
+            startNanos[i] = System.nanoTime();
+            loads.add(playerService.loadPlayerProfile(uuid.toString(), "storm" + i)
+                    .whenComplete((profile, ex) -> endNanos[index] = System.nanoTime()));
+        }
+        CompletableFuture.allOf(loads.toArray(CompletableFuture[]::new)).join();
+
+        int created = 0;
+        int afterConflict = 0;
+        int failed = 0;
+        for (CompletableFuture<ServerProfile> load : loads) {
+            ServerProfile profile = load.join();
+            if (profile == null) failed++;
+            else if (profile.firstJoin()) created++;
+            else afterConflict++;
+        }
+        double[] millis = new double[players];
+        for (int i = 0; i < players; i++) millis[i] = (endNanos[i] - startNanos[i]) / 1e6;
+        Arrays.sort(millis);
+
+        Map<String, Long> injected = new LinkedHashMap<>();
+        for (FaultInjectingTransport.Fault fault : FaultInjectingTransport.Fault.values()) {
+            injected.put(fault.name(), transport.injectedCount(fault));
+        }
+        return new ScenarioResult(scenario, faults, players, created, afterConflict, failed,
+                percentile(millis, 50), percentile(millis, 95), percentile(millis, 99), millis[players - 1],
+                store.responses(), injected);
+    }
+
+    private static double percentile(double[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * An in-memory player-service: GET /profiles/{uuid} and POST /profiles.
+     */
+    private static final class ProfileStore implements BackendTransport {
+        private final Set<String> profiles = ConcurrentHashMap.newKeySet();
+        private final Set<String> contended = ConcurrentHashMap.newKeySet();
+        private final Map<Integer, LongAdder> responses = new ConcurrentHashMap<>();
+
+        void contend(String uuid) {
+            contended.add(uuid);
+        }
+
+        Map<Integer, Long> responses() {
+            Map<Integer, Long> snapshot = new LinkedHashMap<>();
+            responses.forEach((status, count) -> snapshot.put(status, count.sum()));
+            return snapshot;
+        }
+
+        @Override
+        public CompletableFuture<BackendResponse> send(HttpRequest request) {
+            BackendResponse response;
+            if ("POST".equals(request.method())) {
+                String uuid = JsonParser.parseString(body(request)).getAsJsonObject().get("uuid").getAsString();
+                // A contended profile was just created by the other pod
+                if (contended.remove(uuid)) profiles.add(uuid);
+                response = profiles.add(uuid) ? new BackendResponse(201, profileJson(uuid)) : new BackendResponse(409, "{}");
+            } else {
+                String path = request.uri().getPath();
+                String uuid = path.substring(path.lastIndexOf('/') + 1);
+                response = profiles.contains(uuid) ? new BackendResponse(200, profileJson(uuid)) : new BackendResponse(404, "{}");
+            }
+            responses.computeIfAbsent(response.statusCode(), s -> new LongAdder()).increment();
+            return CompletableFuture.completedFuture(response);
+        }
+
+        private static String profileJson(String uuid) {
+            JsonObject profile = new JsonObject();
+            profile.addProperty("UUID", uuid);
+            profile.addProperty("Username", "storm");
+            profile.addProperty("Team", "AQUA_CREEPERS");
+            profile.addProperty("Banned", false);
+            profile.addProperty("LastLoginAt", Instant.now().toString());
+            profile.addProperty("CreatedAt", Instant.now().toString());
+            return profile.toString();
+        }
+
+        private static String body(HttpRequest request) {
+            if (request.bodyPublisher().isEmpty()) return "";
+            StringBuilder body = new StringBuilder();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            request.bodyPublisher().get().subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(ByteBuffer item) {
+                    body.append(StandardCharsets.UTF_8.decode(item));
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    done.complete(null);
+                }
+            });
+            done.join();
+            return body.toString();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package nub.wi1helm.perf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Minimal Minecraft protocol encoding for the load-test bots: VarInts, strings, UUIDs and packet framing.
+ */
+final class ProtocolIO {
+
+    private ProtocolIO() {}
+
+    /**
+     * Builds a packet body (id followed by fields).
+     */
+    static final class PacketWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+        /**
+         * Starts a bare payload without a packet id.
+         */
+        PacketWriter() {}
+
+        PacketWriter(int packetId) {
+            writeVarInt(packetId);
+        }
+
+        PacketWriter writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+            return this;
+        }
+
+        PacketWriter writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            out.writeBytes(bytes);
+            return this;
+        }
+
+        PacketWriter writeShort(int value) {
+            out.write((value >>> 8) & 0xFF);
+            out.write(value & 0xFF);
+            return this;
+        }
+
+        PacketWriter writeInt(int value) {
+            out.writeBytes(ByteBuffer.allocate(4).putInt(value).array());
+            return this;
+        }
+
+        PacketWriter writeLong(long value) {
+            out.writeBytes(ByteBuffer.allocate(8).putLong(value).array());
+            return this;
+        }
+
+        PacketWriter writeFloat(float value) {
+            return writeInt(Float.floatToIntBits(value));
+        }
+
+        PacketWriter writeBoolean(boolean value) {
+            out.write(value ? 1 : 0);
+            return this;
+        }
+
+        PacketWriter writeUuid(UUID uuid) {
+            writeLong(uuid.getMostSignificantBits());
+            return writeLong(uuid.getLeastSignificantBits());
+        }
+
+        PacketWriter writeBytes(byte[] bytes) {
+            out.writeBytes(bytes);
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Reads fields from a received packet body.
+     */
+    static final class PacketReader {
+        private final ByteBuffer buffer;
+
+        PacketReader(byte[] body) {
+            this.buffer = ByteBuffer.wrap(body);
+        }
+
+        int readVarInt() {
+            int value = 0;
+            int position = 0;
+            byte current;
+            do {
+                current = buffer.get();
+                value |= (current & 0x7F) << position;
+                position += 7;
+                if (position > 35) throw new IllegalStateException("VarInt too big");
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+
+        String readString() {
+            byte[] bytes = new byte[readVarInt()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int readInt() {
+            return buffer.getInt();
+        }
+
+        long readLong() {
+            return buffer.getLong();
+        }
+
+        byte[] readRemaining() {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        }
+    }
+
+    static byte[] varInt(int value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(5);
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads a VarInt from a stream.
+     */
+    static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        int position = 0;
+        int current;
+        do {
+            current = in.read();
+            if (current < 0) throw new EOFException();
+            value |= (current & 0x7F) << position;
+            position += 7;
+            if (position > 35) throw new IOException("VarInt too big");
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+
+    static byte[] readFully(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,382 @@
+package nub.wi1helm.perf;
+
+import com.google.gson.Gson;
+import nub.wi1helm.register.Registrar;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A single-node stand-in for the Redis cluster, speaking just enough RESP2 for the lobby's Jedis usage.
+ *
+ * It answers CLUSTER SLOTS with itself owning every slot, so JedisCluster routes everything here. Supported are the
+ * commands the Registrar, the team playtime counter and the team poller election send: hashes, strings with NX/PX,
+ * INCR, EXISTS, DEL, PEXPIRE, the two lease scripts (recognised by content, not interpreted) and pub/sub.
+ * The proxy registry hash is pre-populated with one proxy that points at the {@link GateStub}.
+ * Optionally it also lists itself as a replica of every slot, so replica reads (READONLY) are exercised as well.
+ */
+final class RedisStandIn implements AutoCloseable {
+
+    private static final Gson gson = new Gson();
+    private static final String PROXY_ID = "loadtest-proxy";
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Redis-StandIn-", 0).factory());
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Redis-StandIn-Heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Object lock = new Object();
+    private final Map<String, Object> data = new HashMap<>();
+    private final Map<String, Long> expiries = new HashMap<>();
+    private final Map<String, Set<Client>> subscribers = new ConcurrentHashMap<>();
+    private final LongAdder commands = new LongAdder();
+    private final boolean advertiseReplica;
+
+    RedisStandIn(int gatePort) throws IOException {
+        this(gatePort, false);
+    }
+
+    RedisStandIn(int gatePort, boolean advertiseReplica) throws IOException {
+        this.advertiseReplica = advertiseReplica;
+        this.serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        refreshProxy(gatePort);
+        heartbeat.scheduleAtFixedRate(() -> refreshProxy(gatePort), 5, 5, TimeUnit.SECONDS);
+        Thread.ofPlatform().daemon().name("Redis-StandIn-Accept").start(this::acceptLoop);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    long commands() {
+        return commands.sum();
+    }
+
+    // Keeps the proxy's last_seen fresh, like a running Gate would
+    private void refreshProxy(int gatePort) {
+        Registrar.ServiceInfo proxy = new Registrar.ServiceInfo(PROXY_ID, "proxy", "127.0.0.1", gatePort,
+                System.currentTimeMillis(), Map.of("http_port", String.valueOf(gatePort)));
+        synchronized (lock) {
+            hash("services:proxy", true).put(PROXY_ID, gson.toJson(proxy));
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("RedisStandIn: accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            Client client = new Client(new BufferedOutputStream(socket.getOutputStream()));
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            try {
+                while (true) {
+                    List<String> command = readCommand(in);
+                    commands.increment();
+                    client.execute(command);
+                }
+            } finally {
+                subscribers.values().forEach(set -> set.remove(client));
+            }
+        } catch (EOFException ignored) {
+            // client went away
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                System.err.println("RedisStandIn: connection failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private final class Client {
+        private final OutputStream out;
+
+        Client(OutputStream out) {
+            this.out = out;
+        }
+
+        void execute(List<String> command) throws IOException {
+            String name = command.get(0).toUpperCase(Locale.ROOT);
+            synchronized (this) {
+                switch (name) {
+                    case "PING" -> simple("PONG");
+                    case "AUTH", "CLIENT", "SELECT", "READONLY" -> simple("OK");
+                    case "CLUSTER" -> clusterSlots();
+                    case "SUBSCRIBE" -> {
+                        for (int i = 1; i < command.size(); i++) {
+                            subscribers.computeIfAbsent(command.get(i), c -> ConcurrentHashMap.newKeySet()).add(this);
+                            arrayHeader(3);
+                            bulk("subscribe");
+                            bulk(command.get(i));
+                            integer(i);
+                        }
+                    }
+                    case "UNSUBSCRIBE" -> {
+                        List<String> channels = command.size() > 1 ? command.subList(1, command.size()) : List.copyOf(subscribers.keySet());
+                        for (String channel : channels) {
+                            Set<Client> set = subscribers.get(channel);
+                            if (set != null) set.remove(this);
+                            arrayHeader(3);
+                            bulk("unsubscribe");
+                            bulk(channel);
+                            integer(0);
+                        }
+                    }
+                    case "PUBLISH" -> integer(publish(command.get(1), command.get(2)));
+                    default -> data(name, command);
+                }
+                out.flush();
+            }
+        }
+
+        void message(String channel, String payload) throws IOException {
+            synchronized (this) {
+                arrayHeader(3);
+                bulk("message");
+                bulk(channel);
+                bulk(payload);
+                out.flush();
+            }
+        }
+
+        private void data(String name, List<String> command) throws IOException {
+            synchronized (lock) {
+                long now = System.currentTimeMillis();
+                expiries.entrySet().removeIf(entry -> {
+                    if (entry.getValue() > now) return false;
+                    data.remove(entry.getKey());
+                    return true;
+                });
+                switch (name) {
+                    case "HGETALL" -> {
+                        Map<String, String> hash = hash(command.get(1), false);
+                        arrayHeader(hash == null ? 0 : hash.size() * 2);
+                        if (hash != null) {
+                            for (Map.Entry<String, String> entry : hash.entrySet()) {
+                                bulk(entry.getKey());
+                                bulk(entry.getValue());
+                            }
+                        }
+                    }
+                    case "HSET" -> {
+                        Map<String, String> hash = hash(command.get(1), true);
+                        int added = 0;
+                        for (int i = 2; i + 1 < command.size(); i += 2) {
+                            if (hash.put(command.get(i), command.get(i + 1)) == null) added++;
+                        }
+                        integer(added);
+                    }
+                    case "HINCRBYFLOAT" -> {
+                        Map<String, String> hash = hash(command.get(1), true);
+                        double value = Double.parseDouble(hash.getOrDefault(command.get(2), "0")) + Double.parseDouble(command.get(3));
+                        hash.put(command.get(2), String.valueOf(value));
+                        bulk(String.valueOf(value));
+                    }
+                    case "EXISTS" -> {
+                        int count = 0;
+                        for (int i = 1; i < command.size(); i++) {
+                            if (data.containsKey(command.get(i))) count++;
+                        }
+                        integer(count);
+                    }
+                    case "GET" -> bulk(data.get(command.get(1)) instanceof String value ? value : null);
+                    case "INCR" -> {
+                        long value = Long.parseLong(data.get(command.get(1)) instanceof String s ? s : "0") + 1;
+                        data.put(command.get(1), String.valueOf(value));
+                        integer(value);
+                    }
+                    case "SET" -> set(command);
+                    case "DEL" -> integer(delete(command.get(1)));
+                    case "PEXPIRE" -> integer(pexpire(command.get(1), Long.parseLong(command.get(2))));
+                    case "EVAL" -> eval(command);
+                    default -> error("ERR unknown command '" + name + "' in RedisStandIn");
+                }
+            }
+        }
+
+        private void set(List<String> command) throws IOException {
+            String key = command.get(1);
+            boolean nx = false;
+            long px = -1;
+            for (int i = 3; i < command.size(); i++) {
+                String option = command.get(i).toUpperCase(Locale.ROOT);
+                if (option.equals("NX")) nx = true;
+                else if (option.equals("PX")) px = Long.parseLong(command.get(++i));
+                else if (option.equals("EX")) px = Long.parseLong(command.get(++i)) * 1000;
+            }
+            if (nx && data.containsKey(key)) {
+                bulk(null);
+                return;
+            }
+            data.put(key, command.get(2));
+            expiries.remove(key);
+            if (px > 0) expiries.put(key, System.currentTimeMillis() + px);
+            simple("OK");
+        }
+
+        // Only the election's compare-and-renew / compare-and-delete scripts are understood
+        private void eval(List<String> command) throws IOException {
+            String script = command.get(1);
+            String key = command.get(3);
+            String expected = command.get(4);
+            if (!expected.equals(data.get(key))) {
+                integer(0);
+            } else if (script.contains("'PEXPIRE'")) {
+                integer(pexpire(key, Long.parseLong(command.get(5))));
+            } else if (script.contains("'DEL'")) {
+                integer(delete(key));
+            } else {
+                error("ERR script not supported by RedisStandIn");
+            }
+        }
+
+        private void clusterSlots() throws IOException {
+            arrayHeader(1);
+            arrayHeader(advertiseReplica ? 4 : 3);
+            integer(0);
+            integer(16383);
+            node("redis-standin");
+            if (advertiseReplica) {
+                node("redis-standin-replica");
+            }
+        }
+
+        private void node(String id) throws IOException {
+            arrayHeader(3);
+            bulk("127.0.0.1");
+            integer(port());
+            bulk(id);
+        }
+
+        private void simple(String value) throws IOException {
+            out.write(('+' + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void error(String value) throws IOException {
+            out.write(('-' + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void integer(long value) throws IOException {
+            out.write((":" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void arrayHeader(int size) throws IOException {
+            out.write(("*" + size + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void bulk(String value) throws IOException {
+            if (value == null) {
+                out.write("$-1\r\n".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+            out.write(bytes);
+            out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> hash(String key, boolean create) {
+        Object value = data.get(key);
+        if (value instanceof Map<?, ?> map) return (Map<String, String>) map;
+        if (!create) return null;
+        Map<String, String> hash = new HashMap<>();
+        data.put(key, hash);
+        return hash;
+    }
+
+    private int delete(String key) {
+        expiries.remove(key);
+        return data.remove(key) != null ? 1 : 0;
+    }
+
+    private int pexpire(String key, long millis) {
+        if (!data.containsKey(key)) return 0;
+        expiries.put(key, System.currentTimeMillis() + millis);
+        return 1;
+    }
+
+    private int publish(String channel, String payload) {
+        Set<Client> clients = subscribers.getOrDefault(channel, Set.of());
+        int delivered = 0;
+        for (Client client : clients) {
+            try {
+                client.message(channel, payload);
+                delivered++;
+            } catch (IOException e) {
+                clients.remove(client);
+            }
+        }
+        return delivered;
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header.isEmpty() || header.charAt(0) != '*') {
+            // Inline command, e.g. from redis-cli over telnet
+            return List.of(header.trim().split("\\s+"));
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<String> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String lengthLine = readLine(in);
+            int length = Integer.parseInt(lengthLine.substring(1));
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length < length) throw new EOFException();
+            readLine(in); // trailing CRLF
+            parts.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return parts;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(32);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) throw new EOFException();
+            if (b != '\r') line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        heartbeat.shutdownNow();
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+}
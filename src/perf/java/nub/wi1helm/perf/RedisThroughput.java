@@ -0,0 +1,202 @@
+package nub.wi1helm.perf;
+
+import com.google.gson.GsonBuilder;
+import nub.wi1helm.config.LobbyConfig;
+import nub.wi1helm.redis.RedisClient;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisCluster;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Measures Redis commands per second for the lobby's Redis access pattern, before and after the pipelined access layer.
+ *
+ * One operation is what a pod does per counter merge and discovery cycle: HINCRBYFLOAT and HGETALL on both team
+ * counters plus an HGETALL of the proxy registry, five commands in total. Scenarios:
+ * - before: Single blocking commands on a pool that validates connections on borrow and return (the old setup).
+ * - lean-validation: Single blocking commands on the {@link RedisClient} pool (idle eviction only).
+ * - pipelined: The team counter commands as one pipelined batch, the registry read from a replica.
+ *
+ * Without {@code nodes} the run uses an in-process {@link RedisStandIn} that also lists itself as a replica. Over
+ * loopback a round trip costs little, so point it at a real cluster to see what pipelining saves on a network.
+ *
+ * Arguments (all optional, as {@code key=value}): seconds per scenario (defaults to 10), threads (defaults to 8),
+ * nodes (comma-separated host:port of a cluster to run against), password.
+ */
+public final class RedisThroughput {
+
+    private static final Path RESULTS_FILE = Path.of("build", "results", "redis", "throughput.json");
+    private static final int COMMANDS_PER_OP = 5;
+    private static final long WARMUP_MILLIS = 2000;
+    private static final String REGISTRY_KEY = "services:proxy";
+    private static final String[] TEAM_KEYS = {"bench:team-playtime:AQUA_CREEPERS", "bench:team-playtime:PURPLE_SWORDERS"};
+
+    /**
+     * Outcome of one scenario.
+     *
+     * @param serverCommandsPerOp Commands the server received per operation, including validation PINGs and READONLY
+     *                            (only known with the stand-in).
+     */
+    record ScenarioResult(String scenario, int threads, long ops, double opsPerSecond, double commandsPerSecond,
+                          double p50Micros, double p99Micros, Double serverCommandsPerOp) {}
+
+    private RedisThroughput() {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            options.put(pair[0], pair[1]);
+        }
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        String password = options.get("password");
+
+        RedisStandIn standIn = null;
+        Set<HostAndPort> nodes = new HashSet<>();
+        if (options.containsKey("nodes")) {
+            for (String node : options.get("nodes").split(",")) {
+                nodes.add(HostAndPort.from(node.trim()));
+            }
+        } else {
+            standIn = new RedisStandIn(0, true);
+            nodes.add(new HostAndPort("127.0.0.1", standIn.port()));
+        }
+
+        List<ScenarioResult> results = new ArrayList<>();
+        try {
+            int timeoutMillis = LobbyConfig.REDIS_TIMEOUT_MILLIS.getInt();
+            try (JedisCluster before = new JedisCluster(nodes, timeoutMillis, timeoutMillis,
+                    LobbyConfig.REDIS_MAX_ATTEMPTS.getInt(), password, validatingPoolConfig())) {
+                results.add(run("before", threads, seconds, standIn, shard -> blockingOp(before, shard)));
+            }
+            try (RedisClient redis = RedisClient.connect(nodes, password)) {
+                results.add(run("lean-validation", threads, seconds, standIn, shard -> blockingOp(redis.cluster(), shard)));
+                results.add(run("pipelined", threads, seconds, standIn, shard -> pipelinedOp(redis, shard)));
+            }
+        } finally {
+            if (standIn != null) standIn.close();
+        }
+
+        System.out.printf("%-16s %7s %12s %12s %10s %10s %12s%n",
+                "scenario", "threads", "ops/s", "commands/s", "p50 us", "p99 us", "server cmd/op");
+        for (ScenarioResult r : results) {
+            System.out.printf("%-16s %7d %12.0f %12.0f %10.0f %10.0f %12s%n", r.scenario(), r.threads(), r.opsPerSecond(),
+                    r.commandsPerSecond(), r.p50Micros(), r.p99Micros(),
+                    r.serverCommandsPerOp() == null ? "-" : String.format("%.2f", r.serverCommandsPerOp()));
+        }
+
+        Files.createDirectories(RESULTS_FILE.getParent());
+        Files.writeString(RESULTS_FILE, new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(results));
+        System.out.println("RedisThroughput: Results written to " + RESULTS_FILE);
+    }
+
+    /**
+     * The pool configuration the Registrar used before the access layer: every borrow and return is validated.
+     */
+    private static GenericObjectPoolConfig<Connection> validatingPoolConfig() {
+        GenericObjectPoolConfig<Connection> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(LobbyConfig.REDIS_POOL_MAX_TOTAL.getInt());
+        poolConfig.setMaxIdle(LobbyConfig.REDIS_POOL_MAX_IDLE.getInt());
+        poolConfig.setMinIdle(LobbyConfig.REDIS_POOL_MIN_IDLE.getInt());
+        poolConfig.setTestOnBorrow(true);
+        poolConfig.setTestOnReturn(true);
+        poolConfig.setTestWhileIdle(true);
+        poolConfig.setMinEvictableIdleTime(Duration.ofSeconds(60));
+        poolConfig.setTimeBetweenEvictionRuns(Duration.ofSeconds(30));
+        poolConfig.setNumTestsPerEvictionRun(3);
+        poolConfig.setBlockWhenExhausted(true);
+        return poolConfig;
+    }
+
+    private static void blockingOp(JedisCluster cluster, String shard) {
+        for (String key : TEAM_KEYS) {
+            cluster.hincrByFloat(key, shard, 1.0);
+            cluster.hgetAll(key);
+        }
+        cluster.hgetAll(REGISTRY_KEY);
+    }
+
+    private static void pipelinedOp(RedisClient redis, String shard) {
+        redis.pipelined("bench", pipeline -> {
+            for (String key : TEAM_KEYS) {
+                pipeline.hincrByFloat(key, shard, 1.0);
+                pipeline.hgetAll(key);
+            }
+            return null;
+        });
+        redis.readPreferReplica(REGISTRY_KEY, commands -> commands.hgetAll(REGISTRY_KEY));
+    }
+
+    private static ScenarioResult run(String scenario, int threads, int seconds, RedisStandIn standIn,
+                                      Consumer<String> op) throws InterruptedException {
+        long warmupEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(seconds);
+        long[][] latencies = new long[threads][];
+        long[] counts = new long[threads];
+        CountDownLatch warmedUp = new CountDownLatch(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            Thread.ofPlatform().daemon().name("Redis-Bench-" + t).start(() -> {
+                String shard = "bench-" + thread;
+                long[] samples = new long[1 << 16];
+                int count = 0;
+                boolean warm = false;
+                try {
+                    while (System.nanoTime() < warmupEnd) {
+                        op.accept(shard);
+                    }
+                    warm = true;
+                    warmedUp.countDown();
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        op.accept(shard);
+                        if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+                        samples[count++] = System.nanoTime() - now;
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("RedisThroughput: " + scenario + " thread " + thread + " failed: " + e.getMessage());
+                    if (!warm) warmedUp.countDown();
+                } finally {
+                    latencies[thread] = Arrays.copyOf(samples, count);
+                    counts[thread] = count;
+                    done.countDown();
+                }
+            });
+        }
+
+        warmedUp.await();
+        long serverCommandsAtStart = standIn != null ? standIn.commands() : 0;
+        done.await();
+        long serverCommands = standIn != null ? standIn.commands() - serverCommandsAtStart : 0;
+
+        long ops = Arrays.stream(counts).sum();
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        double opsPerSecond = ops / (double) seconds;
+        return new ScenarioResult(scenario, threads, ops, opsPerSecond, opsPerSecond * COMMANDS_PER_OP,
+                percentileMicros(all, 0.5), percentileMicros(all, 0.99),
+                standIn != null && ops > 0 ? serverCommands / (double) ops : null);
+    }
+
+    private static double percentileMicros(long[] sorted, double quantile) {
+        if (sorted.length == 0) return Double.NaN;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+}
@@ -0,0 +1,144 @@
+package nub.wi1helm.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the lobby as a child JVM wired to the stand-in backends, and reads its tick metrics back from /metrics.
+ *
+ * A separate process is needed because the lobby reads its whole configuration from environment variables,
+ * which can't be changed from inside a running JVM. It also keeps the bots' own CPU usage out of the server's ticks
+ * as far as the OS scheduler allows.
+ */
+final class ServerProcess implements AutoCloseable {
+
+    static final String FORWARDING_SECRET = "loadtest-secret";
+
+    private static final Pattern TICK_QUANTILE = Pattern.compile(
+            "^lobby_tick_duration_seconds\\{phase=\"tick\",quantile=\"([0-9.]+)\"} ([0-9.eE+-]+|NaN)$", Pattern.MULTILINE);
+    private static final Pattern TICK_MAX = Pattern.compile(
+            "^lobby_tick_duration_max_seconds\\{phase=\"tick\"} ([0-9.eE+-]+|NaN)$", Pattern.MULTILINE);
+
+    private final Process process;
+    private final int minecraftPort;
+    private final int metricsPort;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    /**
+     * Tick durations of the last complete TickMetrics window, in milliseconds.
+     */
+    record TickSample(double p50, double p99, double max) {}
+
+    /**
+     * @param dispatcherThreads Tick threads of the lobby (its DISPATCHER_THREADS).
+     */
+    ServerProcess(StubBackends backends, RedisStandIn redis, int dispatcherThreads, Path logFile) throws IOException {
+        this.minecraftPort = freePort();
+        this.metricsPort = freePort();
+
+        Map<String, String> env = new HashMap<>();
+        env.put("MINECRAFT_SERVER_PORT", String.valueOf(minecraftPort));
+        env.put("MINECRAFT_SERVER_LABEL", "loadtest-lobby");
+        env.put("POD_IP", "127.0.0.1");
+        env.put("REDIS_CLUSTER_ADDR", "127.0.0.1:" + redis.port());
+        env.put("VELOCITY_SECRET", FORWARDING_SECRET);
+        env.put("PLAYER_SERVICE_URL", backends.playerServiceUrl());
+        env.put("GAME_SERVICE_URL", backends.gameServiceUrl());
+        env.put("METRICS_PORT", String.valueOf(metricsPort));
+        env.put("METRICS_HOST", "127.0.0.1");
+        env.put("DISPATCHER_THREADS", String.valueOf(dispatcherThreads));
+        // Short windows so every load step gets its own tick percentiles
+        env.put("TICK_METRICS_LOG_SECONDS", "5");
+        env.put("PLAYTIME_JOURNAL_PATH", Files.createTempFile("loadtest-playtime", ".log").toString());
+
+        List<String> command = List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                "nub.wi1helm.Main");
+        Files.createDirectories(logFile.getParent());
+        ProcessBuilder builder = new ProcessBuilder(command)
+                // The lobby loads its world from resources/world relative to the working directory
+                .directory(new File("src/main"))
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile());
+        builder.environment().putAll(env);
+        this.process = builder.start();
+    }
+
+    /**
+     * Waits until the lobby accepts Minecraft and metrics connections.
+     */
+    void awaitReady(Duration timeout) throws IOException, InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (int port : new int[]{minecraftPort, metricsPort}) {
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IOException("Lobby process exited with code " + process.exitValue());
+                }
+                try (Socket socket = new Socket()) {
+                    socket.connect(new InetSocketAddress("127.0.0.1", port), 500);
+                    break;
+                } catch (IOException e) {
+                    if (System.nanoTime() > deadline) throw new TimeoutException("Lobby not listening on port " + port);
+                    Thread.sleep(250);
+                }
+            }
+        }
+    }
+
+    InetSocketAddress address() {
+        return new InetSocketAddress("127.0.0.1", minecraftPort);
+    }
+
+    /**
+     * Scrapes the tick duration summary of the lobby's last complete metrics window.
+     */
+    TickSample tickSample() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + metricsPort + "/metrics"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        String body = httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        double p50 = Double.NaN;
+        double p99 = Double.NaN;
+        Matcher quantiles = TICK_QUANTILE.matcher(body);
+        while (quantiles.find()) {
+            double quantile = Double.parseDouble(quantiles.group(1));
+            if (quantile == 0.5) p50 = Double.parseDouble(quantiles.group(2)) * 1000;
+            if (quantile == 0.99) p99 = Double.parseDouble(quantiles.group(2)) * 1000;
+        }
+        Matcher max = TICK_MAX.matcher(body);
+        double maxMillis = max.find() ? Double.parseDouble(max.group(1)) * 1000 : Double.NaN;
+        return new TickSample(p50, p99, maxMillis);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(15, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+}
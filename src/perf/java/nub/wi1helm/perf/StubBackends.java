@@ -0,0 +1,142 @@
+package nub.wi1helm.perf;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-ins for player-service and game-service, so a load test measures the lobby and not the backends.
+ *
+ * Every endpoint the lobby calls is answered with a plausible body. Every bot is a first-time player:
+ * the profile lookup answers 404 until the lobby has created the profile. An optional fixed latency simulates a remote service.
+ */
+final class StubBackends implements AutoCloseable {
+
+    private final HttpServer playerService;
+    private final HttpServer gameService;
+    private final long latencyMillis;
+    private final Set<String> knownProfiles = ConcurrentHashMap.newKeySet();
+    private final LongAdder playerRequests = new LongAdder();
+    private final LongAdder gameRequests = new LongAdder();
+
+    /**
+     * @param latencyMillis Delay added to every response, in milliseconds (0 for none).
+     */
+    StubBackends(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.playerService = start("/profiles", this::handleProfiles);
+        this.gameService = start("/game", this::handleGame);
+    }
+
+    private HttpServer start(String context, ExchangeHandler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext(context, exchange -> {
+            try (exchange) {
+                if (latencyMillis > 0) Thread.sleep(latencyMillis);
+                handler.handle(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    String playerServiceUrl() {
+        return "http://127.0.0.1:" + playerService.getAddress().getPort();
+    }
+
+    String gameServiceUrl() {
+        return "http://127.0.0.1:" + gameService.getAddress().getPort();
+    }
+
+    long playerRequests() {
+        return playerRequests.sum();
+    }
+
+    long gameRequests() {
+        return gameRequests.sum();
+    }
+
+    private void handleProfiles(HttpExchange exchange) throws IOException {
+        playerRequests.increment();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        if ("POST".equals(exchange.getRequestMethod())) {
+            String uuid = JsonParser.parseString(body).getAsJsonObject().get("uuid").getAsString();
+            knownProfiles.add(uuid);
+            respond(exchange, 201, profileJson(uuid));
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        String uuid = path.substring(path.lastIndexOf('/') + 1);
+        if (!knownProfiles.contains(uuid)) {
+            respond(exchange, 404, "{\"error\":\"not found\"}");
+            return;
+        }
+        respond(exchange, 200, profileJson(uuid));
+    }
+
+    private static String profileJson(String uuid) {
+        JsonObject profile = new JsonObject();
+        profile.addProperty("UUID", uuid);
+        profile.addProperty("Username", "bot");
+        profile.addProperty("Team", Math.floorMod(uuid.hashCode(), 2) == 0 ? "AQUA_CREEPERS" : "PURPLE_SWORDERS");
+        profile.addProperty("TotalPlaytimeTicks", 0.0);
+        profile.addProperty("DeltaPlaytimeTicks", 0.0);
+        profile.addProperty("Banned", false);
+        profile.addProperty("LastLoginAt", Instant.now().toString());
+        profile.addProperty("CreatedAt", Instant.now().toString());
+        return profile.toString();
+    }
+
+    private void handleGame(HttpExchange exchange) throws IOException {
+        gameRequests.increment();
+        exchange.getRequestBody().readAllBytes();
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/playtime/batch")) {
+            respond(exchange, 200, "{}");
+        } else if (path.startsWith("/game/team/")) {
+            String team = path.substring("/game/team/".length(), path.lastIndexOf('/'));
+            respond(exchange, 200, "{\"teamId\":\"" + team + "\",\"totalPlaytime\":0.0}");
+        } else if (path.endsWith("/deltatime")) {
+            respond(exchange, 200, "{\"deltatime\":1.0}");
+        } else if (path.endsWith("/playtime")) {
+            respond(exchange, 200, "{\"playtime\":0.0}");
+        } else {
+            respond(exchange, 404, "{}");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ExchangeHandler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    @Override
+    public void close() {
+        playerService.stop(0);
+        gameService.stop(0);
+    }
+}
@@ -0,0 +1,225 @@
+package nub.wi1helm.server;
+
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.network.player.GameProfile;
+import nub.wi1helm.game.CustomPlaytimeTextDisplay;
+import nub.wi1helm.game.GameHandler;
+import nub.wi1helm.player.BackendResponse;
+import nub.wi1helm.player.BackendTransport;
+import nub.wi1helm.player.GameService;
+import nub.wi1helm.player.PlayerService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures how many bytes the lobby's tick hooks allocate per tick and fails when a hook exceeds its budget.
+ *
+ * Each scenario drives one hook (player tick, billboard tick, sidebar update) on the calling thread for many ticks,
+ * after a warm-up long enough for the JIT to have compiled it, and reads the thread's allocation counter before and
+ * after. The budgets are in allocation-budgets.properties. Backends are replaced by in-process transports that answer
+ * on the calling thread, so their allocations are counted as well. The entities are not placed in an instance, so
+ * Minestom's own entity tick returns early and only the lobby's code is measured.
+ *
+ * Arguments (all optional, as {@code key=value}): ticks (defaults to 20000), warmup (defaults to 50000),
+ * report=true to print the measurements without failing, calibrate=path/to/allocation-budgets.properties to rewrite
+ * that file's budgets as the measured values plus {@value #HEADROOM_PERCENT}% headroom, rounded up to
+ * {@value #BUDGET_GRANULARITY} bytes. Calibrating implies report=true.
+ */
+public final class AllocationBudget {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final int HEADROOM_PERCENT = 25;
+    private static final int BUDGET_GRANULARITY = 64;
+    private static final String CALIBRATED_PREFIX = "# Calibrated:";
+
+    /**
+     * @param setup Runs once before the scenario's warm-up, e.g. to swap the backends.
+     */
+    private record Scenario(String name, Runnable setup, Runnable tick) {
+        Scenario(String name, Runnable tick) {
+            this(name, () -> {}, tick);
+        }
+    }
+
+    private AllocationBudget() {}
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            options.put(pair[0], pair[1]);
+        }
+        int ticks = Integer.parseInt(options.getOrDefault("ticks", "20000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "50000"));
+        String calibrate = options.get("calibrate");
+        boolean reportOnly = calibrate != null || Boolean.parseBoolean(options.getOrDefault("report", "false"));
+
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("This JVM does not report per-thread allocations");
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        Properties budgets = loadBudgets();
+
+        MinecraftServer.init();
+        useInstantBackends();
+        List<Scenario> scenarios = scenarios();
+
+        List<String> failures = new ArrayList<>();
+        Map<String, Double> measured = new LinkedHashMap<>();
+        System.out.printf("%-28s %14s %14s%n", "scenario", "bytes/tick", "budget");
+        for (Scenario scenario : scenarios) {
+            long budget = Long.parseLong(budgets.getProperty(scenario.name(), "-1").trim());
+            scenario.setup().run();
+            double bytesPerTick = measure(scenario.tick(), warmup, ticks);
+            measured.put(scenario.name(), bytesPerTick);
+            boolean over = budget >= 0 && bytesPerTick > budget;
+            System.out.printf("%-28s %14.1f %14s%s%n", scenario.name(), bytesPerTick,
+                    budget >= 0 ? String.valueOf(budget) : "none", over ? "  OVER BUDGET" : "");
+            if (over) failures.add(scenario.name());
+        }
+
+        if (calibrate != null) {
+            writeBudgets(Path.of(calibrate), measured, ticks, warmup);
+        }
+        if (!failures.isEmpty() && !reportOnly) {
+            System.err.println("AllocationBudget: Over budget: " + failures);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static List<Scenario> scenarios() {
+        List<Scenario> scenarios = new ArrayList<>();
+        Map<ServerTeam, Double> teamPlaytimes = GameHandler.getLatestTeamPlaytimes();
+
+        ServerPlayer busyPlayer = loadedPlayer("busy");
+        Runnable busyTick = ticking(busyPlayer::tick);
+        scenarios.add(new Scenario("player.tick.backend-busy", () -> {
+            // game-service stops answering; the first tick puts both playtime requests in flight for good
+            GameService.getInstance().setTransport(request -> new CompletableFuture<>());
+            busyTick.run();
+        }, busyTick));
+
+        ServerPlayer instantPlayer = loadedPlayer("instant");
+        scenarios.add(new Scenario("player.tick.backend-instant", AllocationBudget::useInstantBackends, ticking(instantPlayer::tick)));
+
+        CustomPlaytimeTextDisplay billboard = new CustomPlaytimeTextDisplay(ServerTeam.AQUA_CREEPERS);
+        scenarios.add(new Scenario("billboard.tick.unchanged", ticking(time -> {
+            teamPlaytimes.put(ServerTeam.AQUA_CREEPERS, 20_000.0);
+            billboard.tick(time);
+        })));
+        double[] total = {20_000};
+        scenarios.add(new Scenario("billboard.tick.changed", ticking(time -> {
+            total[0] += 20; // one more second to show every tick
+            teamPlaytimes.put(ServerTeam.AQUA_CREEPERS, total[0]);
+            billboard.tick(time);
+        })));
+
+        ServerPlayer viewer = loadedPlayer("viewer");
+        ServerSidebar.attach(viewer);
+        scenarios.add(new Scenario("sidebar.update.unchanged", () -> {
+            ServerSidebar.update();
+            ServerSidebar.refresh(viewer);
+        }));
+        scenarios.add(new Scenario("sidebar.update.changed", () -> {
+            total[0] += 20;
+            teamPlaytimes.put(ServerTeam.AQUA_CREEPERS, total[0]);
+            teamPlaytimes.put(ServerTeam.PURPLE_SWORDERS, total[0]);
+            viewer.updateServerProfile(profile -> profile.withPlaytime(profile.playtime() + 20));
+            ServerSidebar.update();
+            ServerSidebar.refresh(viewer);
+        }));
+        return scenarios;
+    }
+
+    private static double measure(Runnable tick, int warmup, int ticks) {
+        for (int i = 0; i < warmup; i++) tick.run();
+        long threadId = Thread.currentThread().threadId();
+        long before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ticks; i++) tick.run();
+        long after = THREADS.getThreadAllocatedBytes(threadId);
+        return (double) (after - before) / ticks;
+    }
+
+    private static Runnable ticking(java.util.function.LongConsumer tick) {
+        long[] time = {System.currentTimeMillis()};
+        return () -> tick.accept(time[0] += 50);
+    }
+
+    /**
+     * Creates a player with a connection that drops every packet and loads their profile from the in-process backends.
+     */
+    private static ServerPlayer loadedPlayer(String name) {
+        ServerPlayer player = new ServerPlayer(new DiscardingConnection(), new GameProfile(UUID.randomUUID(), name));
+        player.loadPlayerData().join();
+        if (player.getServerProfile() == null) {
+            throw new IllegalStateException("Profile for " + name + " did not load");
+        }
+        return player;
+    }
+
+    private static void useInstantBackends() {
+        PlayerService.getInstance().setTransport(request -> CompletableFuture.completedFuture(new BackendResponse(200,
+                "{\"UUID\":\"" + request.uri().getPath().substring(request.uri().getPath().lastIndexOf('/') + 1) + "\","
+                        + "\"Username\":\"budget\",\"Team\":\"AQUA_CREEPERS\",\"TotalPlaytimeTicks\":0,\"DeltaPlaytimeTicks\":1}")));
+        BackendTransport gameService = request -> {
+            String path = request.uri().getPath();
+            String body = path.endsWith("/deltatime") ? "{\"deltatime\":1.0}" : "{\"playtime\":1234.0}";
+            return CompletableFuture.completedFuture(new BackendResponse(200, body));
+        };
+        GameService.getInstance().setTransport(gameService);
+    }
+
+    /**
+     * Rewrites the budgets in an allocation-budgets.properties file from the measurements, keeping its comments and
+     * order, and records the run on its {@value #CALIBRATED_PREFIX} line.
+     *
+     * @param file The properties file to rewrite, normally src/perf/resources/allocation-budgets.properties.
+     * @param measured The measured bytes per tick by scenario name.
+     */
+    private static void writeBudgets(Path file, Map<String, Double> measured, int ticks, int warmup) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int equals = line.indexOf('=');
+            if (line.startsWith(CALIBRATED_PREFIX)) {
+                line = CALIBRATED_PREFIX + " " + LocalDate.now() + ", Java " + Runtime.version()
+                        + " (" + System.getProperty("java.vm.name") + "), ticks=" + ticks + " warmup=" + warmup;
+            } else if (!line.startsWith("#") && equals > 0 && measured.containsKey(line.substring(0, equals).trim())) {
+                String name = line.substring(0, equals).trim();
+                line = name + "=" + budgetFor(measured.get(name));
+            }
+            lines.add(line);
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        System.out.println("AllocationBudget: Wrote calibrated budgets to " + file);
+    }
+
+    private static long budgetFor(double bytesPerTick) {
+        double withHeadroom = bytesPerTick * (100 + HEADROOM_PERCENT) / 100;
+        long granules = Math.max(1, (long) Math.ceil(withHeadroom / BUDGET_GRANULARITY));
+        return granules * BUDGET_GRANULARITY;
+    }
+
+    private static Properties loadBudgets() throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = AllocationBudget.class.getResourceAsStream("/allocation-budgets.properties")) {
+            if (in == null) throw new IOException("allocation-budgets.properties not found on the classpath");
+            budgets.load(in);
+        }
+        return budgets;
+    }
+}
@@ -0,0 +1,26 @@
+package nub.wi1helm.server;
+
+import net.minestom.server.network.packet.server.SendablePacket;
+import net.minestom.server.network.player.PlayerConnection;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * A connection for players that exist only in this process; outgoing packets are dropped.
+ */
+final class DiscardingConnection extends PlayerConnection {
+
+    private static final SocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 25565);
+
+    @Override
+    public void sendPacket(@NotNull SendablePacket packet) {
+        // dropped
+    }
+
+    @Override
+    public @NotNull SocketAddress getRemoteAddress() {
+        return ADDRESS;
+    }
+}
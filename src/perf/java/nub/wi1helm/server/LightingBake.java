@@ -0,0 +1,24 @@
+package nub.wi1helm.server;
+
+import net.minestom.server.MinecraftServer;
+import nub.wi1helm.config.LobbyConfig;
+
+/**
+ * Loads the lobby world headless, computes its lighting and writes it back to the region files, together with the
+ * marker that lets frozen lobbies serve the light without recomputing it (see {@link ServerInstance}).
+ *
+ * Runs in the directory holding resources/world; ./gradlew bakeLighting runs it on src/main, so the baked region
+ * files can be committed with the world. The chunk radius is the one from {@link LobbyConfig}.
+ */
+public final class LightingBake {
+
+    private LightingBake() {}
+
+    public static void main(String[] args) {
+        LobbyConfig.load();
+        MinecraftServer.init();
+        ServerInstance instance = new ServerInstance(false, true);
+        System.out.printf("LightingBake: Baked lighting for %d chunks.%n", instance.getChunks().size());
+        System.exit(0);
+    }
+}
@@ -0,0 +1,261 @@
+package nub.wi1helm.server;
+
+import com.google.gson.GsonBuilder;
+import net.minestom.server.MinecraftServer;
+import net.minestom.server.coordinate.Pos;
+import net.minestom.server.entity.GameMode;
+import net.minestom.server.network.player.GameProfile;
+import nub.wi1helm.Main;
+import nub.wi1helm.config.LobbyConfig;
+import nub.wi1helm.game.GameHandler;
+import nub.wi1helm.metrics.WorkloadLog;
+import nub.wi1helm.player.BackendResponse;
+import nub.wi1helm.player.BackendTransport;
+import nub.wi1helm.player.GameService;
+import nub.wi1helm.player.PlayerService;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a {@link WorkloadLog} recorded in production against a headless lobby and measures the tick durations,
+ * so two builds can be compared on the same real traffic.
+ *
+ * The replay runs on a virtual clock that advances one tick (50 ms) per loop and is not tied to wall time, so ticks
+ * run back to back and every replay of a log applies the same inputs on the same ticks. Joins start the profile load
+ * like the configuration phase does; the player is spawned once the load has finished. Positions are applied as
+ * teleports. PlayerService and GameService answer from the log: every request gets the next recorded response for
+ * its method and path, after the recorded latency in virtual time. The team counter is merged and reconciled with
+ * game-service on the virtual clock too, at the configured intervals, and the totals are applied on the replay
+ * thread. Players are not registered with the connection
+ * manager, so Minestom's per-connection work (and the sidebar's per-viewer refresh) is not part of the measurement.
+ *
+ * Arguments (as {@code key=value}): log (required), output (defaults to build/results/replay/results.json),
+ * label (a name for this build in the results, defaults to "replay").
+ */
+public final class WorkloadReplay {
+
+    private static final long TICK_MICROS = 50_000;
+    // Ticks run after the last entry, so the last responses and leaves are processed
+    private static final long DRAIN_MICROS = TimeUnit.SECONDS.toMicros(5);
+
+    private record Due(long micros, long sequence, CompletableFuture<BackendResponse> future, WorkloadLog.BackendCall call) {}
+
+    private final Map<String, ArrayDeque<WorkloadLog.BackendCall>> responses = new HashMap<>();
+    private final Map<String, WorkloadLog.BackendCall> lastResponses = new HashMap<>();
+    private final PriorityQueue<Due> due = new PriorityQueue<>(Comparator.comparingLong(Due::micros).thenComparingLong(Due::sequence));
+    private long dueSequence;
+    private volatile long nowMicros;
+
+    private long replayed;
+    private long reused;
+    private long missing;
+
+    private WorkloadReplay(List<WorkloadLog.Entry> entries) {
+        for (WorkloadLog.Entry entry : entries) {
+            if (entry instanceof WorkloadLog.BackendCall call) {
+                responses.computeIfAbsent(key(call.service(), call.method(), call.path()), k -> new ArrayDeque<>()).add(call);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            options.put(pair[0], pair[1]);
+        }
+        if (!options.containsKey("log")) {
+            throw new IllegalArgumentException("Usage: WorkloadReplay log=<workload log> [output=<results.json>] [label=<build name>]");
+        }
+        Path logPath = Path.of(options.get("log"));
+        Path output = Path.of(options.getOrDefault("output", "build/results/replay/results.json"));
+        String label = options.getOrDefault("label", "replay");
+
+        WorkloadLog.Recording recording = WorkloadLog.read(logPath);
+        List<WorkloadLog.Entry> entries = new ArrayList<>(recording.entries());
+        // The recorder's threads can enqueue entries slightly out of order
+        entries.sort(Comparator.comparingLong(WorkloadLog.Entry::micros));
+        System.out.printf("WorkloadReplay: %d entries recorded %s.%n", entries.size(), Instant.ofEpochMilli(recording.startEpochMillis()));
+
+        WorkloadReplay replay = new WorkloadReplay(entries);
+        Map<String, Object> results = replay.run(entries);
+        results.put("label", label);
+        results.put("log", logPath.toString());
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.writeString(output, new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create().toJson(results));
+        System.out.println("WorkloadReplay: Results written to " + output);
+        System.exit(0);
+    }
+
+    private Map<String, Object> run(List<WorkloadLog.Entry> entries) {
+        MinecraftServer.init();
+        PlayerService.getInstance().setTransport(new ReplayTransport("player-service"));
+        GameService.getInstance().setTransport(new ReplayTransport("game-service"));
+        Main.instance = new ServerInstance();
+        CosmeticBroadcast.start();
+        ServerSidebar.create();
+        // Merging and reconciling run on the virtual clock below, not on GameHandler's wall-clock scheduler
+        GameHandler.createUnscheduled();
+
+        Map<Integer, ServerPlayer> players = new HashMap<>();
+        Map<Integer, Pos> positions = new HashMap<>();
+        Map<Integer, ServerPlayer> loading = new LinkedHashMap<>();
+        List<Long> tickNanos = new ArrayList<>();
+        int peakPlayers = 0;
+
+        long start = entries.isEmpty() ? 0 : entries.getFirst().micros();
+        long end = entries.isEmpty() ? 0 : entries.getLast().micros() + DRAIN_MICROS;
+        long baseNanos = System.nanoTime();
+        // Same initial delays as GameHandler.create: merge after one interval, reconcile right away
+        long nextMerge = start + TimeUnit.MILLISECONDS.toMicros(LobbyConfig.COUNTER_MERGE_INTERVAL_MILLIS.duration().toMillis());
+        long nextReconcile = start;
+        int next = 0;
+        for (long now = start; now <= end; now += TICK_MICROS) {
+            nowMicros = now;
+            for (; next < entries.size() && entries.get(next).micros() <= now; next++) {
+                switch (entries.get(next)) {
+                    case WorkloadLog.Join join -> {
+                        ServerPlayer player = new ServerPlayer(new DiscardingConnection(), new GameProfile(join.uuid(), join.username()));
+                        player.setGameMode(GameMode.SPECTATOR);
+                        player.loadPlayerData();
+                        loading.put(join.player(), player);
+                    }
+                    case WorkloadLog.Leave leave -> {
+                        loading.remove(leave.player());
+                        positions.remove(leave.player());
+                        ServerPlayer player = players.remove(leave.player());
+                        if (player != null) player.remove();
+                    }
+                    case WorkloadLog.Position position -> {
+                        Pos pos = new Pos(position.x(), position.y(), position.z(), position.yaw(), position.pitch());
+                        positions.put(position.player(), pos);
+                        ServerPlayer player = players.get(position.player());
+                        if (player != null) player.teleport(pos);
+                    }
+                    case WorkloadLog.BackendCall ignored -> {
+                        // answered on request, see ReplayTransport
+                    }
+                }
+            }
+            if (now >= nextMerge) {
+                GameHandler.mergeTeamPlaytimes();
+                nextMerge += TimeUnit.MILLISECONDS.toMicros(LobbyConfig.COUNTER_MERGE_INTERVAL_MILLIS.duration().toMillis());
+            }
+            if (now >= nextReconcile) {
+                GameHandler.reconcileTeamPlaytimes();
+                nextReconcile += TimeUnit.MILLISECONDS.toMicros(LobbyConfig.RECONCILE_INTERVAL_MILLIS.duration().toMillis());
+            }
+            completeDueResponses(now);
+
+            // Loaded players enter the lobby, like after the configuration phase
+            var iterator = loading.entrySet().iterator();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                if (!entry.getValue().getPlayerDataLoadFuture().isDone()) continue;
+                iterator.remove();
+                Pos spawn = positions.getOrDefault(entry.getKey(), Pos.ZERO);
+                entry.getValue().setInstance(Main.instance, spawn);
+                players.put(entry.getKey(), entry.getValue());
+            }
+            peakPlayers = Math.max(peakPlayers, players.size());
+
+            long tickStart = System.nanoTime();
+            MinecraftServer.process().ticker().tick(baseNanos + TimeUnit.MICROSECONDS.toNanos(now - start));
+            tickNanos.add(System.nanoTime() - tickStart);
+        }
+
+        long[] sorted = tickNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("ticks", sorted.length);
+        results.put("virtualSeconds", (end - start) / 1e6);
+        results.put("peakPlayers", peakPlayers);
+        results.put("tickMeanMillis", tickNanos.stream().mapToLong(Long::longValue).average().orElse(Double.NaN) / 1e6);
+        results.put("tickP50Millis", percentile(sorted, 50));
+        results.put("tickP95Millis", percentile(sorted, 95));
+        results.put("tickP99Millis", percentile(sorted, 99));
+        results.put("tickMaxMillis", sorted.length == 0 ? Double.NaN : sorted[sorted.length - 1] / 1e6);
+        results.put("backendResponsesReplayed", replayed);
+        results.put("backendResponsesReused", reused);
+        results.put("backendResponsesMissing", missing);
+        System.out.printf("WorkloadReplay: %d ticks, peak %d players, tick p50 %.2f ms, p99 %.2f ms, max %.2f ms.%n",
+                sorted.length, peakPlayers, results.get("tickP50Millis"), results.get("tickP99Millis"), results.get("tickMaxMillis"));
+        return results;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return Double.NaN;
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    private void completeDueResponses(long now) {
+        while (true) {
+            Due next;
+            synchronized (this) {
+                next = due.peek();
+                if (next == null || next.micros() > now) return;
+                due.poll();
+            }
+            WorkloadLog.BackendCall call = next.call();
+            if (call.status() < 0) {
+                next.future().completeExceptionally(new IOException("Recorded failure: " + call.body()));
+            } else {
+                next.future().complete(new BackendResponse(call.status(), call.body()));
+            }
+        }
+    }
+
+    private static String key(String service, String method, String path) {
+        return service + " " + method + " " + path;
+    }
+
+    /**
+     * Answers a service's requests with the responses recorded for the same method and path.
+     */
+    private final class ReplayTransport implements BackendTransport {
+        private final String service;
+
+        ReplayTransport(String service) {
+            this.service = service;
+        }
+
+        @Override
+        public CompletableFuture<BackendResponse> send(HttpRequest request) {
+            String query = request.uri().getRawQuery();
+            String path = query == null ? request.uri().getRawPath() : request.uri().getRawPath() + "?" + query;
+            String key = key(service, request.method(), path);
+            CompletableFuture<BackendResponse> future = new CompletableFuture<>();
+            synchronized (WorkloadReplay.this) {
+                ArrayDeque<WorkloadLog.BackendCall> recorded = responses.get(key);
+                WorkloadLog.BackendCall call = recorded != null ? recorded.poll() : null;
+                if (call != null) {
+                    replayed++;
+                    lastResponses.put(key, call);
+                } else if ((call = lastResponses.get(key)) != null) {
+                    // The replayed build sends more requests than the recorded one did; repeat the latest answer
+                    reused++;
+                } else {
+                    missing++;
+                    call = new WorkloadLog.BackendCall(nowMicros, service, request.method(), path, 404, 0, "{}");
+                }
+                due.add(new Due(nowMicros + call.latencyMicros(), dueSequence++, future, call));
+            }
+            return future;
+        }
+    }
+}